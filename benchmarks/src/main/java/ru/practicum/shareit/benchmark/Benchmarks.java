@@ -0,0 +1,34 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Точка входа benchmarks.jar: запускает JMH с теми же аргументами и, если формат результата не задан,
+ * пишет результаты в jmh-result-<дата>-<время>.json в текущем каталоге. Файлы разных прогонов можно
+ * сравнить, например, в JMH Visualizer:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar MapperBenchmark
+ * java -jar benchmarks/target/benchmarks.jar MapperBenchmark -rf csv -rff mapper.csv
+ * </pre>
+ */
+public final class Benchmarks {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(List.of(args));
+        if (!options.contains("-rf") && !options.contains("-rff")) {
+            options.addAll(List.of("-rf", "json", "-rff",
+                    "jmh-result-" + LocalDateTime.now().format(TIMESTAMP) + ".json"));
+        }
+        Main.main(options.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,155 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.availability.IntervalTreeAvailabilityIndex;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
+import ru.practicum.shareit.item.search.TrigramItemSearchEngine;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Сервер ShareIt поверх встроенной H2 и генератор тестовых данных для бенчмарков.
+ * Без веб-слоя для микробенчмарков, с Tomcat на случайном порту для нагрузочных тестов.
+ */
+public final class ServerFixture implements AutoCloseable {
+
+    private static final int INSERT_BATCH_SIZE = 5_000;
+
+    private static final String[] WORDS = {
+        "дрель", "отвертка", "пила", "молоток", "лестница", "палатка", "велосипед", "самокат", "рюкзак",
+        "перфоратор", "шуруповерт", "лобзик", "уровень", "рулетка", "стремянка", "гамак", "котелок",
+        "аккумуляторная", "ударная", "складная", "туристическая", "детская", "большая", "компактная"
+    };
+
+    private final ConfigurableApplicationContext context;
+
+    private final Random random = new Random(42);
+
+    private ServerFixture(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Свойства передаются как аргументы командной строки, чтобы перекрывать application.properties.
+     */
+    public static ServerFixture start(String... properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    public static ServerFixture startWeb(String... properties) {
+        return start(WebApplicationType.SERVLET, properties);
+    }
+
+    private static ServerFixture start(WebApplicationType web, String... properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ShareItServer.class)
+                .profiles("test")
+                .web(web)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN", "server.port=0")
+                .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+        return new ServerFixture(context);
+    }
+
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public JdbcTemplate jdbc() {
+        return context.getBean(JdbcTemplate.class);
+    }
+
+    public long createUser(String name) {
+        jdbc().update("insert into users (name, email) values (?, ?)", name, name + "@shareit.ru");
+        return jdbc().queryForObject("select id from users where email = ?", Long.class, name + "@shareit.ru");
+    }
+
+    public void createItems(long ownerId, int count) {
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            batch.add(new Object[]{phrase(2) + " " + i, phrase(6), random.nextInt(10) > 0, ownerId});
+            if (batch.size() == INSERT_BATCH_SIZE || i == count - 1) {
+                jdbc().batchUpdate("insert into items (name, description, is_available, owner_id) "
+                        + "values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Бронирования вещи подряд по часу с шагом в два часа начиная с from, каждое третье одобрено,
+     * каждое пятое из оставшихся отклонено.
+     */
+    public void createBookings(long itemId, long bookerId, LocalDateTime from, int count) {
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = from.plusHours(2L * i);
+            String status = i % 3 == 0 ? "APPROVED" : i % 5 == 0 ? "REJECTED" : "WAITING";
+            String phase = BookingPhase.at(start, start.plusHours(1), now).name();
+            batch.add(new Object[]{start, start.plusHours(1), itemId, bookerId, status, phase});
+            if (batch.size() == INSERT_BATCH_SIZE || i == count - 1) {
+                jdbc().batchUpdate("insert into bookings (start_date, end_date, item_id, booker_id, status, phase) "
+                        + "values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    public void createRequests(long requestorId, int count) {
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            batch.add(new Object[]{"нужна " + phrase(2), requestorId, now.minusHours(i)});
+            if (batch.size() == INSERT_BATCH_SIZE || i == count - 1) {
+                jdbc().batchUpdate("insert into requests (description, requestor_id, created) values (?, ?, ?)",
+                        batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Строит заново то, что сервер собирает из базы при старте: документы списка вещей владельца,
+     * поисковый индекс и индекс одобренных бронирований, если они включены. Нужно после вставок
+     * в обход сервисов.
+     */
+    public void rebuildIndexes() {
+        getBean(ItemDashboardService.class).rebuild();
+        context.getBeanProvider(TrigramItemSearchEngine.class).ifAvailable(TrigramItemSearchEngine::rebuild);
+        context.getBeanProvider(IntervalTreeAvailabilityIndex.class)
+                .ifAvailable(IntervalTreeAvailabilityIndex::rebuild);
+    }
+
+    public Random random() {
+        return random;
+    }
+
+    public String phrase(int words) {
+        StringBuilder phrase = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                phrase.append(' ');
+            }
+            phrase.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return phrase.toString();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
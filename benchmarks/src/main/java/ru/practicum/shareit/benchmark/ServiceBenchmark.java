@@ -0,0 +1,119 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComments;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Методы сервисов целиком, с транзакцией, проверкой пользователя и маппингом, на H2 с items вещами
+ * одного владельца и bookingsPerItem бронированиями каждой вещи:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ServiceBenchmark -p items=1000,100000
+ * </pre>
+ * Страницы - по 20 записей, карточки вещей запрашиваются по кругу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ServiceBenchmark {
+
+    private static final LocalDateTime FROM = LocalDateTime.now().minusDays(10);
+
+    private static final int PAGE = 20;
+
+    @Param({"1000", "10000"})
+    private int items;
+
+    @Param({"10"})
+    private int bookingsPerItem;
+
+    private ServerFixture fixture;
+
+    private ItemService itemService;
+
+    private BookingService bookingService;
+
+    private long ownerId;
+
+    private long bookerId;
+
+    private long[] itemIds;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServerFixture.start();
+        ownerId = fixture.createUser("owner");
+        bookerId = fixture.createUser("booker");
+        fixture.createItems(ownerId, items);
+        itemIds = fixture.jdbc().queryForList("select id from items order by id", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        for (long itemId : itemIds) {
+            fixture.createBookings(itemId, bookerId, FROM, bookingsPerItem);
+        }
+        fixture.getBean(ItemDashboardService.class).rebuild();
+        itemService = fixture.getBean(ItemService.class);
+        bookingService = fixture.getBean(BookingService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public ItemDtoWithBookingAndComments itemByOwner() {
+        return itemService.getItemDtoById(nextItemId(), ownerId);
+    }
+
+    @Benchmark
+    public List<ItemDtoWithBookingAndComments> ownerItems() {
+        return itemService.getItemDtoByUserId(ownerId, 0, PAGE);
+    }
+
+    @Benchmark
+    public List<ItemDto> search() {
+        return itemService.getItemsDtoByTextRequest("дрель", 0, PAGE);
+    }
+
+    @Benchmark
+    public List<BookingOutDto> bookerBookings() {
+        return bookingService.findAllUsersBookingByState(bookerId, BookingState.ALL, 0, PAGE);
+    }
+
+    @Benchmark
+    public List<BookingOutDto> ownerBookings() {
+        return bookingService.findAllBookingsForItemsOfUser(ownerId, BookingState.ALL, 0, PAGE);
+    }
+
+    private long nextItemId() {
+        next = (next + 1) % itemIds.length;
+        return itemIds[next];
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.benchmark.booking;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import ru.practicum.shareit.benchmark.ServerFixture;
+import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Память и время на страницу бронирований с логами сервисов на уровне level. Вывод логов уходит
+ * в пустой поток: измеряется подготовка и форматирование событий, а не запись в консоль.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar BookingListingLoggingBenchmark -prof gc
+ * </pre>
+ * sampleRate - shareit.logging.sample-rate, доля выборочных событий INFO, которые попадают в лог.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BookingListingLoggingBenchmark {
+
+    private static final LocalDateTime FROM = LocalDateTime.now().minusDays(10);
+
+    private static final int ITEMS = 100;
+
+    private static final int PAGE = 20;
+
+    @Param({"INFO", "WARN"})
+    private String level;
+
+    @Param({"1", "100"})
+    private int sampleRate;
+
+    private ServerFixture fixture;
+
+    private BookingService bookingService;
+
+    private long ownerId;
+
+    private long bookerId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServerFixture.start("logging.level.ru.practicum.shareit=" + level,
+                "shareit.logging.sample-rate=" + sampleRate);
+        ownerId = fixture.createUser("owner");
+        bookerId = fixture.createUser("booker");
+        fixture.createItems(ownerId, ITEMS);
+        for (long itemId : fixture.jdbc().queryForList("select id from items", Long.class)) {
+            fixture.createBookings(itemId, bookerId, FROM, 10);
+        }
+        bookingService = fixture.getBean(BookingService.class);
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        discardOutput(context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<BookingOutDto> bookerBookings() {
+        return bookingService.findAllUsersBookingByState(bookerId, BookingState.ALL, 0, PAGE);
+    }
+
+    @Benchmark
+    public List<BookingOutDto> ownerBookings() {
+        return bookingService.findAllBookingsForItemsOfUser(ownerId, BookingState.ALL, 0, PAGE);
+    }
+
+    private static void discardOutput(Iterator<Appender<ILoggingEvent>> appenders) {
+        appenders.forEachRemaining(appender -> {
+            if (appender instanceof AsyncAppenderBase) {
+                discardOutput(((AsyncAppenderBase<ILoggingEvent>) appender).iteratorForAppenders());
+            } else if (appender instanceof OutputStreamAppender) {
+                ((OutputStreamAppender<ILoggingEvent>) appender).setOutputStream(OutputStream.nullOutputStream());
+            }
+        });
+    }
+}
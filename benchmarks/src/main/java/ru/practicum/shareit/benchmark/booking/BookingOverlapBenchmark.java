@@ -0,0 +1,99 @@
+package ru.practicum.shareit.benchmark.booking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.benchmark.ServerFixture;
+import ru.practicum.shareit.booking.availability.IntervalTreeAvailabilityIndex;
+import ru.practicum.shareit.booking.availability.JpaBookingAvailabilityIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка проверки пересечения бронирования с одобренными: запрос к таблице bookings
+ * против дерева интервалов в памяти, для вещи с большой историей бронирований.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar BookingOverlapBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BookingOverlapBenchmark {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private static final int WINDOWS = 1024;
+
+    @Param({"10000", "100000"})
+    private int bookings;
+
+    private ServerFixture fixture;
+
+    private JpaBookingAvailabilityIndex repositoryQuery;
+
+    private IntervalTreeAvailabilityIndex intervalTree;
+
+    private long itemId;
+
+    private LocalDateTime[] starts;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServerFixture.start();
+        long ownerId = fixture.createUser("owner");
+        long bookerId = fixture.createUser("booker");
+        fixture.createItems(ownerId, 1);
+        itemId = fixture.jdbc().queryForObject("select max(id) from items", Long.class);
+        fixture.createBookings(itemId, bookerId, FROM, bookings);
+
+        BookingRepository repository = fixture.getBean(BookingRepository.class);
+        repositoryQuery = new JpaBookingAvailabilityIndex(repository);
+        intervalTree = new IntervalTreeAvailabilityIndex(repository);
+        intervalTree.rebuild();
+
+        starts = new LocalDateTime[WINDOWS];
+        for (int i = 0; i < WINDOWS; i++) {
+            starts[i] = FROM.plusMinutes(fixture.random().nextInt(bookings * 120));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public boolean repositoryQuery() {
+        LocalDateTime start = nextStart();
+        return repositoryQuery.hasApprovedOverlap(itemId, start, start.plusMinutes(30));
+    }
+
+    @Benchmark
+    public boolean intervalTree() {
+        LocalDateTime start = nextStart();
+        return intervalTree.hasApprovedOverlap(itemId, start, start.plusMinutes(30));
+    }
+
+    private LocalDateTime nextStart() {
+        next = (next + 1) & (WINDOWS - 1);
+        return starts[next];
+    }
+}
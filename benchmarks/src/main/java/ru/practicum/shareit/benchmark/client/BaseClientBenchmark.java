@@ -0,0 +1,132 @@
+package ru.practicum.shareit.benchmark.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.InFlightRequests;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ShareItServerClientConfig;
+import ru.practicum.shareit.client.ShareItServerProperties;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BaseClient шлюза с пулом соединений из ShareItServerClientConfig против заглушки сервера на локальном
+ * порту, которая сразу отвечает готовой карточкой вещи. Меряет накладные расходы шлюза на запрос:
+ * WebClient, разбор JSON, кэш ответов (cacheSize, 0 - без кэша) и объединение одинаковых GET (coalesce).
+ * Карточки запрашиваются по кругу из keys штук, одновременные запросы - через потоки JMH:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar BaseClientBenchmark -t 8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// без nodelay заглушка отвечает двумя пакетами и каждый запрос ждет отложенного ACK
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BaseClientBenchmark {
+
+    private static final byte[] ITEM = ("{\"id\":1,\"name\":\"дрель\",\"description\":\"аккумуляторная дрель\","
+            + "\"available\":true,\"requestId\":null,\"lastBooking\":null,\"nextBooking\":null,\"comments\":[]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"0", "10000"})
+    private long cacheSize;
+
+    @Param({"false", "true"})
+    private boolean coalesce;
+
+    @Param({"100"})
+    private int keys;
+
+    private HttpServer server;
+
+    private ExecutorService serverThreads;
+
+    private ConnectionProvider connections;
+
+    private ItemsClient client;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        serverThreads = Executors.newFixedThreadPool(8);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("ETag", "\"1\"");
+            exchange.sendResponseHeaders(200, ITEM.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(ITEM);
+            }
+        });
+        server.setExecutor(serverThreads);
+        server.start();
+
+        ShareItServerProperties properties = new ShareItServerProperties();
+        properties.setUrl("http://localhost:" + server.getAddress().getPort());
+        properties.setCoalesceGets(coalesce);
+        properties.getCache().setMaxSize(cacheSize);
+        ShareItServerClientConfig config = new ShareItServerClientConfig();
+        connections = config.shareItServerConnectionProvider(properties);
+        WebClient web = WebClient.builder()
+                .baseUrl(properties.getUrl() + "/items")
+                .clientConnector(config.shareItServerConnector(connections, properties))
+                .build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        client = new ItemsClient(web, properties, new ResponseCache(properties, meterRegistry),
+                new InFlightRequests(properties, meterRegistry));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connections.dispose();
+        server.stop(0);
+        serverThreads.shutdown();
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> getItem() {
+        long itemId = Math.floorMod(next.incrementAndGet(), keys);
+        return client.getItem(itemId, 7L).join();
+    }
+
+    private static final class ItemsClient extends BaseClient {
+
+        private ItemsClient(WebClient web, ShareItServerProperties properties, ResponseCache cache,
+                            InFlightRequests inFlight) {
+            super(web, properties.timeoutFor("items"), cache, inFlight, "/items");
+        }
+
+        private CompletableFuture<ResponseEntity<Object>> getItem(long itemId, long userId) {
+            return getIfNoneMatch("/" + itemId, userId, null);
+        }
+    }
+}
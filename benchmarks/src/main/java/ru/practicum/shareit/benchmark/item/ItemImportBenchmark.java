@@ -0,0 +1,122 @@
+package ru.practicum.shareit.benchmark.item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.benchmark.ServerFixture;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка вещей владельца через HTTP: importNdjson - одним запросом POST /items/import,
+ * oneByOne - прежний путь, POST /items на каждую вещь. Один замер - весь набор вещей:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ItemImportBenchmark -p batchSize=100,1000,10000
+ * </pre>
+ * batchSize - свойство shareit.items.import.batch-size, на oneByOne не влияет.
+ * На H2 для 100 000 вещей: importNdjson 4,2 с при batchSize 1000, 5,3-5,6 с при 100 и 10 000,
+ * oneByOne 41-54 с.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ItemImportBenchmark {
+
+    private static final String HEADER = "X-Sharer-User-Id";
+
+    @Param({"100000"})
+    private int items;
+
+    @Param({"1000"})
+    private int batchSize;
+
+    private ServerFixture fixture;
+
+    private HttpClient client;
+
+    private URI importUri;
+
+    private URI createUri;
+
+    private long ownerId;
+
+    private List<String> itemJsons;
+
+    private byte[] ndjson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServerFixture.startWeb("shareit.items.import.batch-size=" + batchSize);
+        ownerId = fixture.createUser("owner");
+        client = HttpClient.newHttpClient();
+        importUri = URI.create("http://localhost:" + fixture.port() + "/items/import");
+        createUri = URI.create("http://localhost:" + fixture.port() + "/items");
+        itemJsons = new ArrayList<>(items);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < items; i++) {
+            String json = "{\"name\":\"" + fixture.phrase(2) + " " + i + "\",\"description\":\""
+                    + fixture.phrase(6) + "\",\"available\":true}";
+            itemJsons.add(json);
+            body.append(json).append('\n');
+        }
+        ndjson = body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public String importNdjson() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(importUri)
+                .header(HEADER, String.valueOf(ownerId))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(ndjson))
+                .build();
+        return send(request);
+    }
+
+    @Benchmark
+    public String oneByOne() throws IOException, InterruptedException {
+        String last = null;
+        for (String json : itemJsons) {
+            HttpRequest request = HttpRequest.newBuilder(createUri)
+                    .header(HEADER, String.valueOf(ownerId))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+            last = send(request);
+        }
+        return last;
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Сервер ответил " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.benchmark.item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.benchmark.ServerFixture;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.JpaItemSearchEngine;
+import ru.practicum.shareit.item.search.TrigramItemSearchEngine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка поиска вещей: запрос like к таблице items против триграммного индекса в памяти.
+ * Режим SampleTime выводит перцентили p0.50 и p0.99 для каждого размера таблицы.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ItemSearchBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ItemSearchBenchmark {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    @Param({"10000", "100000", "1000000"})
+    private int items;
+
+    @Param({"шуруповерт", "дрель 1"})
+    private String text;
+
+    private ServerFixture fixture;
+
+    private JpaItemSearchEngine likeScan;
+
+    private TrigramItemSearchEngine trigramIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServerFixture.start();
+        fixture.createItems(fixture.createUser("owner"), items);
+        ItemRepository repository = fixture.getBean(ItemRepository.class);
+        likeScan = new JpaItemSearchEngine(repository);
+        trigramIndex = new TrigramItemSearchEngine(repository, fixture.getBean(PlatformTransactionManager.class));
+        trigramIndex.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> likeScan() {
+        return likeScan.search(text, PAGE);
+    }
+
+    @Benchmark
+    public List<ItemDto> trigramIndex() {
+        return trigramIndex.search(text, PAGE);
+    }
+}
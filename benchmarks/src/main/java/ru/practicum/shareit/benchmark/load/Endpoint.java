@@ -0,0 +1,68 @@
+package ru.practicum.shareit.benchmark.load;
+
+/**
+ * Вызовы смеси нагрузки LoadGenerator и их веса по умолчанию.
+ */
+enum Endpoint {
+
+    /**
+     * GET /items/search по одному слову.
+     */
+    SEARCH("search", 30),
+
+    /**
+     * GET /items - список вещей владельца.
+     */
+    DASHBOARD("dashboard", 20),
+
+    /**
+     * GET /bookings - бронирования пользователя.
+     */
+    BOOKINGS("bookings", 15),
+
+    /**
+     * GET /bookings/owner - бронирования вещей владельца.
+     */
+    OWNER_BOOKINGS("owner-bookings", 15),
+
+    /**
+     * GET /requests/all - чужие запросы на вещи.
+     */
+    REQUESTS("requests", 5),
+
+    /**
+     * POST /bookings - бронирование чужой доступной вещи.
+     */
+    CREATE("create", 10),
+
+    /**
+     * PATCH /bookings/{bookingId}?approved=true - одобрение владельцем.
+     */
+    APPROVE("approve", 5);
+
+    private final String key;
+
+    private final int defaultWeight;
+
+    Endpoint(String key, int defaultWeight) {
+        this.key = key;
+        this.defaultWeight = defaultWeight;
+    }
+
+    String key() {
+        return key;
+    }
+
+    int defaultWeight() {
+        return defaultWeight;
+    }
+
+    static Endpoint of(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный вызов смеси: " + key);
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.benchmark.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ответы одного вызова за время замера. Задержки хранятся в микросекундах в гистограмме HdrHistogram
+ * с тремя значащими цифрами, ее пишут потоки HttpClient одновременно.
+ */
+final class EndpointStats {
+
+    private final Histogram latencies = new ConcurrentHistogram(3);
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Ответ сервера: 4xx - отказ по бизнес-правилам (пересечение бронирований, уже одобрено),
+     * 5xx - ошибка. Задержка учитывается для любого ответа.
+     */
+    void record(long nanos, int status) {
+        latencies.recordValue(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 1));
+        if (status >= 500) {
+            errors.increment();
+        } else if (status >= 400) {
+            rejected.increment();
+        }
+    }
+
+    /**
+     * Запрос без ответа: таймаут или обрыв соединения.
+     */
+    void fail() {
+        errors.increment();
+    }
+
+    Histogram latencies() {
+        return latencies;
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+}
@@ -0,0 +1,409 @@
+package ru.practicum.shareit.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.practicum.shareit.benchmark.ServerFixture;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузка на шлюз и сервер смесью поиска, списков вещей владельца, списков бронирований, создания
+ * и одобрения бронирований. Сервер запускается в этом же процессе поверх H2, шлюз - отдельным процессом
+ * из собранного exec-jar. Данные засеваются в базу напрямую: users пользователей, у каждого items вещей
+ * и requests запросов, у каждой вещи bookings бронирований другого пользователя.
+ * <pre>
+ * mvn install -DskipTests
+ * java -cp benchmarks/target/benchmarks.jar ru.practicum.shareit.benchmark.load.LoadGenerator \
+ *     users=1000 items=20 clients=50 duration=60 mix=search:50,dashboard:20,create:20,approve:10
+ * </pre>
+ * Это закрытая модель: clients клиентов отправляют следующий запрос сразу после
+ * ответа на предыдущий, ответы за warmup секунд не учитываются. Для каждого вызова печатаются пропускная
+ * способность и перцентили задержки, полные гистограммы пишутся в out/&lt;вызов&gt;.hgrm.
+ * <p>
+ * target=server нагружает сервер без шлюза. Аргументы вида gateway.ключ=значение передаются шлюзу,
+ * остальные незнакомые - серверу, например spring.datasource.url, driverClassName, username и password
+ * для локального PostgreSQL.
+ */
+public final class LoadGenerator {
+
+    private static final DateTimeFormatter RUN = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final Duration GATEWAY_STARTUP = Duration.ofMinutes(1);
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Files.createDirectories(options.out);
+
+        try (ServerFixture fixture = ServerFixture.startWeb(options.serverProperties())) {
+            Process gateway = null;
+            String baseUrl = "http://localhost:" + fixture.port();
+            if (options.target.equals("gateway")) {
+                int port = freePort();
+                gateway = startGateway(options, fixture.port(), port);
+                baseUrl = "http://localhost:" + port;
+            }
+            try {
+                long started = System.nanoTime();
+                Traffic traffic = seed(fixture, baseUrl, options);
+                System.out.printf("Данные засеяны за %d с%n",
+                        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+                if (gateway != null) {
+                    awaitGateway(gateway, baseUrl, options.out.resolve("gateway.log"));
+                }
+                report(run(traffic, options), options);
+            } finally {
+                if (gateway != null) {
+                    gateway.destroy();
+                    if (!gateway.waitFor(10, TimeUnit.SECONDS)) {
+                        gateway.destroyForcibly();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Засевает данные прогона. Идентификаторы берутся больше уже существующих, поэтому повторный прогон
+     * на той же базе PostgreSQL нагружает только свои данные. Шлюз тем временем запускается.
+     */
+    private static Traffic seed(ServerFixture fixture, String baseUrl, Options options) {
+        long itemsBefore = maxId(fixture, "items");
+        long bookingsBefore = maxId(fixture, "bookings");
+        String run = LocalDateTime.now().format(RUN);
+        Random random = fixture.random();
+
+        long[] userIds = new long[options.users];
+        for (int i = 0; i < options.users; i++) {
+            userIds[i] = fixture.createUser("load-" + run + "-" + i);
+        }
+        for (long userId : userIds) {
+            fixture.createItems(userId, options.items);
+            fixture.createRequests(userId, options.requests);
+        }
+        LocalDateTime from = LocalDateTime.now().minusHours(options.bookings);
+        List<long[]> items = fixture.jdbc().query("select id, owner_id, is_available from items where id > ? "
+                        + "order by id",
+                (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getBoolean(3) ? 1 : 0}, itemsBefore);
+        for (long[] item : items) {
+            long bookerId;
+            do {
+                bookerId = userIds[random.nextInt(userIds.length)];
+            } while (bookerId == item[1]);
+            fixture.createBookings(item[0], bookerId, from, options.bookings);
+        }
+        fixture.rebuildIndexes();
+
+        long[] available = items.stream().filter(item -> item[2] == 1).mapToLong(item -> item[0]).toArray();
+        long[] owners = items.stream().filter(item -> item[2] == 1).mapToLong(item -> item[1]).toArray();
+        Traffic traffic = new Traffic(baseUrl, options.mix, userIds, available, owners, () -> fixture.phrase(1));
+        fixture.jdbc().query("select b.id, i.owner_id from bookings b join items i on i.id = b.item_id "
+                        + "where b.id > ? and b.status = 'WAITING' and b.start_date > ? order by b.start_date",
+                (RowCallbackHandler) rs -> traffic.waiting(rs.getLong(1), rs.getLong(2)),
+                bookingsBefore, LocalDateTime.now().plusMinutes(10));
+        System.out.printf("Пользователей: %d, вещей: %d, запросов: %d, бронирований: %d%n", userIds.length,
+                items.size(), (long) userIds.length * options.requests, (long) items.size() * options.bookings);
+        return traffic;
+    }
+
+    private static long maxId(ServerFixture fixture, String table) {
+        Long id = fixture.jdbc().queryForObject("select max(id) from " + table, Long.class);
+        return id == null ? 0 : id;
+    }
+
+    private static Map<Endpoint, EndpointStats> run(Traffic traffic, Options options) {
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        long measureFrom = System.nanoTime() + options.warmup.toNanos();
+        long deadline = measureFrom + options.duration.toNanos();
+        List<CompletableFuture<Void>> clients = new ArrayList<>(options.clients);
+        for (int i = 0; i < options.clients; i++) {
+            clients.add(new VirtualClient(client, traffic, stats, new Random(i), measureFrom, deadline).start());
+        }
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+        return stats;
+    }
+
+    private static void report(Map<Endpoint, EndpointStats> stats, Options options) throws IOException {
+        double seconds = options.duration.toMillis() / 1000.0;
+        System.out.printf("%-15s %10s %12s %8s %8s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "requests/s",
+                "4xx", "errors", "p50, ms", "p90, ms", "p99, ms", "p99.9, ms", "max, ms");
+        Histogram total = new Histogram(3);
+        long rejected = 0;
+        long errors = 0;
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats endpoint = entry.getValue();
+            if (!options.mix.containsKey(entry.getKey()) && endpoint.latencies().getTotalCount() == 0) {
+                continue;
+            }
+            print(entry.getKey().key(), endpoint.latencies(), endpoint.rejected(), endpoint.errors(), seconds);
+            total.add(endpoint.latencies());
+            rejected += endpoint.rejected();
+            errors += endpoint.errors();
+            try (PrintStream out = new PrintStream(Files.newOutputStream(
+                    options.out.resolve(entry.getKey().key() + ".hgrm")), false, StandardCharsets.UTF_8)) {
+                endpoint.latencies().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        print("total", total, rejected, errors, seconds);
+        System.out.printf("Гистограммы задержек в мс: %s%n", options.out.toAbsolutePath());
+    }
+
+    private static void print(String name, Histogram latencies, long rejected, long errors, double seconds) {
+        long count = latencies.getTotalCount();
+        System.out.printf("%-15s %10d %12.1f %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, count, count / seconds,
+                rejected, errors, millis(latencies, 50), millis(latencies, 90), millis(latencies, 99),
+                millis(latencies, 99.9), count == 0 ? Double.NaN : latencies.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return latencies.getTotalCount() == 0 ? Double.NaN : latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Process startGateway(Options options, int serverPort, int port) throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", options.gatewayJar.toString(),
+                "--server.port=" + port,
+                "--shareit-server.url=http://localhost:" + serverPort,
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web.reactive.function.client.ExchangeFunctions=WARN"));
+        options.gatewayProperties.forEach(property -> command.add("--" + property));
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(options.out.resolve("gateway.log").toFile())
+                .start();
+    }
+
+    private static void awaitGateway(Process gateway, String baseUrl, Path log) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).build();
+        long deadline = System.nanoTime() + GATEWAY_STARTUP.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!gateway.isAlive()) {
+                throw new IllegalStateException("Шлюз завершился при запуске, см. " + log);
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // шлюз еще не слушает порт
+            }
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+        gateway.destroyForcibly();
+        throw new IllegalStateException("Шлюз не запустился за " + GATEWAY_STARTUP.toSeconds() + " с, см. " + log);
+    }
+
+    /**
+     * Цепочка запросов одного клиента: следующий вызов выбирается после ответа на предыдущий.
+     */
+    private static final class VirtualClient {
+
+        private final HttpClient client;
+
+        private final Traffic traffic;
+
+        private final Map<Endpoint, EndpointStats> stats;
+
+        private final Random random;
+
+        private final long measureFrom;
+
+        private final long deadline;
+
+        private VirtualClient(HttpClient client, Traffic traffic, Map<Endpoint, EndpointStats> stats, Random random,
+                              long measureFrom, long deadline) {
+            this.client = client;
+            this.traffic = traffic;
+            this.stats = stats;
+            this.random = random;
+            this.measureFrom = measureFrom;
+            this.deadline = deadline;
+        }
+
+        private CompletableFuture<Void> start() {
+            long sentAt = System.nanoTime();
+            if (sentAt >= deadline) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Traffic.Call call = traffic.next(random);
+            return client.sendAsync(call.request, HttpResponse.BodyHandlers.ofString())
+                    .handle((response, e) -> {
+                        long latency = System.nanoTime() - sentAt;
+                        if (sentAt >= measureFrom) {
+                            EndpointStats endpoint = stats.get(call.endpoint);
+                            if (e != null) {
+                                endpoint.fail();
+                            } else {
+                                endpoint.record(latency, response.statusCode());
+                            }
+                        }
+                        if (e == null) {
+                            try {
+                                traffic.completed(call, response);
+                            } catch (IOException ignored) {
+                                // ответ без id: одобрять нечего
+                            }
+                        }
+                        return null;
+                    })
+                    .thenCompose(ignored -> start());
+        }
+    }
+
+    private static final class Options {
+
+        private String target = "gateway";
+
+        private int users = 200;
+
+        private int items = 20;
+
+        private int requests = 2;
+
+        private int bookings = 10;
+
+        private int clients = 50;
+
+        private Duration warmup = Duration.ofSeconds(10);
+
+        private Duration duration = Duration.ofSeconds(30);
+
+        private Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+
+        private Path gatewayJar = Paths.get("gateway/target/shareit-gateway-0.0.1-SNAPSHOT-exec.jar");
+
+        private Path out = Paths.get("load-result-" + LocalDateTime.now().format(RUN));
+
+        /**
+         * Свойства сервера по умолчанию - индексы в памяти, как в рабочем профиле.
+         */
+        private final Map<String, String> serverProperties = new LinkedHashMap<>(Map.of(
+                "spring.datasource.url", "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                "shareit.search.engine", "index",
+                "shareit.booking.availability", "index"));
+
+        private final List<String> gatewayProperties = new ArrayList<>();
+
+        private static Options parse(String[] args) {
+            Options options = new Options();
+            for (Endpoint endpoint : Endpoint.values()) {
+                options.mix.put(endpoint, endpoint.defaultWeight());
+            }
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Ожидается аргумент вида ключ=значение: " + arg);
+                }
+                String key = arg.substring(0, separator);
+                String value = arg.substring(separator + 1);
+                switch (key) {
+                    case "target":
+                        if (!value.equals("gateway") && !value.equals("server")) {
+                            throw new IllegalArgumentException("target - gateway или server: " + value);
+                        }
+                        options.target = value;
+                        break;
+                    case "users":
+                        options.users = Integer.parseInt(value);
+                        break;
+                    case "items":
+                        options.items = Integer.parseInt(value);
+                        break;
+                    case "requests":
+                        options.requests = Integer.parseInt(value);
+                        break;
+                    case "bookings":
+                        options.bookings = Integer.parseInt(value);
+                        break;
+                    case "clients":
+                        options.clients = Integer.parseInt(value);
+                        break;
+                    case "warmup":
+                        options.warmup = Duration.ofSeconds(Long.parseLong(value));
+                        break;
+                    case "duration":
+                        options.duration = Duration.ofSeconds(Long.parseLong(value));
+                        break;
+                    case "mix":
+                        options.mix = mix(value);
+                        break;
+                    case "gateway-jar":
+                        options.gatewayJar = Paths.get(value);
+                        break;
+                    case "out":
+                        options.out = Paths.get(value);
+                        break;
+                    default:
+                        if (key.startsWith("gateway.")) {
+                            options.gatewayProperties.add(arg.substring("gateway.".length()));
+                        } else {
+                            options.serverProperties.put(key, value);
+                        }
+                }
+            }
+            if (options.users < 2 || options.items < 1) {
+                throw new IllegalArgumentException("Нужны хотя бы два пользователя и одна вещь у каждого");
+            }
+            return options;
+        }
+
+        /**
+         * Веса через запятую: search:30,create:10. Вызовы, которых нет в списке, не отправляются.
+         */
+        private static Map<Endpoint, Integer> mix(String value) {
+            Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+            for (String part : value.split(",")) {
+                String[] weight = part.split(":");
+                if (weight.length != 2 || Integer.parseInt(weight[1]) <= 0) {
+                    throw new IllegalArgumentException("Ожидается вызов:вес с положительным весом: " + part);
+                }
+                mix.put(Endpoint.of(weight[0]), Integer.parseInt(weight[1]));
+            }
+            return mix;
+        }
+
+        private String[] serverProperties() {
+            return serverProperties.entrySet().stream()
+                    .map(property -> property.getKey() + "=" + property.getValue())
+                    .toArray(String[]::new);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ru.practicum.shareit.benchmark.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Запросы смеси к засеянным данным. Пользователь каждого запроса выбирается случайно. Бронирование
+ * создается на случайную доступную вещь другого владельца на случайные часы через 1-10 лет, чтобы
+ * созданные под нагрузкой бронирования почти не пересекались. Одобряются бронирования в статусе WAITING
+ * из очереди: сначала засеянные, затем созданные под нагрузкой. Пока очередь пуста, вместо одобрения
+ * создается бронирование.
+ */
+final class Traffic {
+
+    private static final String HEADER = "X-Sharer-User-Id";
+
+    private static final int PAGE = 20;
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+
+    private final Endpoint[] endpoints;
+
+    private final int[] weights;
+
+    private final int totalWeight;
+
+    private final long[] userIds;
+
+    private final long[] itemIds;
+
+    private final long[] itemOwners;
+
+    private final Supplier<String> words;
+
+    private final Queue<Approval> waiting = new ConcurrentLinkedQueue<>();
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    /**
+     * itemIds и itemOwners - доступные вещи и их владельцы в одном порядке.
+     */
+    Traffic(String baseUrl, Map<Endpoint, Integer> mix, long[] userIds, long[] itemIds, long[] itemOwners,
+            Supplier<String> words) {
+        this.baseUrl = baseUrl;
+        this.endpoints = mix.keySet().toArray(new Endpoint[0]);
+        this.weights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += mix.get(endpoints[i]);
+            weights[i] = total;
+        }
+        this.totalWeight = total;
+        this.userIds = userIds;
+        this.itemIds = itemIds;
+        this.itemOwners = itemOwners;
+        this.words = words;
+    }
+
+    void waiting(long bookingId, long ownerId) {
+        waiting.add(new Approval(bookingId, ownerId));
+    }
+
+    Call next(Random random) {
+        int pick = random.nextInt(totalWeight);
+        int index = 0;
+        while (weights[index] <= pick) {
+            index++;
+        }
+        long userId = userIds[random.nextInt(userIds.length)];
+        switch (endpoints[index]) {
+            case SEARCH:
+                String text = URLEncoder.encode(words.get(), StandardCharsets.UTF_8);
+                return get(Endpoint.SEARCH, "/items/search?text=" + text + "&from=0&size=" + PAGE, userId);
+            case DASHBOARD:
+                return get(Endpoint.DASHBOARD, "/items?from=0&size=" + PAGE, userId);
+            case BOOKINGS:
+                return get(Endpoint.BOOKINGS, "/bookings?state=ALL&from=0&size=" + PAGE, userId);
+            case OWNER_BOOKINGS:
+                return get(Endpoint.OWNER_BOOKINGS, "/bookings/owner?state=ALL&from=0&size=" + PAGE, userId);
+            case REQUESTS:
+                return get(Endpoint.REQUESTS, "/requests/all?from=0&size=" + PAGE, userId);
+            case APPROVE:
+                Approval approval = waiting.poll();
+                if (approval != null) {
+                    return new Call(Endpoint.APPROVE, request("/bookings/" + approval.bookingId + "?approved=true",
+                            approval.ownerId)
+                            .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                            .build(), 0);
+                }
+                return create(random);
+            default:
+                return create(random);
+        }
+    }
+
+    /**
+     * Созданное бронирование встает в очередь на одобрение владельцем вещи.
+     */
+    void completed(Call call, HttpResponse<String> response) throws IOException {
+        if (call.endpoint == Endpoint.CREATE && response.statusCode() == 200) {
+            waiting(json.readTree(response.body()).get("id").asLong(), call.ownerId);
+        }
+    }
+
+    private Call create(Random random) {
+        int item = random.nextInt(itemIds.length);
+        long bookerId;
+        do {
+            bookerId = userIds[random.nextInt(userIds.length)];
+        } while (bookerId == itemOwners[item]);
+        LocalDateTime start = LocalDateTime.now()
+                .plusDays(365 + random.nextInt(9 * 365))
+                .plusHours(random.nextInt(24))
+                .truncatedTo(ChronoUnit.HOURS);
+        String body = "{\"itemId\":" + itemIds[item] + ",\"start\":\"" + start + "\",\"end\":\""
+                + start.plusHours(2) + "\"}";
+        return new Call(Endpoint.CREATE, request("/bookings", bookerId)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), itemOwners[item]);
+    }
+
+    private Call get(Endpoint endpoint, String path, long userId) {
+        return new Call(endpoint, request(path, userId).GET().build(), 0);
+    }
+
+    private HttpRequest.Builder request(String path, long userId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header(HEADER, String.valueOf(userId));
+    }
+
+    static final class Call {
+
+        final Endpoint endpoint;
+
+        final HttpRequest request;
+
+        /**
+         * Владелец вещи для CREATE: он одобрит созданное бронирование.
+         */
+        final long ownerId;
+
+        private Call(Endpoint endpoint, HttpRequest request, long ownerId) {
+            this.endpoint = endpoint;
+            this.request = request;
+            this.ownerId = ownerId;
+        }
+    }
+
+    private static final class Approval {
+
+        private final long bookingId;
+
+        private final long ownerId;
+
+        private Approval(long bookingId, long ownerId) {
+            this.bookingId = bookingId;
+            this.ownerId = ownerId;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.benchmark.mapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComments;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestMapper;
+import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Мапперы на горячих путях без базы: карточка вещи владельца из ее бронирований и комментариев,
+ * страница бронирований и запрос с вещами. size - число бронирований, комментариев и вещей запроса:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar MapperBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapperBenchmark {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Param({"10", "100"})
+    private int size;
+
+    private User owner;
+
+    private Item item;
+
+    private List<Booking> bookings;
+
+    private List<Comment> comments;
+
+    private ItemRequest request;
+
+    private List<ItemDto> requestItems;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        owner = user(1L, "owner");
+        User booker = user(2L, "booker");
+        item = item(1L, owner);
+        bookings = new ArrayList<>(size);
+        comments = new ArrayList<>(size);
+        requestItems = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Booking booking = new Booking();
+            booking.setId((long) i);
+            booking.setItem(item);
+            booking.setBooker(booker);
+            booking.setStart(NOW.plusDays(i - size / 2));
+            booking.setEnd(NOW.plusDays(i - size / 2).plusHours(1));
+            booking.setStatus(i % 5 == 0 ? BookingStatus.REJECTED : BookingStatus.APPROVED);
+            bookings.add(booking);
+
+            Comment comment = new Comment();
+            comment.setId((long) i);
+            comment.setText("комментарий " + i);
+            comment.setItem(item);
+            comment.setAuthor(booker);
+            comment.setCreated(NOW.minusDays(i));
+            comments.add(comment);
+
+            requestItems.add(ItemMapper.toItemDto(item(i + 2L, owner)));
+        }
+        request = new ItemRequest();
+        request.setId(1L);
+        request.setDescription("нужна дрель");
+        request.setRequestor(booker);
+        request.setCreated(NOW);
+    }
+
+    @Benchmark
+    public ItemDtoWithBookingAndComments itemWithBookingsAndComments() {
+        return ItemMapper.toItemDtoWBC(item, comments, bookings, owner);
+    }
+
+    @Benchmark
+    public void bookingPage(Blackhole blackhole) {
+        for (Booking booking : bookings) {
+            blackhole.consume(BookingMapper.toBookingOutDto(booking));
+        }
+    }
+
+    @Benchmark
+    public ItemRequestDtoWithItems requestWithItems() {
+        return ItemRequestMapper.toItemRequestDtoWithItems(request, requestItems);
+    }
+
+    private static User user(Long id, String name) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(name + "@shareit.ru");
+        return user;
+    }
+
+    private static Item item(Long id, User owner) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName("дрель " + id);
+        item.setDescription("аккумуляторная дрель");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        return item;
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выборка частых событий INFO с маркером SAMPLED: в лог попадает первое и затем каждое rate-е событие,
+ * счет ведется для каждого логгера отдельно. Решение принимается в isInfoEnabled(SAMPLED), поэтому
+ * событие пишется под этой проверкой, и аргументы создаются только для событий из выборки:
+ * <pre>
+ * if (log.isInfoEnabled(SAMPLED)) {
+ *     log.info(SAMPLED, "Получили бронирования userId={} count={}", userId, bookings.size());
+ * }
+ * </pre>
+ * События без маркера, другие уровни и вызовы без проверки не отбрасываются. Подключается
+ * в logback-spring.xml, rate - shareit.logging.sample-rate.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private volatile int rate = 1;
+
+    public void setRate(int rate) {
+        if (rate < 1) {
+            throw new IllegalArgumentException("Доля выборки должна быть не меньше 1: " + rate);
+        }
+        this.rate = rate;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        int sampleRate = rate;
+        if (sampleRate == 1 || marker != SAMPLED || level != Level.INFO || format != null || !isStarted()) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            // INFO выключен уровнем логгера, событие не считается
+            return FilterReply.NEUTRAL;
+        }
+        long count = counters.computeIfAbsent(logger.getName(), name -> new AtomicLong()).getAndIncrement();
+        return count % sampleRate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
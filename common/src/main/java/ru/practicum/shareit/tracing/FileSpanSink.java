@@ -0,0 +1,97 @@
+package ru.practicum.shareit.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Дописывает отрезки в файл по одному JSON на строку: shareit.tracing.sink=file. Запись идет в отдельном
+ * потоке, поток запроса только кладет отрезок в очередь; при полной очереди отрезок отбрасывается.
+ */
+@Slf4j
+public class FileSpanSink implements SpanSink, AutoCloseable {
+
+    private final BlockingQueue<Span> queue;
+
+    private final BufferedWriter writer;
+
+    private final ObjectMapper mapper;
+
+    private final Thread thread;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    public FileSpanSink(Path file, int capacity, ObjectMapper mapper) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.mapper = mapper;
+        this.thread = new Thread(this::writeLoop, "span-writer");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Отрезки трасс пишутся в {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public void export(Span span) {
+        if (!queue.offer(span) && dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("Очередь записи трасс заполнена, отброшено отрезков: {}", dropped.get());
+        }
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        thread.join();
+        writer.close();
+    }
+
+    /**
+     * После close дописывает то, что осталось в очереди.
+     */
+    private void writeLoop() {
+        List<Span> batch = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                Span span = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (span == null) {
+                    continue;
+                }
+                batch.add(span);
+                queue.drainTo(batch);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Запись трасс остановлена", e);
+        }
+    }
+
+    private void write(List<Span> spans) throws IOException {
+        for (Span span : spans) {
+            writer.write(mapper.writeValueAsString(span));
+            writer.newLine();
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Последние capacity отрезков в памяти: shareit.tracing.sink=memory, для тестов и разбора одного запроса.
+ */
+public class InMemorySpanSink implements SpanSink {
+
+    private final ConcurrentLinkedDeque<Span> spans = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int capacity;
+
+    public InMemorySpanSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void export(Span span) {
+        spans.addLast(span);
+        if (size.incrementAndGet() > capacity && spans.pollFirst() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    public List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public List<Span> getTrace(String traceId) {
+        return spans.stream()
+                .filter(span -> span.getTraceId().equals(traceId))
+                .collect(Collectors.toList());
+    }
+
+    public void clear() {
+        spans.clear();
+        size.set(0);
+    }
+}
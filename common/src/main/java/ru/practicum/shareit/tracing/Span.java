@@ -0,0 +1,96 @@
+package ru.practicum.shareit.tracing;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Отрезок времени одной операции внутри трассы. Идентификаторы в формате W3C Trace Context:
+ * traceId - 32 шестнадцатеричных символа, spanId - 16. Время начала в микросекундах от эпохи,
+ * длительность - в микросекундах.
+ */
+@Getter
+public class Span {
+
+    public enum Kind { SERVER, CLIENT, INTERNAL }
+
+    private final String traceId;
+
+    private final String spanId;
+
+    @Nullable
+    private final String parentId;
+
+    private String name;
+
+    private final Kind kind;
+
+    private final long startMicros;
+
+    private long durationMicros;
+
+    private final Map<String, String> tags = new LinkedHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    private final long startNanos = System.nanoTime();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    @Getter(AccessLevel.NONE)
+    private final Tracer tracer;
+
+    Span(Tracer tracer, String traceId, String spanId, @Nullable String parentId, String name, Kind kind) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.kind = kind;
+        this.startMicros = System.currentTimeMillis() * 1000;
+    }
+
+    public Span name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public synchronized Span tag(String key, Object value) {
+        tags.put(key, String.valueOf(value));
+        return this;
+    }
+
+    public synchronized Map<String, String> getTags() {
+        return Map.copyOf(tags);
+    }
+
+    /**
+     * У CompletionException в тег попадает причина.
+     */
+    public Span error(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return tag("error", cause.getClass().getSimpleName());
+    }
+
+    /**
+     * Заголовок traceparent для передачи трассы дальше с этим отрезком в качестве родителя.
+     */
+    public String traceparent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    /**
+     * Повторный вызов ничего не делает: отрезок выгружается один раз.
+     */
+    public void finish() {
+        if (finished.compareAndSet(false, true)) {
+            durationMicros = (System.nanoTime() - startNanos) / 1000;
+            tracer.export(this);
+        }
+    }
+}
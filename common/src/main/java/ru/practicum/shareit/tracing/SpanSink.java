@@ -0,0 +1,10 @@
+package ru.practicum.shareit.tracing;
+
+/**
+ * Получатель завершенных отрезков. Вызывается в потоке, завершившем отрезок, поэтому не должен
+ * блокировать его надолго.
+ */
+public interface SpanSink {
+
+    void export(Span span);
+}
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Создает отрезки и хранит текущий отрезок потока. Текущий отрезок становится родителем новых
+ * отрезков, а его traceId попадает в MDC как traceId и выводится в логах.
+ */
+@Slf4j
+public class Tracer {
+
+    public static final String TRACEPARENT = "traceparent";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final SpanSink sink;
+
+    public Tracer(SpanSink sink) {
+        this.sink = sink;
+    }
+
+    @Nullable
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Делает span текущим до закрытия Scope, после закрытия текущим снова становится прежний отрезок.
+     */
+    public static Scope activate(@Nullable Span span) {
+        Span previous = CURRENT.get();
+        set(span);
+        return () -> set(previous);
+    }
+
+    /**
+     * Дочерний отрезок текущего, без текущего - начало новой трассы.
+     */
+    public Span startSpan(String name, Span.Kind kind) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return new Span(this, randomId(2), randomId(1), null, name, kind);
+        }
+        return new Span(this, parent.getTraceId(), randomId(1), parent.getSpanId(), name, kind);
+    }
+
+    /**
+     * Продолжение трассы из заголовка traceparent другого приложения; без заголовка или с ошибкой
+     * в нем начинается новая трасса.
+     */
+    public Span startSpan(String name, Span.Kind kind, @Nullable String traceparent) {
+        if (traceparent == null || !isValid(traceparent)) {
+            return startSpan(name, kind);
+        }
+        return new Span(this, traceparent.substring(3, 35), randomId(1), traceparent.substring(36, 52), name, kind);
+    }
+
+    void export(Span span) {
+        try {
+            sink.export(span);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось выгрузить отрезок трассы {}", span.getName(), e);
+        }
+    }
+
+    private static void set(@Nullable Span span) {
+        if (span == null) {
+            CURRENT.remove();
+            MDC.remove("traceId");
+        } else {
+            CURRENT.set(span);
+            MDC.put("traceId", span.getTraceId());
+        }
+    }
+
+    /**
+     * 00-{traceId}-{parentId}-{flags}, идентификаторы не из одних нулей.
+     */
+    private static boolean isValid(String traceparent) {
+        if (traceparent.length() != 55 || !traceparent.startsWith("00-")
+                || traceparent.charAt(35) != '-' || traceparent.charAt(52) != '-') {
+            return false;
+        }
+        return isHex(traceparent, 3, 35) && isHex(traceparent, 36, 52) && isHex(traceparent, 53, 55);
+    }
+
+    private static boolean isHex(String value, int from, int to) {
+        boolean zero = true;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+            zero &= c == '0';
+        }
+        return !zero || to - from == 2;
+    }
+
+    private static String randomId(int longs) {
+        StringBuilder id = new StringBuilder(longs * 16);
+        for (int i = 0; i < longs; i++) {
+            String part = Long.toHexString(ThreadLocalRandom.current().nextLong() | 1L);
+            id.append("0".repeat(16 - part.length())).append(part);
+        }
+        return id.toString();
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.tracing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Отрезок SERVER на весь HTTP-запрос, продолжающий трассу из заголовка traceparent клиента. Имя - метод
+ * и шаблон пути, как в http.server.requests. Отрезок асинхронного запроса завершается вместе с ответом.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Span span = tracer.startSpan(request.getMethod(), Span.Kind.SERVER, request.getHeader(Tracer.TRACEPARENT));
+        try (Tracer.Scope ignored = Tracer.activate(span)) {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        finish(span, request, response);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        span.tag("error", "timeout");
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        span.error(event.getThrowable());
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                finish(span, request, response);
+            }
+        }
+    }
+
+    private static void finish(Span span, HttpServletRequest request, HttpServletResponse response) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        span.name(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()))
+                .tag("http.status", response.getStatus())
+                .finish();
+    }
+}
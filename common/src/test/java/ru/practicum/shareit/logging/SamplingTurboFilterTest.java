@@ -0,0 +1,77 @@
+package ru.practicum.shareit.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.practicum.shareit.logging.SamplingTurboFilter.SAMPLED;
+
+class SamplingTurboFilterTest {
+
+    private LoggerContext context;
+
+    private SamplingTurboFilter filter;
+
+    @BeforeEach
+    void beforeEach() {
+        context = new LoggerContext();
+        filter = new SamplingTurboFilter();
+        filter.setRate(3);
+        filter.start();
+        context.addTurboFilter(filter);
+    }
+
+    @Test
+    void shouldPassFirstAndEveryRateSampledEventPerLogger() {
+        Logger bookings = context.getLogger("bookings");
+        Logger items = context.getLogger("items");
+        List<Boolean> passed = new ArrayList<>();
+
+        for (int i = 0; i < 7; i++) {
+            passed.add(bookings.isInfoEnabled(SAMPLED));
+        }
+
+        assertEquals(List.of(true, false, false, true, false, false, true), passed);
+        assertTrue(items.isInfoEnabled(SAMPLED));
+    }
+
+    @Test
+    void shouldNotFilterEventsWithoutMarkerOrOfOtherLevels() {
+        Logger logger = context.getLogger("bookings");
+        logger.isInfoEnabled(SAMPLED);
+
+        assertTrue(logger.isInfoEnabled());
+        assertTrue(logger.isWarnEnabled(SAMPLED));
+        assertFalse(logger.isInfoEnabled(SAMPLED));
+    }
+
+    @Test
+    void shouldNotCountEventsOfLoggerWithInfoDisabled() {
+        Logger logger = context.getLogger("bookings");
+        logger.setLevel(Level.WARN);
+        logger.isInfoEnabled(SAMPLED);
+        logger.setLevel(Level.INFO);
+
+        assertTrue(logger.isInfoEnabled(SAMPLED));
+    }
+
+    @Test
+    void shouldPassAllEventsWithRateOne() {
+        filter.setRate(1);
+        Logger logger = context.getLogger("bookings");
+
+        assertTrue(logger.isInfoEnabled(SAMPLED));
+        assertTrue(logger.isInfoEnabled(SAMPLED));
+    }
+
+    @Test
+    void shouldRejectRateBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> filter.setRate(0));
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.tracing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracerTest {
+
+    private InMemorySpanSink sink;
+
+    private Tracer tracer;
+
+    @BeforeEach
+    void beforeEach() {
+        sink = new InMemorySpanSink(2);
+        tracer = new Tracer(sink);
+    }
+
+    @Test
+    void shouldContinueTraceFromTraceparent() {
+        Span span = tracer.startSpan("GET /items", Span.Kind.SERVER,
+                "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", span.getTraceId());
+        assertEquals("00f067aa0ba902b7", span.getParentId());
+        assertEquals(16, span.getSpanId().length());
+        assertEquals("00-4bf92f3577b34da6a3ce929d0e0e4736-" + span.getSpanId() + "-01", span.traceparent());
+    }
+
+    @Test
+    void shouldStartNewTraceForInvalidTraceparent() {
+        for (String traceparent : new String[]{"", "01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01",
+                "00-00000000000000000000000000000000-00f067aa0ba902b7-01",
+                "00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01",
+                "00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"}) {
+            Span span = tracer.startSpan("GET /items", Span.Kind.SERVER, traceparent);
+
+            assertNull(span.getParentId(), traceparent);
+            assertNotEquals("4bf92f3577b34da6a3ce929d0e0e4736", span.getTraceId());
+            assertTrue(span.getTraceId().matches("[0-9a-f]{32}"), span.getTraceId());
+        }
+    }
+
+    @Test
+    void shouldMakeChildrenOfCurrentSpanAndRestorePreviousOnClose() {
+        Span root = tracer.startSpan("root", Span.Kind.SERVER);
+        try (Tracer.Scope ignored = Tracer.activate(root)) {
+            Span child = tracer.startSpan("child", Span.Kind.INTERNAL);
+            try (Tracer.Scope inner = Tracer.activate(child)) {
+                assertSame(child, Tracer.current());
+                assertEquals(root.getTraceId(), MDC.get("traceId"));
+            }
+            assertSame(root, Tracer.current());
+            assertEquals(root.getSpanId(), child.getParentId());
+            assertEquals(root.getTraceId(), child.getTraceId());
+        }
+        assertNull(Tracer.current());
+        assertNull(MDC.get("traceId"));
+    }
+
+    @Test
+    void shouldExportOnceAndKeepOnlyLastSpans() {
+        Span first = tracer.startSpan("first", Span.Kind.INTERNAL);
+        first.finish();
+        first.finish();
+        tracer.startSpan("second", Span.Kind.INTERNAL).finish();
+        tracer.startSpan("third", Span.Kind.INTERNAL).finish();
+
+        assertEquals(2, sink.getSpans().size());
+        assertEquals("second", sink.getSpans().get(0).getName());
+    }
+}
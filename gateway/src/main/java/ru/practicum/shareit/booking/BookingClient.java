@@ -1,33 +1,45 @@
 package ru.practicum.shareit.booking;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.InFlightRequests;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ShareItServerProperties;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "gateway.upstream", description = "Время вызовов сервера с учетом кэша")
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
+    /**
+     * Бронирования видны в карточке вещи и в списке вещей владельца, сами бронирования не кэшируются.
+     */
+    private static final String ITEMS = "/items";
+
+    private final Duration exportTimeout;
+
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public BookingClient(ShareItServerProperties properties, WebClient.Builder builder, ResponseCache cache,
+                         InFlightRequests inFlight) {
+        super(builder.baseUrl(properties.getUrl() + API_PREFIX).build(), properties.timeoutFor("bookings"), cache,
+                inFlight, API_PREFIX);
+        this.exportTimeout = properties.getExportTimeout();
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getBookings(long userId, BookingState state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -36,20 +48,41 @@ public class BookingClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
+    public CompletableFuture<ResponseEntity<Object>> getBookings(long userId, BookingState state, String after, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "after", after,
+                "size", size
+        );
+        return get("?state={state}&after={after}&size={size}", userId, parameters);
+    }
+
+
+    public CompletableFuture<ResponseEntity<Object>> bookItem(long userId, BookItemRequestDto requestDto) {
+        return invalidating(() -> post("", userId, requestDto), ITEMS + "/" + requestDto.getItemId(), ITEMS);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> bookItems(long userId, List<BookItemRequestDto> requestDtos) {
+        String[] items = Stream.concat(Stream.of(ITEMS), requestDtos.stream()
+                        .map(requestDto -> ITEMS + "/" + requestDto.getItemId()))
+                .distinct()
+                .toArray(String[]::new);
+        return invalidating(() -> post("/batch", userId, requestDtos), items);
+    }
 
-    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportBookings(long userId) {
+        return stream("/export", userId, exportTimeout);
     }
 
-    public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> getBooking(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> updateBookingStateByOwner(long userId, long bookingId, boolean approved) {
-        return patch("/" + bookingId + "?approved=" + approved, userId);
+    public CompletableFuture<ResponseEntity<Object>> updateBookingStateByOwner(long userId, long bookingId, boolean approved) {
+        return invalidating(() -> patch("/" + bookingId + "?approved=" + approved, userId), ITEMS + "/**");
     }
 
-    public ResponseEntity<Object> findAllBookingsForItemsOfUser(long userId, BookingState state, Integer from,
+    public CompletableFuture<ResponseEntity<Object>> findAllBookingsForItemsOfUser(long userId, BookingState state, Integer from,
                                                                 Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
@@ -58,4 +91,14 @@ public class BookingClient extends BaseClient {
         );
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
+
+    public CompletableFuture<ResponseEntity<Object>> findAllBookingsForItemsOfUser(long userId, BookingState state, String after,
+                                                                Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "after", after,
+                "size", size
+        );
+        return get("/owner?state={state}&after={after}&size={size}", userId, parameters);
+    }
 }
@@ -7,13 +7,20 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exception.model.ValidateStateException;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static ru.practicum.shareit.logging.SamplingTurboFilter.SAMPLED;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -21,51 +28,94 @@ import javax.validation.constraints.PositiveOrZero;
 @Slf4j
 @Validated
 public class BookingController {
+	public static final int MAX_BATCH_SIZE = 500;
+
 	private final BookingClient bookingClient;
 
 	@GetMapping
-	public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+	public CompletableFuture<ResponseEntity<Object>> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
 			@RequestParam(name = "state", defaultValue = "all") String stateParam,
 			@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-			@Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+			@Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+			@RequestParam(name = "after", required = false) String after) {
 		BookingState state = BookingState.from(stateParam)
 				.orElseThrow(() -> new ValidateStateException("Unknown state: UNSUPPORTED_STATUS"));
-		log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
+		if (after != null) {
+			if (log.isInfoEnabled(SAMPLED)) {
+				log.info(SAMPLED, "Get bookings state={} userId={} after={} size={}", stateParam, userId, after, size);
+			}
+			return bookingClient.getBookings(userId, state, after, size);
+		}
+		if (log.isInfoEnabled(SAMPLED)) {
+			log.info(SAMPLED, "Get bookings state={} userId={} from={} size={}", stateParam, userId, from, size);
+		}
 		return bookingClient.getBookings(userId, state, from, size);
 	}
 
 	@PostMapping
-	public ResponseEntity<Object> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
+	public CompletableFuture<ResponseEntity<Object>> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
 			@RequestBody @Valid BookItemRequestDto requestDto) {
-		log.info("Creating booking {}, userId={}", requestDto, userId);
+		log.info("Creating booking itemId={} userId={}", requestDto.getItemId(), userId);
 		return bookingClient.bookItem(userId, requestDto);
 	}
 
+	/**
+	 * Каждая запись пакета проверяется так же, как в bookItem: одна некорректная запись отклоняет весь пакет.
+	 * Отказы сервера по отдельным записям возвращаются в ответе по каждой записи.
+	 */
+	@PostMapping("/batch")
+	public CompletableFuture<ResponseEntity<Object>> bookItems(@RequestHeader("X-Sharer-User-Id") long userId,
+			@RequestBody @NotEmpty(message = "Пакет бронирований пуст")
+			@Size(max = MAX_BATCH_SIZE, message = "В пакете не больше " + MAX_BATCH_SIZE + " бронирований")
+			List<@Valid BookItemRequestDto> requestDtos) {
+		log.info("Creating bookings in batch count={} userId={}", requestDtos.size(), userId);
+		return bookingClient.bookItems(userId, requestDtos);
+	}
+
+	@GetMapping("/export")
+	public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportBookings(
+			@RequestHeader("X-Sharer-User-Id") long userId) {
+		log.info("Export bookings userId={}", userId);
+		return bookingClient.exportBookings(userId);
+	}
+
 	@GetMapping("/{bookingId}")
-	public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
+	public CompletableFuture<ResponseEntity<Object>> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
 			@PathVariable Long bookingId) {
-		log.info("Get booking {}, userId={}", bookingId, userId);
+		if (log.isInfoEnabled(SAMPLED)) {
+			log.info(SAMPLED, "Get booking bookingId={} userId={}", bookingId, userId);
+		}
 		return bookingClient.getBooking(userId, bookingId);
 	}
 
 	@PatchMapping("/{bookingId}")
-	public ResponseEntity<Object> updateBookingStatus(@RequestHeader("X-Sharer-User-Id") long userId,
+	public CompletableFuture<ResponseEntity<Object>> updateBookingStatus(@RequestHeader("X-Sharer-User-Id") long userId,
 													  @PathVariable("bookingId") long bookingId,
 													  @RequestParam boolean approved) {
-		log.info("Запрос на обновление статуса бронирования");
+		log.info("Запрос на обновление статуса бронирования bookingId={} userId={} approved={}", bookingId, userId,
+				approved);
 		return bookingClient.updateBookingStateByOwner(userId, bookingId, approved);
 	}
 
 	@GetMapping("/owner")
-	public ResponseEntity<Object> findAllBookingsForItemsOfUser(@RequestHeader("X-Sharer-User-Id") Long userId,
+	public CompletableFuture<ResponseEntity<Object>> findAllBookingsForItemsOfUser(@RequestHeader("X-Sharer-User-Id") Long userId,
 																@RequestParam(name = "state", defaultValue = "ALL")
 																String stateParam, @PositiveOrZero @RequestParam(
 																name = "from", defaultValue = "0") int from, @Positive
 																@RequestParam(name = "size", defaultValue = "10")
-																int size) {
+																int size, @RequestParam(name = "after",
+																required = false) String after) {
 		BookingState state = BookingState.from(stateParam)
 				.orElseThrow(() -> new ValidateStateException("Unknown state: UNSUPPORTED_STATUS"));
-		log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
+		if (after != null) {
+			if (log.isInfoEnabled(SAMPLED)) {
+				log.info(SAMPLED, "Get owner bookings state={} userId={} after={} size={}", stateParam, userId, after, size);
+			}
+			return bookingClient.findAllBookingsForItemsOfUser(userId, state, after, size);
+		}
+		if (log.isInfoEnabled(SAMPLED)) {
+			log.info(SAMPLED, "Get owner bookings state={} userId={} from={} size={}", stateParam, userId, from, size);
+		}
 		return bookingClient.findAllBookingsForItemsOfUser(userId, state, from, size);
 	}
 }
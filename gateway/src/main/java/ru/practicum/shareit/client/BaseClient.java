@@ -1,98 +1,274 @@
 package ru.practicum.shareit.client;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
-import org.springframework.http.HttpEntity;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.practicum.shareit.tracing.Span;
+import ru.practicum.shareit.tracing.Tracer;
 
+/**
+ * Проксирует запросы на сервер без блокировки потока: ответ приходит через CompletableFuture,
+ * поток контроллера освобождается, пока запрос ждет соединение из пула или ответ сервера.
+ * Если ответ не пришел за timeout, future завершается с TimeoutException.
+ * Клиенты с {@link ResponseCache} и {@link InFlightRequests} читают через cachedGet и сбрасывают кэш
+ * при записи через invalidating.
+ */
 public class BaseClient {
-    protected final RestTemplate rest;
+    private static final int UPLOAD_BUFFER_SIZE = 64 * 1024;
 
-    public BaseClient(RestTemplate rest) {
-        this.rest = rest;
+    protected final WebClient web;
+
+    private final Duration timeout;
+
+    @Nullable
+    private final ResponseCache cache;
+
+    @Nullable
+    private final InFlightRequests inFlight;
+
+    private final String prefix;
+
+    public BaseClient(WebClient web, Duration timeout) {
+        this(web, timeout, null, null, "");
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    /**
+     * prefix - путь ресурса на сервере, с которого начинаются ключи кэша этого клиента.
+     */
+    public BaseClient(WebClient web, Duration timeout, @Nullable ResponseCache cache,
+                      @Nullable InFlightRequests inFlight, String prefix) {
+        this.web = web;
+        this.timeout = timeout;
+        this.cache = cache;
+        this.inFlight = inFlight;
+        this.prefix = prefix;
+    }
+
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected CompletableFuture<ResponseEntity<Object>> cachedGet(String path, @Nullable Long userId) {
+        return cachedGet(path, userId, null);
+    }
+
+    /**
+     * Ответ из кэша, иначе ответ на такой же одновременный GET, иначе новый запрос к серверу.
+     */
+    protected CompletableFuture<ResponseEntity<Object>> cachedGet(String path, @Nullable Long userId,
+                                                                 @Nullable Map<String, Object> parameters) {
+        boolean caching = cache != null && cache.isEnabled();
+        boolean coalescing = inFlight != null && inFlight.isEnabled();
+        if (!caching && !coalescing) {
+            return get(path, userId, parameters);
+        }
+        String uri = UriComponentsBuilder.fromUriString(prefix + path)
+                .buildAndExpand(parameters != null ? parameters : Map.of())
+                .encode()
+                .toUriString();
+        Supplier<CompletableFuture<ResponseEntity<Object>>> request = coalescing
+                ? () -> inFlight.join(uri, userId, () -> get(path, userId, parameters))
+                : () -> get(path, userId, parameters);
+        return caching ? cache.get(uri, userId, request) : request.get();
+    }
+
+    /**
+     * GET с If-None-Match клиента: если ответ сервера не изменился, сервер отвечает 304 без тела,
+     * и шлюз передает клиенту 304 с ETag. С кэшем ответов запрос уходит без If-None-Match: в кэш нужен ответ
+     * с телом, а 304 по ETag закэшированного ответа клиенту отдаст Spring MVC. Без кэша одновременные
+     * одинаковые GET разделяют один запрос, только если в них нет If-None-Match.
+     */
+    protected CompletableFuture<ResponseEntity<Object>> getIfNoneMatch(String path, @Nullable Long userId,
+                                                                      @Nullable String ifNoneMatch) {
+        if (cache != null && cache.isEnabled() || ifNoneMatch == null) {
+            return cachedGet(path, userId);
+        }
+        WebClient.RequestHeadersSpec<?> request = web.get()
+                .uri(path)
+                .headers(headers -> {
+                    headers.addAll(defaultHeaders(userId));
+                    if (ifNoneMatch != null) {
+                        headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+                    }
+                });
+        return send(request, timeout);
+    }
+
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    /**
+     * Запись, после которой ответы по paths в кэше устарели. Кэш сбрасывается до отправки записи и еще раз
+     * после ответа сервера, чтобы GET, прочитавший данные до записи, не вернул их в кэш. GET, которые
+     * сервер еще выполняет, после ответа на запись новым запросам не отдаются.
+     */
+    protected CompletableFuture<ResponseEntity<Object>> invalidating(
+            Supplier<CompletableFuture<ResponseEntity<Object>>> write, String... paths) {
+        if (cache == null && inFlight == null) {
+            return write.get();
+        }
+        List<String> affected = List.of(paths);
+        forget(affected);
+        return write.get().whenComplete((response, error) -> forget(affected));
+    }
 
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+    private void forget(List<String> paths) {
+        if (cache != null) {
+            cache.invalidate(paths);
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        if (inFlight != null) {
+            inFlight.forget(paths);
+        }
+    }
+
+    /**
+     * Тело ответа копируется клиенту по мере получения, без накопления в памяти шлюза: следующий
+     * фрагмент запрашивается у сервера только после записи предыдущего. Статус и тип ответа сервера
+     * передаются как есть, headersTimeout ограничивает только ожидание заголовков.
+     */
+    protected CompletableFuture<ResponseEntity<StreamingResponseBody>> stream(String path, long userId,
+                                                                             Duration headersTimeout) {
+        return web.get()
+                .uri(path)
+                .headers(headers -> {
+                    headers.addAll(defaultHeaders(userId));
+                    headers.setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+                })
+                .retrieve()
+                .onStatus(HttpStatus::isError, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .timeout(headersTimeout)
+                .map(response -> ResponseEntity.status(response.getStatusCode())
+                        .headers(contentType(response.getHeaders()))
+                        .<StreamingResponseBody>body(out -> DataBufferUtils.write(response.getBody(), out)
+                                .doOnNext(DataBufferUtils::release)
+                                .then()
+                                .block()))
+                .toFuture();
+    }
+
+    /**
+     * Тело запроса передается серверу по мере чтения, без накопления в памяти шлюза. Входящий поток
+     * читается блокирующе, поэтому чтение идет на boundedElastic, а не на потоках Netty.
+     */
+    protected CompletableFuture<ResponseEntity<Object>> upload(String path, long userId, MediaType contentType,
+                                                               InputStream body, Duration uploadTimeout) {
+        Flux<DataBuffer> buffers = DataBufferUtils.readInputStream(() -> body, DefaultDataBufferFactory.sharedInstance,
+                        UPLOAD_BUFFER_SIZE)
+                .subscribeOn(Schedulers.boundedElastic());
+        WebClient.RequestHeadersSpec<?> request = web.post()
+                .uri(path)
+                .headers(headers -> {
+                    headers.addAll(defaultHeaders(userId));
+                    headers.setContentType(contentType);
+                })
+                .body(BodyInserters.fromDataBuffers(buffers));
+        return send(request, uploadTimeout);
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = web.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> headers.addAll(defaultHeaders(userId)));
+        WebClient.RequestHeadersSpec<?> requestWithBody = body != null ? request.bodyValue(body) : request;
+
+        return send(requestWithBody, timeout);
+    }
+
+    private static CompletableFuture<ResponseEntity<Object>> send(WebClient.RequestHeadersSpec<?> request,
+                                                                  Duration timeout) {
+        return request.exchangeToMono(BaseClient::toEntity)
+                .timeout(timeout)
+                .map(BaseClient::prepareGatewayResponse)
+                .toFuture();
+    }
+
+    private static Mono<ResponseEntity<Object>> toEntity(ClientResponse response) {
+        if (response.statusCode().is2xxSuccessful()) {
+            return response.toEntity(Object.class);
+        }
+        if (response.statusCode() == HttpStatus.NOT_MODIFIED) {
+            return response.releaseBody()
+                    .thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                            .headers(validators(response.headers().asHttpHeaders()))
+                            .build());
+        }
+        return response.toEntity(byte[].class)
+                .map(error -> ResponseEntity.status(error.getStatusCode()).body(error.getBody()));
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -102,11 +278,34 @@ public class BaseClient {
         if (userId != null) {
             headers.set("X-Sharer-User-Id", String.valueOf(userId));
         }
+        Span span = Tracer.current();
+        if (span != null) {
+            headers.set(Tracer.TRACEPARENT, span.traceparent());
+        }
+        return headers;
+    }
+
+    private static HttpHeaders contentType(HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders.getContentType() != null) {
+            headers.setContentType(serverHeaders.getContentType());
+        }
+        return headers;
+    }
+
+    private static HttpHeaders validators(HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders.getETag() != null) {
+            headers.setETag(serverHeaders.getETag());
+        }
+        if (!serverHeaders.getVary().isEmpty()) {
+            headers.setVary(serverHeaders.getVary());
+        }
         return headers;
     }
 
     private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
+        if (response.getStatusCode().is2xxSuccessful() || response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
             return response;
         }
 
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * GET, которые уже отправлены на сервер. Такой же GET, пришедший до ответа, не идет на сервер,
+ * а получает тот же ответ. Число таких запросов - счетчик gateway.requests.coalesced, число запросов
+ * на сервере сейчас - gateway.requests.in.flight.
+ */
+@Component
+public class InFlightRequests {
+
+    private final Map<RequestKey, CompletableFuture<ResponseEntity<Object>>> requests = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+
+    private final Counter coalesced;
+
+    public InFlightRequests(ShareItServerProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isCoalesceGets();
+        this.coalesced = Counter.builder("gateway.requests.coalesced")
+                .description("GET, получившие ответ на такой же одновременный запрос")
+                .register(meterRegistry);
+        Gauge.builder("gateway.requests.in.flight", requests, Map::size)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ответ на такой же запрос, который еще ждет сервер, или новый запрос request. Каждый вызов получает
+     * свой future: отмена одного не отменяет запрос для остальных.
+     */
+    public CompletableFuture<ResponseEntity<Object>> join(String uri, @Nullable Long userId,
+                                                          Supplier<CompletableFuture<ResponseEntity<Object>>> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        RequestKey key = RequestKey.of(uri, userId);
+        CompletableFuture<ResponseEntity<Object>> response = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> sent = requests.putIfAbsent(key, response);
+        if (sent != null) {
+            coalesced.increment();
+            return sent.thenApply(Function.identity());
+        }
+        try {
+            request.get().whenComplete((answer, error) -> {
+                requests.remove(key, response);
+                if (error != null) {
+                    response.completeExceptionally(error);
+                } else {
+                    response.complete(answer);
+                }
+            });
+        } catch (RuntimeException e) {
+            requests.remove(key, response);
+            response.completeExceptionally(e);
+        }
+        return response.thenApply(Function.identity());
+    }
+
+    /**
+     * Запросы по paths, отправленные до записи, больше не разделяются: следующий такой же GET уйдет
+     * на сервер и прочитает уже записанное. См. {@link RequestKey#matches}.
+     */
+    public void forget(List<String> paths) {
+        if (enabled) {
+            requests.keySet().removeIf(key -> paths.stream().anyMatch(key::matches));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.client;
+
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+/**
+ * GET к серверу: путь ресурса, параметры и X-Sharer-User-Id. Ответы сервера зависят от пользователя,
+ * поэтому запросы разных пользователей не совпадают.
+ */
+@Value
+class RequestKey {
+
+    String path;
+
+    String query;
+
+    @Nullable
+    Long userId;
+
+    static RequestKey of(String uri, @Nullable Long userId) {
+        int query = uri.indexOf('?');
+        return query < 0
+                ? new RequestKey(uri, "", userId)
+                : new RequestKey(uri.substring(0, query), uri.substring(query + 1), userId);
+    }
+
+    /**
+     * Шаблон, оканчивающийся на /**, совпадает с путем и всеми путями под ним, остальные - только с самим
+     * путем с любыми параметрами.
+     */
+    boolean matches(String pattern) {
+        if (pattern.endsWith("/**")) {
+            String base = pattern.substring(0, pattern.length() - 3);
+            return path.equals(base) || path.startsWith(base + "/");
+        }
+        return path.equals(pattern);
+    }
+}
@@ -0,0 +1,229 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ответы сервера на GET в памяти шлюза. Ключ - путь с параметрами и X-Sharer-User-Id, вытеснение по размеру
+ * и по ttl. Записи через этот шлюз сбрасывают ответы затронутых путей сразу, изменения мимо него видны через ttl.
+ * Ответы проиндексированы по пути, поэтому сброс находит ответы своих путей, не перебирая весь кэш.
+ * Статистика публикуется в actuator как метрики cache.* с тегом cache=responses: cache.gets, cache.evictions,
+ * cache.hit.ratio и cache.invalidations - ответы, сброшенные записями.
+ */
+@Component
+public class ResponseCache {
+
+    private static final String NAME = "responses";
+
+    private final Cache<RequestKey, ResponseEntity<Object>> cache;
+
+    private final boolean enabled;
+
+    private final Counter invalidated;
+
+    /**
+     * Ответы и выполняемые GET по путям, в порядке путей: шаблон /** - непрерывный диапазон ключей.
+     */
+    private final ConcurrentSkipListMap<String, PathEntries> paths = new ConcurrentSkipListMap<>();
+
+    /**
+     * Растет при каждом сбросе, сброс отмечает им затронутые пути.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ResponseCache(ShareItServerProperties properties, MeterRegistry meterRegistry) {
+        ShareItServerProperties.Cache settings = properties.getCache();
+        this.enabled = settings.getMaxSize() > 0;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(settings.getTtl())
+                .maximumSize(settings.getMaxSize())
+                .removalListener(this::removed)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        Gauge.builder("cache.hit.ratio", cache, responses -> responses.stats().hitRate())
+                .tag("cache", NAME)
+                .register(meterRegistry);
+        this.invalidated = Counter.builder("cache.invalidations")
+                .tag("cache", NAME)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ответ из кэша или запрос request. В кэш попадает только ответ 200. GET, во время которого сбросили
+     * его путь, ответ в кэше не оставляет: ответ мог быть прочитан до записи.
+     */
+    public CompletableFuture<ResponseEntity<Object>> get(String uri, @Nullable Long userId,
+                                                         Supplier<CompletableFuture<ResponseEntity<Object>>> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        RequestKey key = RequestKey.of(uri, userId);
+        ResponseEntity<Object> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        PathEntries entries = acquire(key.getPath());
+        long started = sequence.get();
+        CompletableFuture<ResponseEntity<Object>> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            release(key.getPath(), entries);
+            throw e;
+        }
+        return response.whenComplete((answer, error) -> {
+            boolean cacheable = error == null && answer.getStatusCode() == HttpStatus.OK;
+            if (cacheable) {
+                entries.put(key, answer);
+                cache.put(key, answer);
+            }
+            if (release(key.getPath(), entries) > started && cacheable) {
+                cache.asMap().remove(key, answer);
+            }
+        });
+    }
+
+    /**
+     * Сбрасывает ответы всех пользователей по путям patterns, см. {@link RequestKey#matches}.
+     */
+    public void invalidate(List<String> patterns) {
+        if (!enabled) {
+            return;
+        }
+        long invalidation = sequence.incrementAndGet();
+        for (String pattern : patterns) {
+            for (PathEntries entries : matching(pattern)) {
+                for (RequestKey key : entries.invalidate(invalidation)) {
+                    if (cache.asMap().remove(key) != null) {
+                        invalidated.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    private Collection<PathEntries> matching(String pattern) {
+        if (!pattern.endsWith("/**")) {
+            PathEntries entries = paths.get(pattern);
+            return entries == null ? List.of() : List.of(entries);
+        }
+        String base = pattern.substring(0, pattern.length() - 3);
+        List<PathEntries> matching = new ArrayList<>(paths.subMap(base + "/", base + "0").values());
+        PathEntries entries = paths.get(base);
+        if (entries != null) {
+            matching.add(entries);
+        }
+        return matching;
+    }
+
+    /**
+     * Записи пути с начатым GET. Запись, удаленная из paths, не используется, вместо нее создается новая.
+     */
+    private PathEntries acquire(String path) {
+        while (true) {
+            PathEntries entries = paths.computeIfAbsent(path, ignored -> new PathEntries());
+            if (entries.startLoading()) {
+                return entries;
+            }
+        }
+    }
+
+    /**
+     * Завершает GET пути и возвращает номер последнего сброса пути.
+     */
+    private long release(String path, PathEntries entries) {
+        long invalidatedAt = entries.finishLoading();
+        if (entries.removeIfEmpty()) {
+            paths.remove(path, entries);
+        }
+        return invalidatedAt;
+    }
+
+    private void removed(@Nullable RequestKey key, @Nullable ResponseEntity<Object> response, RemovalCause cause) {
+        if (key == null) {
+            return;
+        }
+        PathEntries entries = paths.get(key.getPath());
+        if (entries != null && entries.remove(key, response) && entries.removeIfEmpty()) {
+            paths.remove(key.getPath(), entries);
+        }
+    }
+
+    /**
+     * Ответы одного пути со всеми параметрами и пользователями и число его GET, ждущих сервер.
+     */
+    private static final class PathEntries {
+
+        private final Map<RequestKey, ResponseEntity<Object>> responses = new HashMap<>();
+
+        private int loading;
+
+        private long invalidatedAt;
+
+        private boolean removed;
+
+        synchronized boolean startLoading() {
+            if (removed) {
+                return false;
+            }
+            loading++;
+            return true;
+        }
+
+        synchronized long finishLoading() {
+            loading--;
+            return invalidatedAt;
+        }
+
+        synchronized void put(RequestKey key, ResponseEntity<Object> response) {
+            responses.put(key, response);
+        }
+
+        /**
+         * Убирает ответ, только если в индексе он же: после вытеснения ключ мог получить новый ответ.
+         */
+        synchronized boolean remove(RequestKey key, @Nullable ResponseEntity<Object> response) {
+            if (responses.get(key) != response) {
+                return false;
+            }
+            responses.remove(key);
+            return true;
+        }
+
+        synchronized List<RequestKey> invalidate(long invalidation) {
+            invalidatedAt = invalidation;
+            return new ArrayList<>(responses.keySet());
+        }
+
+        synchronized boolean removeIfEmpty() {
+            if (!removed && loading == 0 && responses.isEmpty()) {
+                removed = true;
+            }
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.client;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Общий для всех клиентов пул соединений к серверу. Соединения живут между запросами (keep-alive),
+ * очередь ожидания соединения ограничена, поэтому при перегрузке сервера шлюз отказывает сразу,
+ * а не копит запросы.
+ */
+@Configuration
+@EnableConfigurationProperties(ShareItServerProperties.class)
+public class ShareItServerClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider shareItServerConnectionProvider(ShareItServerProperties properties) {
+        ShareItServerProperties.Pool pool = properties.getPool();
+        return ConnectionProvider.builder("shareit-server")
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getMaxPendingAcquires())
+                .pendingAcquireTimeout(pool.getAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public ClientHttpConnector shareItServerConnector(ConnectionProvider shareItServerConnectionProvider,
+                                                      ShareItServerProperties properties) {
+        HttpClient httpClient = HttpClient.create(shareItServerConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .keepAlive(true);
+        return new ReactorClientHttpConnector(httpClient);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Адрес сервера ShareIt, общий пул соединений к нему и таймауты ответа по маршрутам.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server")
+public class ShareItServerProperties {
+
+    private String url;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Таймаут ответа для маршрутов, которых нет в routeTimeouts.
+     */
+    private Duration responseTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Таймауты ответа по первому сегменту пути: bookings, items, requests, users.
+     */
+    private Map<String, Duration> routeTimeouts = new HashMap<>();
+
+    /**
+     * Ожидание заголовков потоковой выгрузки: сервер отвечает, только когда база вернет первую строку.
+     */
+    private Duration exportTimeout = Duration.ofMinutes(1);
+
+    /**
+     * Ответ на импорт вещей: сервер отвечает, только когда сохранит все вещи из запроса.
+     */
+    private Duration importTimeout = Duration.ofMinutes(5);
+
+    /**
+     * Одновременные одинаковые GET уходят на сервер одним запросом, см. InFlightRequests.
+     */
+    private boolean coalesceGets = true;
+
+    private final Pool pool = new Pool();
+
+    private final Cache cache = new Cache();
+
+    public Duration timeoutFor(String route) {
+        return routeTimeouts.getOrDefault(route, responseTimeout);
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        private int maxConnections = 200;
+
+        /**
+         * Сколько запросов может ждать свободное соединение. Остальные сразу получают 503.
+         */
+        private int maxPendingAcquires = 1000;
+
+        private Duration acquireTimeout = Duration.ofSeconds(5);
+
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Кэш ответов на GET в памяти шлюза, см. ResponseCache. max-size 0 выключает кэш.
+     */
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * Сколько живет ответ: столько могут быть не видны изменения, прошедшие мимо этого шлюза.
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        private long maxSize = 10_000;
+    }
+}
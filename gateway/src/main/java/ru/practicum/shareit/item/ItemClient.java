@@ -1,67 +1,88 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.InFlightRequests;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ShareItServerProperties;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
+@Timed(value = "gateway.upstream", description = "Время вызовов сервера с учетом кэша")
 public class ItemClient extends BaseClient {
 
     private static final String API_PREFIX = "/items";
 
+    private static final String SEARCH = API_PREFIX + "/search";
+
+    private static final String REQUESTS = "/requests/**";
+
+    private final Duration importTimeout;
+
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemClient(ShareItServerProperties properties, WebClient.Builder builder, ResponseCache cache,
+                      InFlightRequests inFlight) {
+        super(builder.baseUrl(properties.getUrl() + API_PREFIX).build(), properties.timeoutFor("items"), cache,
+                inFlight, API_PREFIX);
+        this.importTimeout = properties.getImportTimeout();
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> createItem(Long userId, ItemDto itemDto) {
+        if (itemDto.getRequestId() != null) {
+            return invalidating(() -> post("", userId, itemDto), API_PREFIX, SEARCH, REQUESTS);
+        }
+        return invalidating(() -> post("", userId, itemDto), API_PREFIX, SEARCH);
     }
 
-    public ResponseEntity<Object> createItem(Long userId, ItemDto itemDto) {
-        return post("", userId, itemDto);
+    public CompletableFuture<ResponseEntity<Object>> importItems(Long userId, MediaType contentType, InputStream items) {
+        return invalidating(() -> upload("/import", userId, contentType, items, importTimeout),
+                API_PREFIX, SEARCH, REQUESTS);
     }
 
-    public ResponseEntity<Object> updateItem(Long userId, Long itemId, ItemDto itemDto) {
-        return patch("/" + itemId, userId, itemDto);
+    public CompletableFuture<ResponseEntity<Object>> updateItem(Long userId, Long itemId, ItemDto itemDto) {
+        return invalidating(() -> patch("/" + itemId, userId, itemDto),
+                API_PREFIX + "/" + itemId, API_PREFIX, SEARCH, REQUESTS);
     }
 
-    public ResponseEntity<Object> getItemById(Long itemId, Long userId) {
-        return get("/" + itemId, userId);
+    public CompletableFuture<ResponseEntity<Object>> getItemById(Long itemId, Long userId, String ifNoneMatch) {
+        return getIfNoneMatch("/" + itemId, userId, ifNoneMatch);
     }
 
-    public ResponseEntity<Object> getItemsByUserId(Long userId, int from, int size) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsByUserId(Long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("?from={from}&size={size}", userId, parameters);
+        return cachedGet("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getItemsByTextRequest(String text, int from, int size, Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsByTextRequest(String text, int from, int size, Long userId) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return cachedGet("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> deleteItemById(Long userId, Long itemId) {
-        return delete("/" + itemId, userId);
+    public CompletableFuture<ResponseEntity<Object>> deleteItemById(Long userId, Long itemId) {
+        return invalidating(() -> delete("/" + itemId, userId),
+                API_PREFIX + "/" + itemId, API_PREFIX, SEARCH, REQUESTS);
     }
 
-    public ResponseEntity<Object> createComment(CommentDto commentDto, Long userId, Long itemId) {
-        return post("/" + itemId + "/comment", userId, commentDto);
+    public CompletableFuture<ResponseEntity<Object>> createComment(CommentDto commentDto, Long userId, Long itemId) {
+        return invalidating(() -> post("/" + itemId + "/comment", userId, commentDto),
+                API_PREFIX + "/" + itemId, API_PREFIX);
     }
 }
@@ -2,6 +2,8 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -9,9 +11,14 @@ import ru.practicum.shareit.exception.validation.ValidationMarker;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import static ru.practicum.shareit.logging.SamplingTurboFilter.SAMPLED;
 
 @RestController
 @RequestMapping("/items")
@@ -24,55 +31,75 @@ public class ItemController {
 
     @PostMapping
     @Validated(ValidationMarker.OnCreate.class)
-    public ResponseEntity<Object> createItem(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> createItem(@RequestHeader("X-Sharer-User-Id") Long userId,
                                              @Valid @RequestBody ItemDto itemDto) {
-        log.info("Запрос на создание вещи");
+        log.info("Запрос на создание вещи userId={}", userId);
         return client.createItem(userId, itemDto);
     }
 
+    /**
+     * Тело передается серверу потоком, не разбираясь в шлюзе: поля вещей проверяет сервер,
+     * первая некорректная вещь отменяет импорт.
+     */
+    @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public CompletableFuture<ResponseEntity<Object>> importItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                 HttpServletRequest request) throws IOException {
+        log.info("Запрос на импорт вещей userId={}", userId);
+        return client.importItems(userId, MediaType.parseMediaType(request.getContentType()),
+                request.getInputStream());
+    }
+
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> updateItem(@RequestHeader("X-Sharer-User-Id") Long userId,
                               @PathVariable("itemId") Long itemId,
                               @RequestBody ItemDto itemDto) {
-        log.info("Запрос на добавление вещи");
+        log.info("Запрос на обновление вещи itemId={} userId={}", itemId, userId);
         return client.updateItem(userId, itemId, itemDto);
     }
 
     @GetMapping("{itemId}")
-    public ResponseEntity<Object> getItemById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                              @PathVariable Long itemId) {
-        log.info("Запрос на получение вещи по id = {}", itemId);
-        return client.getItemById(itemId, userId);
+    public CompletableFuture<ResponseEntity<Object>> getItemById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                              @PathVariable Long itemId,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              String ifNoneMatch) {
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Запрос на получение вещи itemId={} userId={}", itemId, userId);
+        }
+        return client.getItemById(itemId, userId, ifNoneMatch);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> getItemsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                    @RequestParam(defaultValue = "0") @PositiveOrZero int from,
                                                    @RequestParam(defaultValue = "10") @Positive int size) {
-        log.info("Запрос на получение списка всех вещей пользователя id = {}", userId);
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Запрос на получение вещей владельца userId={} from={} size={}", userId, from, size);
+        }
         return client.getItemsByUserId(userId, from, size);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> getItemsByTextRequest(@RequestParam String text,
+    public CompletableFuture<ResponseEntity<Object>> getItemsByTextRequest(@RequestParam String text,
                                                         @RequestParam(defaultValue = "0") @PositiveOrZero int from,
                                                         @RequestParam(defaultValue = "10") @Positive int size,
                                                         @RequestHeader("X-Sharer-User-Id") Long userId) {
-        log.info("Запрос на поиск вещи по тексту");
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Запрос на поиск вещей text={} from={} size={} userId={}", text, from, size, userId);
+        }
         return client.getItemsByTextRequest(text, from, size, userId);
     }
 
     @DeleteMapping("/{itemId}")
-    public ResponseEntity<Object> deleteItem(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> deleteItem(@RequestHeader("X-Sharer-User-Id") Long userId,
                                              @PathVariable Long itemId) {
-        log.info("Запрос на удаление вещи по id = {}", itemId);
+        log.info("Запрос на удаление вещи itemId={} userId={}", itemId, userId);
         return client.deleteItemById(userId, itemId);
     }
 
     @PostMapping("{itemId}/comment")
-    public ResponseEntity<Object> createComment(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> createComment(@RequestHeader("X-Sharer-User-Id") Long userId,
                                     @Valid @RequestBody CommentDto commentDto, @PathVariable Long itemId) {
-        log.info("Запрос на создание комментария");
+        log.info("Запрос на создание комментария itemId={} userId={}", itemId, userId);
         return client.createComment(commentDto, userId, itemId);
     }
 }
@@ -1,49 +1,49 @@
 package ru.practicum.shareit.request;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.InFlightRequests;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ShareItServerProperties;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
+@Timed(value = "gateway.upstream", description = "Время вызовов сервера с учетом кэша")
 public class RequestClient extends BaseClient {
 
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public RequestClient(ShareItServerProperties properties, WebClient.Builder builder, ResponseCache cache,
+                         InFlightRequests inFlight) {
+        super(builder.baseUrl(properties.getUrl() + API_PREFIX).build(), properties.timeoutFor("requests"), cache,
+                inFlight, API_PREFIX);
     }
 
-    public ResponseEntity<Object> createRequest(Long userId, ItemRequestDto itemRequestDto) {
-        return post("", userId, itemRequestDto);
+    public CompletableFuture<ResponseEntity<Object>> createRequest(Long userId, ItemRequestDto itemRequestDto) {
+        return invalidating(() -> post("", userId, itemRequestDto), API_PREFIX + "/**");
     }
 
-    public ResponseEntity<Object> getRequestsByRequestorId(Long userId) {
-        return get("", userId);
+    public CompletableFuture<ResponseEntity<Object>> getRequestsByRequestorId(Long userId) {
+        return cachedGet("", userId);
     }
 
-    public ResponseEntity<Object> getAllRequestsPageable(Long userId, int from, int size) {
+    public CompletableFuture<ResponseEntity<Object>> getAllRequestsPageable(Long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        return cachedGet("/all?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getRequestById(Long userId, Long requestId) {
-        return get("/" + requestId, userId);
+    public CompletableFuture<ResponseEntity<Object>> getRequestById(Long userId, Long requestId, String ifNoneMatch) {
+        return getIfNoneMatch("/" + requestId, userId, ifNoneMatch);
     }
 }
@@ -2,6 +2,7 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -10,6 +11,9 @@ import ru.practicum.shareit.request.dto.ItemRequestDto;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.concurrent.CompletableFuture;
+
+import static ru.practicum.shareit.logging.SamplingTurboFilter.SAMPLED;
 
 @RestController
 @RequestMapping("/requests")
@@ -21,31 +25,40 @@ public class RequestController {
     private final RequestClient client;
 
     @PostMapping
-    public ResponseEntity<Object> createItemRequest(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> createItemRequest(@RequestHeader("X-Sharer-User-Id") Long userId,
                                             @Valid @RequestBody ItemRequestDto itemRequestDto) {
-        log.info("Запрос на создание запроса на вещь");
+        log.info("Запрос на создание запроса на вещь userId={}", userId);
         return client.createRequest(userId, itemRequestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getRequestByRequestorId(@RequestHeader("X-Sharer-User-Id") Long userId) {
-        log.info("Запрос на получение списка всех запросов на вещи от пользователя d = {}", userId);
+    public CompletableFuture<ResponseEntity<Object>> getRequestByRequestorId(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Запрос на получение запросов на вещи пользователя userId={}", userId);
+        }
         return client.getRequestsByRequestorId(userId);
 
     }
 
     @GetMapping ("/all")
-    public ResponseEntity<Object> getAllRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> getAllRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
                                                  @RequestParam(defaultValue = "10") @Positive int size) {
-        log.info("Запрос на получение списка всех запросов на вещи постранично");
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Запрос на получение запросов на вещи других пользователей userId={} from={} size={}", userId, from,
+                    size);
+        }
         return client.getAllRequestsPageable(userId, from, size);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                  @PathVariable("requestId") Long requestId) {
-        log.info("Запрос на получение запроса на вещи по id = {}", requestId);
-        return client.getRequestById(userId, requestId);
+    public CompletableFuture<ResponseEntity<Object>> getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                  @PathVariable("requestId") Long requestId,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                  String ifNoneMatch) {
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Запрос на получение запроса на вещь requestId={} userId={}", requestId, userId);
+        }
+        return client.getRequestById(userId, requestId, ifNoneMatch);
     }
 }
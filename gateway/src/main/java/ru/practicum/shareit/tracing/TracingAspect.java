@@ -0,0 +1,63 @@
+package ru.practicum.shareit.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Отрезки INTERNAL на вызовы контроллеров и клиентов сервера внутри трассы запроса, с тегом layer.
+ * Методы возвращают CompletableFuture, поэтому отрезок завершается вместе с ним, а не с возвратом из метода.
+ * Отрезок клиента включает ответы из кэша и ожидание такого же одновременного GET.
+ */
+@Aspect
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("@within(org.springframework.stereotype.Controller)"
+            + " || @within(org.springframework.web.bind.annotation.RestController)")
+    public Object controller(ProceedingJoinPoint point) throws Throwable {
+        return trace(point, "controller");
+    }
+
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object client(ProceedingJoinPoint point) throws Throwable {
+        return trace(point, "client");
+    }
+
+    private Object trace(ProceedingJoinPoint point, String layer) throws Throwable {
+        if (Tracer.current() == null) {
+            return point.proceed();
+        }
+        Span span = tracer.startSpan(ClassUtils.getUserClass(point.getTarget()).getSimpleName() + "."
+                + point.getSignature().getName(), Span.Kind.INTERNAL).tag("layer", layer);
+        boolean async = false;
+        try (Tracer.Scope ignored = Tracer.activate(span)) {
+            Object result = point.proceed();
+            if (result instanceof CompletionStage) {
+                async = true;
+                ((CompletionStage<?>) result).whenComplete((value, error) -> {
+                    if (error != null) {
+                        span.error(error);
+                    }
+                    span.finish();
+                });
+            }
+            return result;
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            if (!async) {
+                span.finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Трассировка запросов: shareit.tracing.enabled=true. Отрезки уходят в shareit.tracing.sink - file
+ * (JSON по строке в shareit.tracing.file) или memory (последние shareit.tracing.capacity отрезков).
+ * Клиенты сервера передают трассу в заголовке traceparent.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.tracing.enabled", havingValue = "true")
+public class TracingConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "shareit.tracing.sink", havingValue = "file", matchIfMissing = true)
+    public SpanSink fileSpanSink(@Value("${shareit.tracing.file:traces.jsonl}") Path file,
+                                 @Value("${shareit.tracing.capacity:10000}") int capacity,
+                                 ObjectMapper mapper) throws IOException {
+        return new FileSpanSink(file, capacity, mapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.tracing.sink", havingValue = "memory")
+    public SpanSink inMemorySpanSink(@Value("${shareit.tracing.capacity:10000}") int capacity) {
+        return new InMemorySpanSink(capacity);
+    }
+
+    @Bean
+    public Tracer tracer(SpanSink sink) {
+        return new Tracer(sink);
+    }
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(Tracer tracer) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public TracingAspect tracingAspect(Tracer tracer) {
+        return new TracingAspect(tracer);
+    }
+
+    @Bean
+    public WebClientCustomizer tracingWebClientCustomizer(Tracer tracer) {
+        return builder -> builder.filter(new TracingExchangeFilter(tracer));
+    }
+
+    @Bean
+    public TaskDecorator tracingTaskDecorator() {
+        return task -> {
+            Span span = Tracer.current();
+            return () -> {
+                try (Tracer.Scope ignored = Tracer.activate(span)) {
+                    task.run();
+                }
+            };
+        };
+    }
+}
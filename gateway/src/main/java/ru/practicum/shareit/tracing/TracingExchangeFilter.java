@@ -0,0 +1,44 @@
+package ru.practicum.shareit.tracing;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Отрезок CLIENT на запрос к серверу от отправки до получения заголовков ответа. Родитель берется
+ * из traceparent, который BaseClient ставит по текущему отрезку, а сервер получает traceparent
+ * этого отрезка. Запросы без traceparent, то есть вне трассы, проходят как есть.
+ */
+public class TracingExchangeFilter implements ExchangeFilterFunction {
+
+    private final Tracer tracer;
+
+    public TracingExchangeFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String traceparent = request.headers().getFirst(Tracer.TRACEPARENT);
+        if (traceparent == null) {
+            return next.exchange(request);
+        }
+        Span span = tracer.startSpan(request.method() + " " + request.url().getPath(), Span.Kind.CLIENT,
+                traceparent);
+        ClientRequest traced = ClientRequest.from(request)
+                .headers(headers -> headers.set(Tracer.TRACEPARENT, span.traceparent()))
+                .build();
+        return next.exchange(traced)
+                .doOnNext(response -> span.tag("http.status", response.rawStatusCode()))
+                .doOnError(span::error)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        span.tag("error", "cancelled");
+                    }
+                    span.finish();
+                });
+    }
+}
@@ -1,47 +1,48 @@
 package ru.practicum.shareit.user;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.InFlightRequests;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ShareItServerProperties;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
+@Timed(value = "gateway.upstream", description = "Время вызовов сервера с учетом кэша")
 public class UserClient extends BaseClient {
 
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public UserClient(ShareItServerProperties properties, WebClient.Builder builder, ResponseCache cache,
+                      InFlightRequests inFlight) {
+        super(builder.baseUrl(properties.getUrl() + API_PREFIX).build(), properties.timeoutFor("users"), cache,
+                inFlight, API_PREFIX);
     }
 
-    public ResponseEntity<Object> getAllUsers() {
-        return get("");
+    public CompletableFuture<ResponseEntity<Object>> getAllUsers() {
+        return cachedGet("", null);
     }
 
-    public ResponseEntity<Object> getUserById(Long userId) {
-        return get("/" + userId);
+    public CompletableFuture<ResponseEntity<Object>> getUserById(Long userId, String ifNoneMatch) {
+        return getIfNoneMatch("/" + userId, null, ifNoneMatch);
     }
 
-    public ResponseEntity<Object> createUser(UserDto userDto) {
-        return post("", userDto);
+    public CompletableFuture<ResponseEntity<Object>> createUser(UserDto userDto) {
+        return invalidating(() -> post("", userDto), API_PREFIX);
     }
 
-    public ResponseEntity<Object> updateUser(Long userId, UserDto userDto) {
-        return patch("/" + userId, userDto);
+    public CompletableFuture<ResponseEntity<Object>> updateUser(Long userId, UserDto userDto) {
+        return invalidating(() -> patch("/" + userId, userDto), "/**");
     }
 
-    public ResponseEntity<Object> deleteUserById(Long userId) {
-        return delete("/" + userId);
+    public CompletableFuture<ResponseEntity<Object>> deleteUserById(Long userId) {
+        return invalidating(() -> delete("/" + userId), "/**");
     }
 }
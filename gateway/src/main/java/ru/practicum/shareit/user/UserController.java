@@ -2,6 +2,7 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -9,6 +10,9 @@ import ru.practicum.shareit.exception.validation.ValidationMarker;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
+
+import static ru.practicum.shareit.logging.SamplingTurboFilter.SAMPLED;
 
 @RestController
 @RequestMapping(path = "/users")
@@ -20,33 +24,39 @@ public class UserController {
     private final UserClient client;
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
-        log.info("Запрос на получение списка всех пользователей");
+    public CompletableFuture<ResponseEntity<Object>> getAllUsers() {
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Запрос на получение всех пользователей");
+        }
         return client.getAllUsers();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getUserById(@PathVariable Long id) {
-        log.info("Запрос на получение пользователя по id = {}", id);
-        return client.getUserById(id);
+    public CompletableFuture<ResponseEntity<Object>> getUserById(@PathVariable Long id,
+                                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                         required = false) String ifNoneMatch) {
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Запрос на получение пользователя userId={}", id);
+        }
+        return client.getUserById(id, ifNoneMatch);
     }
 
     @PostMapping
     @Validated({ValidationMarker.OnCreate.class})
-    public ResponseEntity<Object> createUser(@Valid @RequestBody UserDto userDto) {
-        log.info("Запрос на создание пользователя: {}", userDto);
+    public CompletableFuture<ResponseEntity<Object>> createUser(@Valid @RequestBody UserDto userDto) {
+        log.info("Запрос на создание пользователя");
         return client.createUser(userDto);
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<Object> updateUser(@PathVariable Long id, @Valid @RequestBody UserDto userDto) {
-        log.info("Запрос на обновление пользователя id = {}", id);
+    public CompletableFuture<ResponseEntity<Object>> updateUser(@PathVariable Long id, @Valid @RequestBody UserDto userDto) {
+        log.info("Запрос на обновление пользователя userId={}", id);
         return client.updateUser(id, userDto);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Object> deleteUserById(@PathVariable Long id) {
-        log.info("Запрос на удаление пользователя id = {}", id);
+    public CompletableFuture<ResponseEntity<Object>> deleteUserById(@PathVariable Long id) {
+        log.info("Запрос на удаление пользователя userId={}", id);
         return client.deleteUserById(id);
     }
 }
@@ -8,17 +8,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingState;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -105,6 +117,47 @@ class BookingControllerTest {
                 .bookItem(anyLong(), any());
     }
 
+    @SneakyThrows
+    @Test
+    void shouldProxyBatchOfBookings() {
+        when(client.bookItems(anyLong(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok("[{\"index\":0}]")));
+
+        MvcResult result = mvc.perform(post(URL + "/batch")
+                        .header(HEADER, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(bookingDto))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        verify(client, times(1))
+                .bookItems(eq(1L), argThat(bookings -> bookings.size() == 1));
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldGetStatusIsBadRequestWhenBatchHasInvalidEntryOrIsEmpty() {
+        BookItemRequestDto withoutItem = BookItemRequestDto.builder()
+                .start(bookingDto.getStart())
+                .end(bookingDto.getEnd())
+                .build();
+
+        mvc.perform(post(URL + "/batch")
+                        .header(HEADER, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(bookingDto, withoutItem))))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post(URL + "/batch")
+                        .header(HEADER, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+        verify(client, never())
+                .bookItems(anyLong(), any());
+    }
+
     @SneakyThrows
     @Test
     void shouldGetStatusIsBadRequestWhenFindAllUsersBookingByStateIfWrongFrom() {
@@ -152,4 +205,72 @@ class BookingControllerTest {
         verify(client, never())
                 .findAllBookingsForItemsOfUser(anyLong(), any(), anyInt(), anyInt());
     }
-}
\ No newline at end of file
+
+    @SneakyThrows
+    @Test
+    void shouldPassCursorToClientWhenFindAllUsersBookingByStateAfterCursor() {
+        when(client.getBookings(anyLong(), any(), anyString(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok().build()));
+
+        MvcResult result = mvc.perform(get(URL)
+                        .header(HEADER, 1L)
+                        .param("after", "cursor")
+                        .param("size", "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        verify(client, times(1))
+                .getBookings(1L, BookingState.ALL, "cursor", 5);
+        verify(client, never())
+                .getBookings(anyLong(), any(), anyInt(), anyInt());
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldGetStatusIsGatewayTimeoutWhenServerDoesNotAnswerInTime() {
+        when(client.getBooking(anyLong(), anyLong()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+
+        MvcResult result = mvc.perform(get(URL + "/1")
+                        .header(HEADER, 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isGatewayTimeout());
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldGetStatusIsBadRequestWhenFindAllBookingsForItemsOfUserAfterCursorIfWrongSize() {
+        mvc.perform(get(URL + "/owner")
+                        .header(HEADER, 1L)
+                        .param("after", "")
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest());
+        verify(client, never())
+                .findAllBookingsForItemsOfUser(anyLong(), any(), anyString(), anyInt());
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldProxyExportOfBookings() {
+        StreamingResponseBody body = out -> out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+        when(client.exportBookings(1L))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(body)));
+
+        MvcResult result = mvc.perform(get(URL + "/export")
+                        .header(HEADER, 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streamed = mvc.perform(asyncDispatch(result))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(streamed))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+}
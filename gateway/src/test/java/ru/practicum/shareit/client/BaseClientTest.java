@@ -0,0 +1,276 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.practicum.shareit.tracing.InMemorySpanSink;
+import ru.practicum.shareit.tracing.Span;
+import ru.practicum.shareit.tracing.Tracer;
+import ru.practicum.shareit.tracing.TracingExchangeFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaseClientTest {
+
+    private static final String URL = "http://server/bookings";
+
+    private final AtomicReference<ClientRequest> sent = new AtomicReference<>();
+
+    @Test
+    void shouldSendRequestWithUserHeaderAndParameters() throws Exception {
+        BaseClient client = client(Mono.just(json(HttpStatus.OK, "{\"id\":1}")), Duration.ofSeconds(1));
+
+        ResponseEntity<Object> response = client.get("/owner?state={state}", 7L, Map.of("state", "ALL")).get();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("id", 1), response.getBody());
+        assertEquals(HttpMethod.GET, sent.get().method());
+        assertEquals(URL + "/owner?state=ALL", sent.get().url().toString());
+        assertEquals("7", sent.get().headers().getFirst("X-Sharer-User-Id"));
+    }
+
+    @Test
+    void shouldPassErrorStatusAndBodyFromServer() throws Exception {
+        BaseClient client = client(Mono.just(json(HttpStatus.NOT_FOUND, "{\"error\":\"not found\"}")),
+                Duration.ofSeconds(1));
+
+        ResponseEntity<Object> response = client.delete("/1", 7L).get();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("{\"error\":\"not found\"}", new String((byte[]) response.getBody(), StandardCharsets.UTF_8));
+        assertEquals(HttpMethod.DELETE, sent.get().method());
+    }
+
+    @Test
+    void shouldForwardIfNoneMatchAndPassNotModifiedWithValidators() throws Exception {
+        ClientResponse notModified = ClientResponse.create(HttpStatus.NOT_MODIFIED)
+                .headers(headers -> {
+                    headers.setETag("\"3-owner\"");
+                    headers.setVary(List.of("X-Sharer-User-Id"));
+                })
+                .build();
+        BaseClient client = client(Mono.just(notModified), Duration.ofSeconds(1));
+
+        ResponseEntity<Object> response = client.getIfNoneMatch("/1", 7L, "\"3-owner\"").get();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"3-owner\"", response.getHeaders().getETag());
+        assertEquals(List.of("X-Sharer-User-Id"), response.getHeaders().getVary());
+        assertFalse(response.hasBody());
+        assertEquals("\"3-owner\"", sent.get().headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("7", sent.get().headers().getFirst("X-Sharer-User-Id"));
+    }
+
+    @Test
+    void shouldAnswerRepeatedGetFromCacheUntilWrite() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        WebClient web = WebClient.builder()
+                .baseUrl(URL)
+                .exchangeFunction(request -> {
+                    sent.set(request);
+                    calls.incrementAndGet();
+                    return Mono.just(json(HttpStatus.OK, "{\"id\":1}"));
+                })
+                .build();
+        ShareItServerProperties properties = new ShareItServerProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BaseClient client = new BaseClient(web, Duration.ofSeconds(1), new ResponseCache(properties, meterRegistry),
+                new InFlightRequests(properties, meterRegistry), "/bookings");
+
+        client.cachedGet("?state={state}", 7L, Map.of("state", "ALL")).get();
+        ResponseEntity<Object> cached = client.cachedGet("?state={state}", 7L, Map.of("state", "ALL")).get();
+        client.invalidating(() -> client.patch("/1", 7L), "/bookings").get();
+        client.cachedGet("?state={state}", 7L, Map.of("state", "ALL")).get();
+
+        assertEquals(Map.of("id", 1), cached.getBody());
+        assertEquals(3, calls.get());
+        assertEquals(HttpMethod.GET, sent.get().method());
+        assertEquals(URL + "?state=ALL", sent.get().url().toString());
+    }
+
+    @Test
+    void shouldSendOneRequestForConcurrentIdenticalGets() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<ClientResponse> answer = Sinks.one();
+        WebClient web = WebClient.builder()
+                .baseUrl(URL)
+                .exchangeFunction(request -> {
+                    calls.incrementAndGet();
+                    return answer.asMono();
+                })
+                .build();
+        ShareItServerProperties properties = new ShareItServerProperties();
+        properties.getCache().setMaxSize(0);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BaseClient client = new BaseClient(web, Duration.ofSeconds(1), new ResponseCache(properties, meterRegistry),
+                new InFlightRequests(properties, meterRegistry), "/items");
+
+        CompletableFuture<ResponseEntity<Object>> first = client.getIfNoneMatch("/1", 7L, null);
+        CompletableFuture<ResponseEntity<Object>> second = client.getIfNoneMatch("/1", 7L, null);
+        CompletableFuture<ResponseEntity<Object>> other = client.getIfNoneMatch("/1", 8L, null);
+        answer.tryEmitValue(json(HttpStatus.OK, "{\"id\":1}"));
+
+        assertEquals(Map.of("id", 1), first.get().getBody());
+        assertEquals(Map.of("id", 1), second.get().getBody());
+        assertEquals(Map.of("id", 1), other.get().getBody());
+        assertEquals(2, calls.get());
+        assertEquals(1.0, meterRegistry.get("gateway.requests.coalesced").counter().count());
+    }
+
+    @Test
+    void shouldFailWithTimeoutWhenServerDoesNotAnswer() {
+        BaseClient client = client(Mono.never(), Duration.ofMillis(50));
+
+        CompletableFuture<ResponseEntity<Object>> response = client.get("/1", 7L);
+
+        ExecutionException e = assertThrows(ExecutionException.class, response::get);
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void shouldStreamServerResponseWithStatusAndContentType() throws Exception {
+        ClientResponse ndjson = ClientResponse.create(HttpStatus.OK)
+                .headers(headers -> headers.setContentType(MediaType.APPLICATION_NDJSON))
+                .body("{\"id\":1}\n{\"id\":2}\n")
+                .build();
+        BaseClient client = client(Mono.just(ndjson), Duration.ofSeconds(1));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ResponseEntity<StreamingResponseBody> response = client.stream("/export", 7L, Duration.ofSeconds(1)).get();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals("{\"id\":1}\n{\"id\":2}\n", out.toString(StandardCharsets.UTF_8));
+        assertEquals(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON),
+                sent.get().headers().getAccept());
+    }
+
+    @Test
+    void shouldStreamErrorFromServerAsIs() throws Exception {
+        BaseClient client = client(Mono.just(json(HttpStatus.NOT_FOUND, "{\"error\":\"not found\"}")),
+                Duration.ofSeconds(1));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ResponseEntity<StreamingResponseBody> response = client.stream("/export", 7L, Duration.ofSeconds(1)).get();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("{\"error\":\"not found\"}", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldUploadRequestBodyWithItsContentType() throws Exception {
+        BaseClient client = client(Mono.just(json(HttpStatus.OK, "{\"imported\":2}")), Duration.ofSeconds(1));
+        String items = "{\"name\":\"saw\"}\n{\"name\":\"drill\"}\n";
+
+        ResponseEntity<Object> response = client.upload("/import", 7L, MediaType.APPLICATION_NDJSON,
+                new ByteArrayInputStream(items.getBytes(StandardCharsets.UTF_8)), Duration.ofSeconds(1)).get();
+
+        assertEquals(Map.of("imported", 2), response.getBody());
+        assertEquals(HttpMethod.POST, sent.get().method());
+        assertEquals(MediaType.APPLICATION_NDJSON, sent.get().headers().getContentType());
+        assertEquals(items, sentBody());
+    }
+
+    @Test
+    void shouldSendTraceparentOfClientSpanWithinTrace() throws Exception {
+        InMemorySpanSink sink = new InMemorySpanSink(10);
+        Tracer tracer = new Tracer(sink);
+        WebClient web = WebClient.builder()
+                .baseUrl(URL)
+                .filter(new TracingExchangeFilter(tracer))
+                .exchangeFunction(request -> {
+                    sent.set(request);
+                    return Mono.just(json(HttpStatus.OK, "{\"id\":1}"));
+                })
+                .build();
+        BaseClient client = new BaseClient(web, Duration.ofSeconds(1));
+        Span root = tracer.startSpan("GET /bookings/{bookingId}", Span.Kind.SERVER);
+
+        try (Tracer.Scope ignored = Tracer.activate(root)) {
+            client.get("/1", 7L).get();
+        }
+
+        Span span = sink.getSpans().get(0);
+        assertEquals(Span.Kind.CLIENT, span.getKind());
+        assertEquals("GET /bookings/1", span.getName());
+        assertEquals(root.getTraceId(), span.getTraceId());
+        assertEquals(root.getSpanId(), span.getParentId());
+        assertEquals("200", span.getTags().get("http.status"));
+        assertEquals(span.traceparent(), sent.get().headers().getFirst(Tracer.TRACEPARENT));
+
+        client.get("/1", 7L).get();
+
+        assertNull(sent.get().headers().getFirst(Tracer.TRACEPARENT));
+        assertEquals(1, sink.getSpans().size());
+    }
+
+    private String sentBody() {
+        MockClientHttpRequest request = new MockClientHttpRequest(sent.get().method(), sent.get().url());
+        sent.get().body().insert(request, new BodyInserter.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return ExchangeStrategies.withDefaults().messageWriters();
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Map.of();
+            }
+        }).block();
+        return request.getBodyAsString().block();
+    }
+
+    private BaseClient client(Mono<ClientResponse> response, Duration timeout) {
+        WebClient web = WebClient.builder()
+                .baseUrl(URL)
+                .exchangeFunction(request -> {
+                    sent.set(request);
+                    return response;
+                })
+                .build();
+        return new BaseClient(web, timeout);
+    }
+
+    private static ClientResponse json(HttpStatus status, String body) {
+        return ClientResponse.create(status)
+                .headers(headers -> headers.setContentType(MediaType.APPLICATION_JSON))
+                .body(body)
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightRequestsTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final CompletableFuture<ResponseEntity<Object>> answer = new CompletableFuture<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private InFlightRequests requests;
+
+    @BeforeEach
+    void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        requests = new InFlightRequests(new ShareItServerProperties(), meterRegistry);
+    }
+
+    @Test
+    void shouldShareOneRequestBetweenConcurrentIdenticalGets() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> first = requests.join("/items/search?text=saw", 7L, server());
+        CompletableFuture<ResponseEntity<Object>> second = requests.join("/items/search?text=saw", 7L, server());
+        assertEquals(1.0, meterRegistry.get("gateway.requests.in.flight").gauge().value());
+
+        answer.complete(ResponseEntity.ok(Map.of("id", 1)));
+
+        assertEquals(Map.of("id", 1), first.get().getBody());
+        assertEquals(Map.of("id", 1), second.get().getBody());
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("gateway.requests.coalesced").counter().count());
+        assertEquals(0.0, meterRegistry.get("gateway.requests.in.flight").gauge().value());
+    }
+
+    @Test
+    void shouldNotShareRequestsOfDifferentUsersOrQueries() {
+        requests.join("/items/search?text=saw", 7L, server());
+        requests.join("/items/search?text=saw", 8L, server());
+        requests.join("/items/search?text=drill", 7L, server());
+
+        assertEquals(3, calls.get());
+        assertEquals(0.0, meterRegistry.get("gateway.requests.coalesced").counter().count());
+    }
+
+    @Test
+    void shouldSendNewRequestAfterAnswer() {
+        requests.join("/items/1", 7L, server());
+        answer.complete(ResponseEntity.ok(Map.of("id", 1)));
+
+        requests.join("/items/1", 7L, server());
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldPassErrorToEveryCaller() {
+        CompletableFuture<ResponseEntity<Object>> first = requests.join("/items/1", 7L, server());
+        CompletableFuture<ResponseEntity<Object>> second = requests.join("/items/1", 7L, server());
+
+        answer.completeExceptionally(new TimeoutException());
+
+        assertInstanceOf(TimeoutException.class, assertThrows(ExecutionException.class, first::get).getCause());
+        assertInstanceOf(TimeoutException.class, assertThrows(ExecutionException.class, second::get).getCause());
+    }
+
+    @Test
+    void shouldNotCancelSharedRequestWhenOneCallerCancels() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> first = requests.join("/items/1", 7L, server());
+        CompletableFuture<ResponseEntity<Object>> second = requests.join("/items/1", 7L, server());
+
+        first.cancel(true);
+        answer.complete(ResponseEntity.ok(Map.of("id", 1)));
+
+        assertEquals(Map.of("id", 1), second.get().getBody());
+    }
+
+    @Test
+    void shouldSendNewRequestAfterWriteToSamePath() {
+        requests.join("/items/1", 7L, server());
+
+        requests.forget(List.of("/items/1"));
+        requests.join("/items/1", 7L, server());
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldSendEveryRequestWhenDisabled() {
+        ShareItServerProperties properties = new ShareItServerProperties();
+        properties.setCoalesceGets(false);
+        requests = new InFlightRequests(properties, new SimpleMeterRegistry());
+
+        requests.join("/items/1", 7L, server());
+        requests.join("/items/1", 7L, server());
+
+        assertEquals(2, calls.get());
+    }
+
+    private Supplier<CompletableFuture<ResponseEntity<Object>>> server() {
+        return () -> {
+            calls.incrementAndGet();
+            return answer;
+        };
+    }
+}
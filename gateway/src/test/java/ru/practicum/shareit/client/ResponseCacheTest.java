@@ -0,0 +1,163 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ResponseCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = cache(100);
+    }
+
+    @Test
+    void shouldAnswerSecondGetFromCache() throws Exception {
+        assertEquals(Map.of("id", 1), cache.get("/items/1", 7L, server(HttpStatus.OK)).get().getBody());
+        assertEquals(Map.of("id", 1), cache.get("/items/1", 7L, server(HttpStatus.OK)).get().getBody());
+
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "responses").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(0.5, meterRegistry.get("cache.hit.ratio").tag("cache", "responses").gauge().value());
+    }
+
+    @Test
+    void shouldKeepResponsesOfDifferentUsersAndQueriesApart() throws Exception {
+        cache.get("/items?from=0&size=10", 7L, server(HttpStatus.OK)).get();
+        cache.get("/items?from=0&size=10", 8L, server(HttpStatus.OK)).get();
+        cache.get("/items?from=10&size=10", 7L, server(HttpStatus.OK)).get();
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void shouldInvalidateExactPathWithAnyQuery() throws Exception {
+        cache.get("/items?from=0&size=10", 7L, server(HttpStatus.OK)).get();
+        cache.get("/items/1", 7L, server(HttpStatus.OK)).get();
+
+        cache.invalidate(List.of("/items"));
+        cache.get("/items?from=0&size=10", 7L, server(HttpStatus.OK)).get();
+        cache.get("/items/1", 7L, server(HttpStatus.OK)).get();
+
+        assertEquals(3, calls.get());
+        assertEquals(1.0, meterRegistry.get("cache.invalidations").tag("cache", "responses").counter().count());
+    }
+
+    @Test
+    void shouldInvalidateAllPathsUnderPattern() throws Exception {
+        cache.get("/requests", 7L, server(HttpStatus.OK)).get();
+        cache.get("/requests/1", 7L, server(HttpStatus.OK)).get();
+        cache.get("/users/1", 7L, server(HttpStatus.OK)).get();
+
+        cache.invalidate(List.of("/requests/**"));
+        cache.get("/requests", 7L, server(HttpStatus.OK)).get();
+        cache.get("/requests/1", 7L, server(HttpStatus.OK)).get();
+        cache.get("/users/1", 7L, server(HttpStatus.OK)).get();
+
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void shouldNotCacheResponseReadDuringInvalidation() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> answer = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> response = cache.get("/items/1", 7L, () -> answer);
+
+        cache.invalidate(List.of("/items/1"));
+        answer.complete(ResponseEntity.ok(Map.of("id", 1)));
+        response.get();
+        cache.get("/items/1", 7L, server(HttpStatus.OK)).get();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldKeepResponsesOfOtherPaths() throws Exception {
+        cache.get("/items/1", 7L, server(HttpStatus.OK)).get();
+        cache.get("/items/2", 7L, server(HttpStatus.OK)).get();
+        cache.get("/items/2", 8L, server(HttpStatus.OK)).get();
+
+        cache.invalidate(List.of("/items/1"));
+        cache.get("/items/1", 7L, server(HttpStatus.OK)).get();
+        cache.get("/items/2", 7L, server(HttpStatus.OK)).get();
+        cache.get("/items/2", 8L, server(HttpStatus.OK)).get();
+
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void shouldNotCacheResponseReadDuringPatternInvalidation() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> answer = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> response = cache.get("/requests/1", 7L, () -> answer);
+
+        cache.invalidate(List.of("/requests/**"));
+        answer.complete(ResponseEntity.ok(Map.of("id", 1)));
+        response.get();
+        cache.get("/requests/1", 7L, server(HttpStatus.OK)).get();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldCacheResponseReadDuringInvalidationOfOtherPath() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> answer = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> response = cache.get("/items/1", 7L, () -> answer);
+
+        cache.invalidate(List.of("/items/2", "/users/**"));
+        answer.complete(ResponseEntity.ok(Map.of("id", 1)));
+        response.get();
+        cache.get("/items/1", 7L, server(HttpStatus.OK)).get();
+
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void shouldNotCacheErrors() throws Exception {
+        cache.get("/items/1", 7L, server(HttpStatus.NOT_FOUND)).get();
+        cache.get("/items/1", 7L, server(HttpStatus.NOT_FOUND)).get();
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldSendEveryRequestWhenDisabled() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = cache(0);
+
+        cache.get("/items/1", 7L, server(HttpStatus.OK)).get();
+        cache.get("/items/1", 7L, server(HttpStatus.OK)).get();
+
+        assertFalse(cache.isEnabled());
+        assertEquals(2, calls.get());
+    }
+
+    private Supplier<CompletableFuture<ResponseEntity<Object>>> server(HttpStatus status) {
+        return () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.status(status).body(Map.of("id", 1)));
+        };
+    }
+
+    private ResponseCache cache(long maxSize) {
+        ShareItServerProperties properties = new ShareItServerProperties();
+        properties.getCache().setMaxSize(maxSize);
+        return new ResponseCache(properties, meterRegistry);
+    }
+}
@@ -7,16 +7,29 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
@@ -47,6 +60,49 @@ class ItemControllerTest {
                 .build();
     }
 
+    @SneakyThrows
+    @Test
+    void shouldPassImportBodyToServerAsIs() {
+        String items = mapper.writeValueAsString(itemDto) + "\n";
+        AtomicReference<String> passed = new AtomicReference<>();
+        when(client.importItems(eq(1L), eq(MediaType.APPLICATION_NDJSON), any()))
+                .thenAnswer(invocation -> {
+                    InputStream body = invocation.getArgument(2);
+                    passed.set(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    return CompletableFuture.completedFuture(ResponseEntity.ok("{\"imported\":1}"));
+                });
+
+        MvcResult result = mvc.perform(post(URL + "/import")
+                        .header(HEADER, 1L)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(items))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        assertEquals(items, passed.get());
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldPassIfNoneMatchToServerAndNotModifiedToClient() {
+        when(client.getItemById(1L, 2L, "\"3\""))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag("3")
+                        .build()));
+
+        MvcResult result = mvc.perform(get(URL + "/1")
+                        .header(HEADER, 2L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
     @SneakyThrows
     @Test
     void shouldGetStatusIsBadRequestWhenCreateItemIfNameIsBlank() {
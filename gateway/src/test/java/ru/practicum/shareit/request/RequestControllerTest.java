@@ -68,6 +68,6 @@ class RequestControllerTest {
                 .andExpect(status().isBadRequest());
 
         verify(client, never())
-                .getRequestById(anyLong(), anyLong());
+                .getRequestById(anyLong(), anyLong(), any());
     }
 }
\ No newline at end of file
@@ -1,12 +1,23 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.service.BookingService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -17,14 +28,24 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookingController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
 
+    private final ObjectMapper mapper;
+
     @PostMapping
     public BookingOutDto create(@RequestHeader("X-Sharer-User-Id") Long userId,
                                 @RequestBody BookingDto bookingDto) {
         return bookingService.create(userId, bookingDto);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBatch(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                   @RequestBody List<BookingDto> bookingDtos) {
+        return bookingService.createBatch(userId, bookingDtos);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingOutDto update(@RequestHeader("X-Sharer-User-Id") long userId,
                              @PathVariable("bookingId") long bookingId,
@@ -39,20 +60,68 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingOutDto> findAllUsersBookingByState(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                          @RequestParam(defaultValue = "ALL") String state,
-                                                          @RequestParam(defaultValue = "0") int from,
-                                                          @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<List<BookingOutDto>> findAllUsersBookingByState(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after) {
         BookingState bookingState = BookingState.from(state);
-        return bookingService.findAllUsersBookingByState(userId, bookingState, from, size);
+        if (after == null) {
+            return ResponseEntity.ok(bookingService.findAllUsersBookingByState(userId, bookingState, from, size));
+        }
+        return withNextCursor(bookingService.findAllUsersBookingByState(userId, bookingState,
+                BookingCursor.decode(after), size), size);
     }
 
     @GetMapping("/owner")
-    public List<BookingOutDto> findAllBookingsForItemsOfUser(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                       @RequestParam String state,
-                                                       @RequestParam int from,
-                                                       @RequestParam int size) {
+    public ResponseEntity<List<BookingOutDto>> findAllBookingsForItemsOfUser(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam String state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam int size,
+            @RequestParam(required = false) String after) {
         BookingState bookingState = BookingState.from(state);
-        return bookingService.findAllBookingsForItemsOfUser(userId, bookingState, from, size);
+        if (after == null) {
+            return ResponseEntity.ok(bookingService.findAllBookingsForItemsOfUser(userId, bookingState, from, size));
+        }
+        return withNextCursor(bookingService.findAllBookingsForItemsOfUser(userId, bookingState,
+                BookingCursor.decode(after), size), size);
+    }
+
+    /**
+     * Вся история бронирований пользователя в формате NDJSON, по строке на бронирование.
+     * Бронирования пишутся в ответ по мере чтения из базы, память не зависит от длины истории.
+     * Пользователь проверяется здесь, до ответа 200, поэтому неизвестный пользователь получает обычную ошибку.
+     */
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllUsersBookings(
+            @RequestHeader("X-Sharer-User-Id") Long userId) {
+        bookingService.checkExportUser(userId);
+        ObjectWriter writer = mapper.writerFor(BookingOutDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> bookingService.exportAllUsersBookings(userId, booking -> {
+            try {
+                writer.writeValue(out, booking);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Курсор следующей страницы передается в заголовке, только если страница заполнена целиком.
+     */
+    private static ResponseEntity<List<BookingOutDto>> withNextCursor(List<BookingOutDto> bookings, int size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, BookingCursor.after(bookings.get(bookings.size() - 1)).encode());
+        }
+        return response.body(bookings);
     }
 }
\ No newline at end of file
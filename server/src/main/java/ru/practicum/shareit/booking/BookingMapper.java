@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -23,6 +24,17 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingDto toBookingDto(ItemBookingView view) {
+        return BookingDto.builder()
+                .id(view.getId())
+                .start(view.getStart())
+                .end(view.getEnd())
+                .itemId(view.getItemId())
+                .bookerId(view.getBookerId())
+                .status(view.getStatus())
+                .build();
+    }
+
     public static Booking toBooking(BookingDto bookingDto, Item item, User user) {
         Booking booking = new Booking();
         booking.setId(bookingDto.getId());
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.availability;
+
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проверка пересечения бронирований вещи с уже одобренными бронированиями.
+ * Реализация выбирается свойством shareit.booking.availability: index (по умолчанию) или jpa.
+ */
+public interface BookingAvailabilityIndex {
+
+    boolean hasApprovedOverlap(Long itemId, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Проверяет, что бронирование не пересекается с одобренными, и резервирует его интервал.
+     * Возвращает false, если на эти даты вещь уже занята.
+     */
+    boolean tryApprove(Booking booking);
+
+    void update(Booking booking);
+
+    /**
+     * Вызывается до удаления пользователя: после коммита забывает бронирования, удаленные вместе с ним, -
+     * его собственные и бронирования его вещей.
+     */
+    void onUserDeleting(Long userId);
+}
@@ -0,0 +1,177 @@
+package ru.practicum.shareit.booking.availability;
+
+/**
+ * AVL-дерево полуоткрытых интервалов [start, end) бронирований одной вещи, упорядоченное по (start, id).
+ * В каждом узле хранится максимальный конец одобренных интервалов поддерева, поэтому поиск
+ * пересечения с одобренным бронированием проходит одну ветку и занимает O(log n).
+ * Не потокобезопасно, синхронизация на стороне вызывающего.
+ */
+final class IntervalTree {
+
+    private Node root;
+
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void insert(long start, long end, long id, boolean approved) {
+        root = insert(root, new Node(start, end, id, approved));
+    }
+
+    void remove(long start, long id) {
+        root = remove(root, start, id);
+    }
+
+    boolean hasApprovedOverlap(long start, long end, long excludeId) {
+        return findApprovedOverlap(root, start, end, excludeId) != null;
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            size++;
+            return added;
+        }
+        int cmp = compare(added.start, added.id, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, added);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, added);
+        } else {
+            node.end = added.end;
+            node.approved = added.approved;
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private Node findApprovedOverlap(Node node, long start, long end, long excludeId) {
+        if (node == null || node.maxApprovedEnd <= start) {
+            return null;
+        }
+        Node found = findApprovedOverlap(node.left, start, end, excludeId);
+        if (found != null) {
+            return found;
+        }
+        if (node.start >= end) {
+            return null;
+        }
+        if (node.approved && node.end > start && node.id != excludeId) {
+            return node;
+        }
+        return findApprovedOverlap(node.right, start, end, excludeId);
+    }
+
+    private static int compare(long start, long id, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long max = node.approved ? node.end : Long.MIN_VALUE;
+        if (node.left != null) {
+            max = Math.max(max, node.left.maxApprovedEnd);
+        }
+        if (node.right != null) {
+            max = Math.max(max, node.right.maxApprovedEnd);
+        }
+        node.maxApprovedEnd = max;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+
+        private final long start;
+        private final long id;
+        private long end;
+        private boolean approved;
+        private long maxApprovedEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long start, long end, long id, boolean approved) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.approved = approved;
+            this.maxApprovedEnd = approved ? end : Long.MIN_VALUE;
+        }
+    }
+}
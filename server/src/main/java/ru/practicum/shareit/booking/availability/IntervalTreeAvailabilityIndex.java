@@ -0,0 +1,191 @@
+package ru.practicum.shareit.booking.availability;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.practicum.shareit.config.TransactionCallbacks.afterCommit;
+
+/**
+ * Индекс занятости вещей в памяти сервера: для каждой вещи дерево интервалов всех неотклоненных бронирований.
+ * Строится из таблицы bookings при старте, изменения применяются после коммита транзакции.
+ * Одобрение резервирует интервал сразу, под блокировкой дерева вещи, и откатывается вместе с транзакцией.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "shareit.booking", name = "availability", havingValue = "index",
+        matchIfMissing = true)
+public class IntervalTreeAvailabilityIndex implements BookingAvailabilityIndex, InitializingBean {
+
+    private static final int REBUILD_BATCH_SIZE = 10_000;
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<Long, IntervalTree> trees = new ConcurrentHashMap<>();
+
+    private final Map<Long, Interval> intervals = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        trees.clear();
+        intervals.clear();
+        Long lastId = 0L;
+        List<Booking> batch;
+        do {
+            batch = bookingRepository.findByStatusNotAndIdGreaterThanOrderByIdAsc(BookingStatus.REJECTED, lastId,
+                    PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (Booking booking : batch) {
+                put(Interval.of(booking));
+                lastId = booking.getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        log.info("Построен индекс занятости вещей, вещей: {}, бронирований: {}", trees.size(), intervals.size());
+    }
+
+    @Override
+    public boolean hasApprovedOverlap(Long itemId, LocalDateTime start, LocalDateTime end) {
+        IntervalTree tree = trees.get(itemId);
+        if (tree == null) {
+            return false;
+        }
+        synchronized (tree) {
+            return tree.hasApprovedOverlap(toMicros(start), toMicros(end), 0L);
+        }
+    }
+
+    @Override
+    public boolean tryApprove(Booking booking) {
+        Interval approved = Interval.of(booking).withApproved(true);
+        IntervalTree tree = trees.computeIfAbsent(approved.itemId, id -> new IntervalTree());
+        Interval previous;
+        synchronized (tree) {
+            if (tree.hasApprovedOverlap(approved.start, approved.end, approved.id)) {
+                return false;
+            }
+            previous = intervals.get(approved.id);
+            put(approved);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        restore(approved, previous);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    @Override
+    public void update(Booking booking) {
+        Interval interval = Interval.of(booking);
+        boolean rejected = booking.getStatus() == BookingStatus.REJECTED;
+        afterCommit(() -> {
+            if (rejected) {
+                restore(interval, null);
+            } else {
+                put(interval);
+            }
+        });
+    }
+
+    @Override
+    public void onUserDeleting(Long userId) {
+        List<Long> bookingIds = bookingRepository.findIdsByBookerIdOrItemOwnerId(userId);
+        afterCommit(() -> bookingIds.forEach(this::remove));
+    }
+
+    public int size() {
+        return intervals.size();
+    }
+
+    private void put(Interval interval) {
+        IntervalTree tree = trees.computeIfAbsent(interval.itemId, id -> new IntervalTree());
+        synchronized (tree) {
+            Interval previous = intervals.put(interval.id, interval);
+            if (previous != null) {
+                tree.remove(previous.start, previous.id);
+            }
+            tree.insert(interval.start, interval.end, interval.id, interval.approved);
+        }
+    }
+
+    private void remove(Long bookingId) {
+        Interval interval = intervals.get(bookingId);
+        if (interval != null) {
+            restore(interval, null);
+        }
+    }
+
+    private void restore(Interval current, Interval previous) {
+        if (previous != null) {
+            put(previous);
+            return;
+        }
+        IntervalTree tree = trees.get(current.itemId);
+        if (tree == null) {
+            return;
+        }
+        synchronized (tree) {
+            Interval removed = intervals.remove(current.id);
+            if (removed != null) {
+                tree.remove(removed.start, removed.id);
+            }
+        }
+    }
+
+    /**
+     * База хранит время с точностью до микросекунд и округляет, здесь округляем так же,
+     * иначе только что сохраненное бронирование не совпадет с прочитанным при старте.
+     */
+    static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + (dateTime.getNano() + 500) / 1_000;
+    }
+
+    private static final class Interval {
+
+        private final long id;
+        private final long itemId;
+        private final long start;
+        private final long end;
+        private final boolean approved;
+
+        private Interval(long id, long itemId, long start, long end, boolean approved) {
+            this.id = id;
+            this.itemId = itemId;
+            this.start = start;
+            this.end = end;
+            this.approved = approved;
+        }
+
+        private static Interval of(Booking booking) {
+            return new Interval(booking.getId(), booking.getItem().getId(), toMicros(booking.getStart()),
+                    toMicros(booking.getEnd()), booking.getStatus() == BookingStatus.APPROVED);
+        }
+
+        private Interval withApproved(boolean approved) {
+            return new Interval(id, itemId, start, end, approved);
+        }
+    }
+}
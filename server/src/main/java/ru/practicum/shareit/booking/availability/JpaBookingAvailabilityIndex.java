@@ -0,0 +1,48 @@
+package ru.practicum.shareit.booking.availability;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Резервный режим: запрос к таблице bookings на каждую проверку.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "shareit.booking", name = "availability", havingValue = "jpa")
+public class JpaBookingAvailabilityIndex implements BookingAvailabilityIndex {
+
+    private final BookingRepository bookingRepository;
+
+    @Override
+    public boolean hasApprovedOverlap(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return bookingRepository.existsOverlapping(itemId, BookingStatus.APPROVED, round(start), round(end), 0L);
+    }
+
+    @Override
+    public boolean tryApprove(Booking booking) {
+        return !bookingRepository.existsOverlapping(booking.getItem().getId(), BookingStatus.APPROVED,
+                round(booking.getStart()), round(booking.getEnd()), booking.getId());
+    }
+
+    @Override
+    public void update(Booking booking) {
+    }
+
+    @Override
+    public void onUserDeleting(Long userId) {
+    }
+
+    /**
+     * База хранит время с точностью до микросекунд и округляет при записи, параметры запроса округляем так же.
+     */
+    private static LocalDateTime round(LocalDateTime dateTime) {
+        return dateTime.plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Результат одной записи пакета: созданное бронирование или причина отказа.
+ * index - позиция записи в запросе.
+ */
+@Data
+@AllArgsConstructor
+public class BookingBatchResultDto {
+
+    private int index;
+
+    private BookingOutDto booking;
+
+    private String error;
+
+    public static BookingBatchResultDto created(int index, BookingOutDto booking) {
+        return new BookingBatchResultDto(index, booking, null);
+    }
+
+    public static BookingBatchResultDto rejected(int index, String error) {
+        return new BookingBatchResultDto(index, null, error);
+    }
+}
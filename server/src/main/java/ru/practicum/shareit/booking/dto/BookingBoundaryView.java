@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingPhase;
+
+import java.time.LocalDateTime;
+
+/**
+ * Бронирование, у которого скоро начало или конец, строка запроса
+ * {@link ru.practicum.shareit.booking.repository.BookingRepository#findBoundariesUntil}.
+ */
+public interface BookingBoundaryView {
+
+    Long getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    BookingPhase getPhase();
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class BookingOutDto {
 
     private Long id;
@@ -23,4 +25,15 @@ public class BookingOutDto {
     private UserDto booker;
 
     private BookingStatus status;
+
+    /**
+     * Конструктор для выражения select new в запросах BookingRepository: строка запроса сразу становится DTO,
+     * без загрузки сущностей бронирования, вещи и арендатора в контекст персистентности.
+     */
+    public BookingOutDto(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                         Long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                         Long itemRequestId, Long bookerId, String bookerName, String bookerEmail) {
+        this(id, start, end, new ItemDto(itemId, itemName, itemDescription, itemAvailable, itemRequestId),
+                new UserDto(bookerId, bookerName, bookerEmail), status);
+    }
 }
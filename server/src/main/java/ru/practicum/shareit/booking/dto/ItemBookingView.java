@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Последнее или ближайшее следующее бронирование вещи, строка запроса
+ * {@link ru.practicum.shareit.booking.repository.BookingRepository#findLastAndNextByItemIdIn}.
+ */
+public interface ItemBookingView {
+
+    Long getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    Long getItemId();
+
+    Long getBookerId();
+
+    BookingStatus getStatus();
+
+    Boolean getNext();
+}
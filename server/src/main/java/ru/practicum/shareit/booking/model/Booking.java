@@ -3,6 +3,8 @@ package ru.practicum.shareit.booking.model;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 
@@ -14,13 +16,33 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = Booking.WITH_ITEM_AND_BOOKER, attributeNodes = {
+        @NamedAttributeNode("item"),
+        @NamedAttributeNode("booker")
+})
 @Getter
 @Setter
 @ToString
 public class Booking {
 
+    /**
+     * Вещь и арендатор нужны BookingMapper.toBookingOutDto, поэтому списки бронирований
+     * загружают их тем же запросом.
+     */
+    public static final String WITH_ITEM_AND_BOOKER = "Booking.withItemAndBooker";
+
+    /**
+     * Последовательность bookings_seq с шагом 50: один запрос к ней на 50 новых бронирований,
+     * поэтому вставки можно отправлять пакетами, в отличие от IDENTITY.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @GenericGenerator(name = "bookings_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "bookings_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private Long id;
 
     @Column(name = "start_date", nullable = false)
@@ -43,6 +65,24 @@ public class Booking {
     @Column(name = "status")
     private BookingStatus status;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "phase", nullable = false)
+    private BookingPhase phase;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * Фаза нового бронирования считается по текущему времени, если не задана явно.
+     */
+    @PrePersist
+    void initPhase() {
+        if (phase == null) {
+            phase = BookingPhase.at(start, end, LocalDateTime.now());
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Положение бронирования относительно текущего момента. Хранится в bookings.phase, поэтому состояния
+ * CURRENT, PAST и FUTURE выбираются по равенству, а не сравнением дат всех бронирований пользователя.
+ * На границах start и end фазу сдвигает {@link ru.practicum.shareit.booking.phase.BookingPhaseScheduler}.
+ */
+public enum BookingPhase {
+    FUTURE,
+    CURRENT,
+    PAST;
+
+    public static BookingPhase at(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (!end.isAfter(now)) {
+            return PAST;
+        }
+        if (start.isAfter(now)) {
+            return FUTURE;
+        }
+        return CURRENT;
+    }
+}
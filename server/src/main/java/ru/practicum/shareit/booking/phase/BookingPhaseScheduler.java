@@ -0,0 +1,194 @@
+package ru.practicum.shareit.booking.phase;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingBoundaryView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static ru.practicum.shareit.config.TransactionCallbacks.afterCommit;
+
+/**
+ * Сдвигает bookings.phase на границах бронирований: FUTURE -> CURRENT в start, CURRENT -> PAST в end.
+ * В очереди с задержкой лежат только границы ближайшего окна horizon; в конце окна очередь пополняется
+ * следующим окном, а бронирования, чьи границы уже прошли, переводятся одним запросом. Тот же запрос при старте
+ * догоняет границы, пропущенные, пока сервер не работал. Переходы идемпотентны, поэтому повтор границы в очереди
+ * и несколько экземпляров сервера не мешают друг другу. С началом бронирования меняется карточка его вещи
+ * у владельца, поэтому вместе с переходом в CURRENT растет версия карточки вещи и пересчитываются устаревшие
+ * документы списка вещей.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingPhaseScheduler implements InitializingBean, DisposableBean {
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private static final Set<BookingPhase> NOT_STARTED = EnumSet.of(BookingPhase.FUTURE);
+
+    private static final Set<BookingPhase> NOT_FINISHED = EnumSet.of(BookingPhase.FUTURE, BookingPhase.CURRENT);
+
+    private final BookingRepository bookingRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final ItemDashboardService dashboardService;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final DelayQueue<Transition> queue = new DelayQueue<>();
+
+    @Value("${shareit.booking.phase.horizon:1h}")
+    private Duration horizon = Duration.ofHours(1);
+
+    private volatile LocalDateTime windowEnd = LocalDateTime.MIN;
+
+    private TransactionTemplate transactions;
+
+    private Thread worker;
+
+    @Override
+    public void afterPropertiesSet() {
+        transactions = new TransactionTemplate(transactionManager);
+        refill();
+        worker = new Thread(this::run, "booking-phase-scheduler");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Ставит в очередь границы нового бронирования, если они попадают в текущее окно. Бронирования
+     * за окном очередь получит при пополнении. Границы ставятся после коммита, чтобы переход не обогнал вставку.
+     */
+    public void schedule(Booking booking) {
+        Long id = booking.getId();
+        BookingPhase phase = booking.getPhase();
+        LocalDateTime start = booking.getStart();
+        LocalDateTime end = booking.getEnd();
+        afterCommit(() -> enqueue(id, phase, start, end, windowEnd));
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Transition> due = new ArrayList<>();
+                due.add(queue.take());
+                queue.drainTo(due, MAX_BATCH_SIZE - 1);
+                apply(due);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // пропущенные переходы выполнит пополнение в конце окна
+                log.error("Не удалось сдвинуть фазу бронирований", e);
+            }
+        }
+    }
+
+    private void apply(List<Transition> due) {
+        Map<BookingPhase, List<Long>> ids = due.stream()
+                .filter(transition -> transition.bookingId != null)
+                .collect(Collectors.groupingBy(transition -> transition.phase,
+                        Collectors.mapping(transition -> transition.bookingId, Collectors.toList())));
+        transactions.executeWithoutResult(status -> {
+            if (ids.containsKey(BookingPhase.CURRENT)) {
+                itemRepository.incrementCardVersionOfStarting(ids.get(BookingPhase.CURRENT));
+                bookingRepository.updatePhase(ids.get(BookingPhase.CURRENT), NOT_STARTED, BookingPhase.CURRENT);
+                dashboardService.refreshStale(LocalDateTime.now());
+            }
+            if (ids.containsKey(BookingPhase.PAST)) {
+                bookingRepository.updatePhase(ids.get(BookingPhase.PAST), NOT_FINISHED, BookingPhase.PAST);
+            }
+        });
+        if (due.stream().anyMatch(transition -> transition.bookingId == null)) {
+            refill();
+        }
+    }
+
+    private void refill() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(horizon);
+        windowEnd = until;
+        List<BookingBoundaryView> boundaries = transactions.execute(status -> {
+            int finished = bookingRepository.updatePhaseOfFinished(now);
+            itemRepository.incrementCardVersionOfStarted(now);
+            int started = bookingRepository.updatePhaseOfStarted(now);
+            dashboardService.refreshStale(now);
+            if (finished + started > 0) {
+                log.info("Сдвинули фазу пропущенных бронирований: в PAST {}, в CURRENT {}", finished, started);
+            }
+            return bookingRepository.findBoundariesUntil(until);
+        });
+        for (BookingBoundaryView booking : boundaries) {
+            enqueue(booking.getId(), booking.getPhase(), booking.getStart(), booking.getEnd(), until);
+        }
+        queue.add(new Transition(null, null, until));
+        log.debug("Очередь фаз бронирований пополнена до {}, границ в очереди: {}", until, queue.size());
+    }
+
+    private void enqueue(Long id, BookingPhase phase, LocalDateTime start, LocalDateTime end,
+                         LocalDateTime until) {
+        if (phase == BookingPhase.FUTURE && !start.isAfter(until)) {
+            queue.add(new Transition(id, BookingPhase.CURRENT, start));
+        }
+        if (phase != BookingPhase.PAST && !end.isAfter(until)) {
+            queue.add(new Transition(id, BookingPhase.PAST, end));
+        }
+    }
+
+    /**
+     * Переход бронирования bookingId в phase в момент at. Без bookingId - конец окна, пора пополнить очередь.
+     */
+    private static final class Transition implements Delayed {
+
+        private final Long bookingId;
+        private final BookingPhase phase;
+        private final LocalDateTime at;
+
+        private Transition(Long bookingId, BookingPhase phase, LocalDateTime at) {
+            this.bookingId = bookingId;
+            this.phase = phase;
+            this.at = at;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), at));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return at.compareTo(((Transition) other).at);
+        }
+    }
+}
@@ -1,40 +1,226 @@
 package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingBoundaryView;
+import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    List<Booking> findByBookerIdAndEndIsBeforeOrderByStartDesc(Long bookerId, LocalDateTime end, Pageable page);
+    @Override
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findById(Long id);
 
-    List<Booking> findByBookerIdOrderByStartDesc(Long bookerId, Pageable page);
+    /**
+     * Списки бронирований читаются сразу в BookingOutDto выражением select new,
+     * сущности в контекст персистентности не попадают.
+     */
+    String SELECT_OUT_DTO = "select new ru.practicum.shareit.booking.dto.BookingOutDto(b.id, b.start, b.end, " +
+            "b.status, i.id, i.name, i.description, i.available, i.request.id, u.id, u.name, u.email) " +
+            "from Booking b join b.item i join b.booker u ";
 
-    List<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(Long bookerId, LocalDateTime start,
-                                                                              LocalDateTime end, Pageable page);
+    String BY_BOOKER = SELECT_OUT_DTO + "where u.id = :userId ";
 
-    List<Booking> findByBookerIdAndStartIsAfterOrderByStartDesc(Long bookerId, LocalDateTime start, Pageable page);
+    String BY_OWNER = SELECT_OUT_DTO + "where i.owner.id = :userId ";
 
-    List<Booking> findByBookerIdAndStatusOrderByStartDesc(Long bookerId, BookingStatus status, Pageable page);
+    /**
+     * Состояния по времени - равенство по bookings.phase, которое обслуживают индексы
+     * ix_bookings_booker_phase_start и ix_bookings_item_phase_start.
+     */
+    String CURRENT = "and b.phase = ru.practicum.shareit.booking.model.BookingPhase.CURRENT ";
 
-    List<Booking> findByItemOwnerIdOrderByStartDesc(Long ownerId, Pageable page);
+    String PAST = "and b.phase = ru.practicum.shareit.booking.model.BookingPhase.PAST ";
 
-    List<Booking> findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(Long ownerId, LocalDateTime start,
-                                                                                 LocalDateTime end, Pageable page);
+    String FUTURE = "and b.phase = ru.practicum.shareit.booking.model.BookingPhase.FUTURE ";
 
-    List<Booking> findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(Long ownerId, LocalDateTime end, Pageable page);
+    String WITH_STATUS = "and b.status = :status ";
 
-    List<Booking> findByItemOwnerIdAndStartIsAfterOrderByStartDesc(Long ownerId, LocalDateTime start, Pageable page);
+    String NEWEST_FIRST = "order by b.start desc, b.id desc";
 
-    List<Booking> findByItemOwnerIdAndStatusOrderByStartDesc(Long ownerId, BookingStatus status, Pageable page);
+    /**
+     * Страница после курсора (start, id) в порядке start desc, id desc. Условие b.start <= :start
+     * дублирует курсор, чтобы база начинала чтение индекса сразу с нужной позиции.
+     */
+    String AFTER_CURSOR = "and b.start <= :start and (b.start < :start or b.id < :id) " + NEWEST_FIRST;
+
+    int EXPORT_FETCH_SIZE = 1000;
+
+    /**
+     * Вся история бронирований арендатора для выгрузки. Строки читаются курсором порциями по EXPORT_FETCH_SIZE
+     * в порядке индекса ix_bookings_booker_start, поэтому первая строка приходит без сортировки всей истории.
+     * Поток нужно закрыть внутри транзакции.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query(BY_BOOKER + NEWEST_FIRST)
+    Stream<BookingOutDto> streamByBookerId(@Param("userId") Long bookerId);
+
+    @Query(BY_BOOKER + NEWEST_FIRST)
+    List<BookingOutDto> findByBookerIdOrderByStartDesc(@Param("userId") Long bookerId, Pageable page);
+
+    @Query(BY_BOOKER + CURRENT + NEWEST_FIRST)
+    List<BookingOutDto> findCurrentByBookerIdOrderByStartDesc(@Param("userId") Long bookerId, Pageable page);
+
+    @Query(BY_BOOKER + PAST + NEWEST_FIRST)
+    List<BookingOutDto> findPastByBookerIdOrderByStartDesc(@Param("userId") Long bookerId, Pageable page);
+
+    @Query(BY_BOOKER + FUTURE + NEWEST_FIRST)
+    List<BookingOutDto> findFutureByBookerIdOrderByStartDesc(@Param("userId") Long bookerId, Pageable page);
+
+    @Query(BY_BOOKER + WITH_STATUS + NEWEST_FIRST)
+    List<BookingOutDto> findByBookerIdAndStatusOrderByStartDesc(@Param("userId") Long bookerId,
+                                                               @Param("status") BookingStatus status, Pageable page);
+
+    @Query(BY_OWNER + NEWEST_FIRST)
+    List<BookingOutDto> findByItemOwnerIdOrderByStartDesc(@Param("userId") Long ownerId, Pageable page);
+
+    @Query(BY_OWNER + CURRENT + NEWEST_FIRST)
+    List<BookingOutDto> findCurrentByItemOwnerIdOrderByStartDesc(@Param("userId") Long ownerId, Pageable page);
+
+    @Query(BY_OWNER + PAST + NEWEST_FIRST)
+    List<BookingOutDto> findPastByItemOwnerIdOrderByStartDesc(@Param("userId") Long ownerId, Pageable page);
+
+    @Query(BY_OWNER + FUTURE + NEWEST_FIRST)
+    List<BookingOutDto> findFutureByItemOwnerIdOrderByStartDesc(@Param("userId") Long ownerId, Pageable page);
+
+    @Query(BY_OWNER + WITH_STATUS + NEWEST_FIRST)
+    List<BookingOutDto> findByItemOwnerIdAndStatusOrderByStartDesc(@Param("userId") Long ownerId,
+                                                                  @Param("status") BookingStatus status,
+                                                                  Pageable page);
+
+    @Query(BY_BOOKER + AFTER_CURSOR)
+    List<BookingOutDto> findByBookerIdAfter(@Param("userId") Long userId, @Param("start") LocalDateTime start,
+                                            @Param("id") Long id, Pageable page);
+
+    @Query(BY_BOOKER + CURRENT + AFTER_CURSOR)
+    List<BookingOutDto> findCurrentByBookerIdAfter(@Param("userId") Long userId, @Param("start") LocalDateTime start,
+                                                   @Param("id") Long id, Pageable page);
+
+    @Query(BY_BOOKER + PAST + AFTER_CURSOR)
+    List<BookingOutDto> findPastByBookerIdAfter(@Param("userId") Long userId, @Param("start") LocalDateTime start,
+                                                @Param("id") Long id, Pageable page);
+
+    @Query(BY_BOOKER + FUTURE + AFTER_CURSOR)
+    List<BookingOutDto> findFutureByBookerIdAfter(@Param("userId") Long userId, @Param("start") LocalDateTime start,
+                                                  @Param("id") Long id, Pageable page);
+
+    @Query(BY_BOOKER + WITH_STATUS + AFTER_CURSOR)
+    List<BookingOutDto> findByBookerIdAndStatusAfter(@Param("userId") Long userId,
+                                                     @Param("status") BookingStatus status,
+                                                     @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                     Pageable page);
+
+    @Query(BY_OWNER + AFTER_CURSOR)
+    List<BookingOutDto> findByItemOwnerIdAfter(@Param("userId") Long userId, @Param("start") LocalDateTime start,
+                                               @Param("id") Long id, Pageable page);
+
+    @Query(BY_OWNER + CURRENT + AFTER_CURSOR)
+    List<BookingOutDto> findCurrentByItemOwnerIdAfter(@Param("userId") Long userId, @Param("start") LocalDateTime start,
+                                                      @Param("id") Long id, Pageable page);
+
+    @Query(BY_OWNER + PAST + AFTER_CURSOR)
+    List<BookingOutDto> findPastByItemOwnerIdAfter(@Param("userId") Long userId, @Param("start") LocalDateTime start,
+                                                   @Param("id") Long id, Pageable page);
+
+    @Query(BY_OWNER + FUTURE + AFTER_CURSOR)
+    List<BookingOutDto> findFutureByItemOwnerIdAfter(@Param("userId") Long userId, @Param("start") LocalDateTime start,
+                                                     @Param("id") Long id, Pageable page);
+
+    @Query(BY_OWNER + WITH_STATUS + AFTER_CURSOR)
+    List<BookingOutDto> findByItemOwnerIdAndStatusAfter(@Param("userId") Long userId,
+                                                        @Param("status") BookingStatus status,
+                                                        @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                        Pageable page);
 
     List<Booking> findByItemId(Long itemId);
 
+    /**
+     * Бронирования, которые до момента until начнутся или закончатся.
+     */
+    @Query("select b.id as id, b.start as start, b.end as end, b.phase as phase from Booking b " +
+            "where b.phase = ru.practicum.shareit.booking.model.BookingPhase.FUTURE and b.start <= :until " +
+            "or b.phase = ru.practicum.shareit.booking.model.BookingPhase.CURRENT and b.end <= :until")
+    List<BookingBoundaryView> findBoundariesUntil(@Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("update Booking b set b.phase = :phase, b.version = b.version + 1 " +
+            "where b.id in (:ids) and b.phase in (:from)")
+    int updatePhase(@Param("ids") Collection<Long> ids, @Param("from") Collection<BookingPhase> from,
+                    @Param("phase") BookingPhase phase);
+
+    /**
+     * Записывает статус, только если бронирование все еще в статусе expected: из параллельных одобрений
+     * и отклонений одного бронирования проходит одно. В PostgreSQL одобрение, пересекающееся с одобренным
+     * бронированием той же вещи, отклоняет ограничение ex_bookings_approved_overlap.
+     */
+    @Modifying
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+            "where b.id = :id and b.status = :expected")
+    int updateStatus(@Param("id") Long id, @Param("expected") BookingStatus expected,
+                     @Param("status") BookingStatus status);
+
+    /**
+     * Переводит в PAST все закончившиеся к моменту now бронирования, а в CURRENT - начавшиеся.
+     * Догоняет границы, пропущенные, пока сервер не работал. Переходы фазы увеличивают версию бронирования,
+     * чтобы одобрение, прочитавшее старую фазу, не записало ее обратно.
+     */
+    @Modifying
+    @Query("update Booking b set b.phase = ru.practicum.shareit.booking.model.BookingPhase.PAST, " +
+            "b.version = b.version + 1 " +
+            "where b.phase <> ru.practicum.shareit.booking.model.BookingPhase.PAST and b.end <= :now")
+    int updatePhaseOfFinished(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Booking b set b.phase = ru.practicum.shareit.booking.model.BookingPhase.CURRENT, " +
+            "b.version = b.version + 1 " +
+            "where b.phase = ru.practicum.shareit.booking.model.BookingPhase.FUTURE and b.start <= :now")
+    int updatePhaseOfStarted(@Param("now") LocalDateTime now);
+
     Booking findTopByStatusNotLikeAndItemIdAndBookerIdOrderByEndAsc(BookingStatus status, Long itemId, Long bookerId);
+
+    @Query("select b.id from Booking b where b.booker.id = :userId or b.item.owner.id = :userId")
+    List<Long> findIdsByBookerIdOrItemOwnerId(@Param("userId") Long userId);
+
+    List<Booking> findByStatusNotAndIdGreaterThanOrderByIdAsc(BookingStatus status, Long id, Pageable page);
+
+    @Query("select count(b) > 0 from Booking b " +
+            "where b.item.id = :itemId and b.status = :status and b.start < :end and b.end > :start " +
+            "and b.id <> :excludeId")
+    boolean existsOverlapping(@Param("itemId") Long itemId, @Param("status") BookingStatus status,
+                              @Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                              @Param("excludeId") Long excludeId);
+
+    /**
+     * Для каждой вещи из списка одним запросом: последнее начавшееся (next = false)
+     * и ближайшее будущее (next = true) неотклоненное бронирование.
+     */
+    @Query(value = "select id, start_date as \"start\", end_date as \"end\", item_id as \"itemId\", " +
+            "booker_id as \"bookerId\", status, false as \"next\" from (" +
+            "select b.*, row_number() over (partition by b.item_id order by b.start_date desc, b.id desc) as rn " +
+            "from bookings b where b.item_id in (:itemIds) and b.status <> 'REJECTED' and b.start_date < :now" +
+            ") as last_booking where rn = 1 " +
+            "union all " +
+            "select id, start_date, end_date, item_id, booker_id, status, true from (" +
+            "select b.*, row_number() over (partition by b.item_id order by b.start_date, b.id) as rn " +
+            "from bookings b where b.item_id in (:itemIds) and b.status <> 'REJECTED' and b.start_date > :now" +
+            ") as next_booking where rn = 1", nativeQuery = true)
+    List<ItemBookingView> findLastAndNextByItemIdIn(@Param("itemIds") Collection<Long> itemIds,
+                                                    @Param("now") LocalDateTime now);
 }
@@ -1,15 +1,20 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.model.BookingState;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
 
     BookingOutDto create(Long userId, BookingDto bookingDto);
 
+    List<BookingBatchResultDto> createBatch(Long userId, List<BookingDto> bookingDtos);
+
     BookingOutDto updateBookingStatusByOwner(long userId, long bookingId, boolean approved);
 
     BookingOutDto findByBookingId(Long userId, Long bookingId);
@@ -17,4 +22,15 @@ public interface BookingService {
     List<BookingOutDto> findAllUsersBookingByState(Long userId, BookingState state, int from, int size);
 
     List<BookingOutDto> findAllBookingsForItemsOfUser(Long userId, BookingState state, int from, int size);
+
+    List<BookingOutDto> findAllUsersBookingByState(Long userId, BookingState state, BookingCursor after, int size);
+
+    List<BookingOutDto> findAllBookingsForItemsOfUser(Long userId, BookingState state, BookingCursor after, int size);
+
+    /**
+     * Проверка пользователя до начала выгрузки: после начала ответа ошибку уже не вернуть статусом.
+     */
+    void checkExportUser(Long userId);
+
+    void exportAllUsersBookings(Long userId, Consumer<BookingOutDto> action);
 }
@@ -1,64 +1,172 @@
 package ru.practicum.shareit.booking.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.availability.BookingAvailabilityIndex;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.phase.BookingPhaseScheduler;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.model.BookingApproveException;
 import ru.practicum.shareit.exception.model.ObjectNotFoundException;
 import ru.practicum.shareit.exception.model.ValidateBookingsDatesException;
 import ru.practicum.shareit.exception.model.ValidateStateException;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ru.practicum.shareit.logging.SamplingTurboFilter.SAMPLED;
 
 @Service
+@Timed(value = "shareit.service", description = "Время методов сервисов")
 @Transactional
 @Slf4j
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
 
+    private static final String APPROVED_OVERLAP = "ex_bookings_approved_overlap";
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final UserExistenceCache userCache;
     private final ItemRepository itemRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final ItemDashboardService dashboardService;
+    private final BookingPhaseScheduler phaseScheduler;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    @Value("${shareit.booking.approve.attempts:3}")
+    private int approveAttempts = 3;
 
     @Override
     public BookingOutDto create(Long userId, BookingDto bookingDto) {
-        User user = validateUser(userId);
+        User user = findUser(userId);
         Long itemId = bookingDto.getItemId();
         Item item = validateItem(itemId);
-        validateBookingDates(bookingDto);
-        if (!item.isAvailable()) {
-            log.error("Вещь с id = {} уже забронирована", itemId);
-            throw new BookingApproveException("Вещь с id = " + itemId + "уже забронирована");
+        validateNewBooking(userId, item, bookingDto);
+        bookingDto.setStatus(BookingStatus.WAITING);
+        Booking booking = bookingRepository.save(BookingMapper.toBooking(bookingDto, item, user));
+        availabilityIndex.update(booking);
+        phaseScheduler.schedule(booking);
+        dashboardService.onBookingsSaved(List.of(booking));
+        log.info("Создано бронирование bookingId={} itemId={} userId={}", booking.getId(), itemId, userId);
+        return BookingMapper.toBookingOutDto(booking);
+    }
+
+    /**
+     * Пакетное создание в одной транзакции: вещи загружаются одним запросом, каждая запись проверяется
+     * по правилам create, принятые бронирования вставляются пакетами. Отказ по одной записи
+     * не отменяет остальные, результат возвращается для каждой записи в порядке запроса.
+     */
+    @Override
+    public List<BookingBatchResultDto> createBatch(Long userId, List<BookingDto> bookingDtos) {
+        User user = findUser(userId);
+        Set<Long> itemIds = bookingDtos.stream()
+                .map(BookingDto::getItemId)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        BookingBatchResultDto[] results = new BookingBatchResultDto[bookingDtos.size()];
+        List<Integer> accepted = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDto bookingDto = bookingDtos.get(i);
+            Long itemId = bookingDto.getItemId();
+            Item item = items.get(itemId);
+            try {
+                if (item == null) {
+                    throw new ObjectNotFoundException("Вещь с id = " + itemId + " не найдена");
+                }
+                validateNewBooking(userId, item, bookingDto);
+            } catch (ObjectNotFoundException | BookingApproveException | ValidateBookingsDatesException e) {
+                results[i] = BookingBatchResultDto.rejected(i, e.getMessage());
+                continue;
+            }
+            bookingDto.setStatus(BookingStatus.WAITING);
+            bookings.add(BookingMapper.toBooking(bookingDto, item, user));
+            accepted.add(i);
         }
-        if (userId.equals(item.getOwner().getId())) {
-            log.error("Невозможно забронировать вещь, принадлежащую вам");
-            throw new ObjectNotFoundException("Невозможно забронировать вещь, принадлежащую вам");
+        bookingRepository.saveAll(bookings);
+        for (int j = 0; j < bookings.size(); j++) {
+            Booking booking = bookings.get(j);
+            availabilityIndex.update(booking);
+            phaseScheduler.schedule(booking);
+            int index = accepted.get(j);
+            results[index] = BookingBatchResultDto.created(index, BookingMapper.toBookingOutDto(booking));
         }
-        bookingDto.setStatus(BookingStatus.WAITING);
-        Booking booking = BookingMapper.toBooking(bookingDto, item, user);
-        log.info("Создано бронирование вещи id = {}", itemId);
-        return BookingMapper.toBookingOutDto(bookingRepository.save(booking));
+        dashboardService.onBookingsSaved(bookings);
+        log.info("Создано бронирований пакетом userId={} created={} requested={}", userId, bookings.size(),
+                bookingDtos.size());
+        return Arrays.asList(results);
     }
 
+    /**
+     * Статус записывается условным обновлением: из параллельных одобрений и отклонений одного бронирования
+     * проходит одно, проигравшая транзакция откатывается и выполняется заново, всего до approveAttempts раз;
+     * повтор видит записанный результат и отвечает как на повторный запрос. Пересечение с одобренными
+     * бронированиями вещи проверяет индекс занятости, а параллельные одобрения разных бронирований в PostgreSQL
+     * разводит ограничение ex_bookings_approved_overlap. Строку вещи одобрение не блокирует, ее обновляет
+     * только пересчет документа вещи после записи статуса. В уже открытой транзакции метод выполняется в ней
+     * один раз.
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BookingOutDto updateBookingStatusByOwner(long userId, long bookingId, boolean approved) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return updateStatus(userId, bookingId, approved);
+        }
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactions.execute(status -> updateStatus(userId, bookingId, approved));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= approveAttempts) {
+                    log.error("Статус бронирования id = {} не обновлен за {} попыток", bookingId, attempt);
+                    throw e;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Бронирование изменено параллельно bookingId={} attempt={}", bookingId, attempt + 1);
+                }
+            }
+        }
+    }
+
+    private BookingOutDto updateStatus(long userId, long bookingId, boolean approved) {
         validateUser(userId);
         Booking booking = validateBooking(bookingId);
         Long itemId = booking.getItem().getId();
@@ -76,13 +184,42 @@ public class BookingServiceImpl implements BookingService {
             log.error("Бронирование вещи с id = {} уже было отклонено", itemId);
             throw new BookingApproveException("Бронирование вещи с id = " + itemId + "уже было отклонено");
         }
-        if (approved) {
-            booking.setStatus(BookingStatus.APPROVED);
-        } else {
-            booking.setStatus(BookingStatus.REJECTED);
+        claim(booking, approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+        if (approved && !availabilityIndex.tryApprove(booking)) {
+            throw overlap(itemId, bookingId);
+        }
+        availabilityIndex.update(booking);
+        dashboardService.onBookingsSaved(List.of(booking));
+        log.info("Обновлен статус бронирования bookingId={} itemId={} status={}", bookingId, itemId,
+                booking.getStatus());
+        return BookingMapper.toBookingOutDto(booking);
+    }
+
+    /**
+     * Переводит бронирование в status, если с момента чтения его статус не изменился, иначе бросает
+     * ConcurrencyFailureException для повтора. Записанное бронирование отсоединяется от контекста,
+     * чтобы его не записал повторно сброс с прежней версией.
+     */
+    private void claim(Booking booking, BookingStatus status) {
+        int updated;
+        try {
+            updated = bookingRepository.updateStatus(booking.getId(), booking.getStatus(), status);
+        } catch (DataIntegrityViolationException e) {
+            if (String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()).contains(APPROVED_OVERLAP)) {
+                throw overlap(booking.getItem().getId(), booking.getId());
+            }
+            throw e;
+        }
+        if (updated == 0) {
+            throw new ObjectOptimisticLockingFailureException(Booking.class, booking.getId());
         }
-        log.info("Обновлен статус бронирования вещи id = {}", itemId);
-        return BookingMapper.toBookingOutDto(bookingRepository.save(booking));
+        entityManager.detach(booking);
+        booking.setStatus(status);
+    }
+
+    private BookingApproveException overlap(Long itemId, Long bookingId) {
+        log.error("Вещь с id = {} уже забронирована на даты бронирования id = {}", itemId, bookingId);
+        return new BookingApproveException("Вещь с id = " + itemId + " уже забронирована на указанные даты");
     }
 
     @Override
@@ -93,7 +230,9 @@ public class BookingServiceImpl implements BookingService {
         Long bookerId = booking.getBooker().getId();
         Long ownerId = booking.getItem().getOwner().getId();
         if (userId.equals(bookerId) || userId.equals(ownerId)) {
-            log.info("Нашли бронирование id = {}", bookingId);
+            if (log.isInfoEnabled(SAMPLED)) {
+                log.info(SAMPLED, "Нашли бронирование bookingId={} userId={}", bookingId, userId);
+            }
             return BookingMapper.toBookingOutDto(booking);
         } else {
             log.error("Просматривать информацию о бронировании может только собственник вещи или арендатор");
@@ -106,24 +245,21 @@ public class BookingServiceImpl implements BookingService {
     @Transactional(readOnly = true)
     public List<BookingOutDto> findAllUsersBookingByState(Long userId, BookingState state, int from, int size) {
         validateUser(userId);
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> usersBooking = new ArrayList<>();
+        List<BookingOutDto> usersBooking = new ArrayList<>();
 
-        Sort sort = Sort.by(Sort.Direction.DESC, "start");
-        PageRequest page = PageRequest.of(from / size, size, sort);
+        PageRequest page = PageRequest.of(from / size, size);
         switch (state) {
             case ALL:
                 usersBooking = bookingRepository.findByBookerIdOrderByStartDesc(userId, page);
                 break;
             case CURRENT:
-                usersBooking = bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(userId,
-                        now, now, page);
+                usersBooking = bookingRepository.findCurrentByBookerIdOrderByStartDesc(userId, page);
                 break;
             case PAST:
-                usersBooking = bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(userId, now, page);
+                usersBooking = bookingRepository.findPastByBookerIdOrderByStartDesc(userId, page);
                 break;
             case FUTURE:
-                usersBooking = bookingRepository.findByBookerIdAndStartIsAfterOrderByStartDesc(userId, now, page);
+                usersBooking = bookingRepository.findFutureByBookerIdOrderByStartDesc(userId, page);
                 break;
             case WAITING:
                 usersBooking = bookingRepository.findByBookerIdAndStatusOrderByStartDesc(userId, BookingStatus.WAITING,
@@ -137,36 +273,35 @@ public class BookingServiceImpl implements BookingService {
                 log.error("Получен запрос с неизвестным статусом — {}", state);
                 throw new ValidateStateException("Unknown state: UNSUPPORTED_STATUS");
         }
-        log.info("Получили список всех бронирований пользователя");
-        return usersBooking.stream()
-                .map(BookingMapper::toBookingOutDto).collect(Collectors.toList());
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Получили бронирования пользователя userId={} state={} from={} size={} count={}",
+                    userId, state, from, size, usersBooking.size());
+        }
+        return usersBooking;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<BookingOutDto> findAllBookingsForItemsOfUser(Long userId, BookingState state, int from, int size) {
         validateUser(userId);
-        LocalDateTime now = LocalDateTime.now();
-        if (itemRepository.findByOwnerId(userId).size() == 0) {
+        if (!itemRepository.existsByOwnerId(userId)) {
             log.error("У пользователя нет вещей для бронирования");
             throw new  ObjectNotFoundException("У пользователя нет вещей для бронирования");
         }
-        List<Booking> bookings = new ArrayList<>();
-        Sort sort = Sort.by(Sort.Direction.DESC, "start");
-        PageRequest page = PageRequest.of(from / size, size, sort);
+        List<BookingOutDto> bookings = new ArrayList<>();
+        PageRequest page = PageRequest.of(from / size, size);
         switch (state) {
             case ALL:
                 bookings = bookingRepository.findByItemOwnerIdOrderByStartDesc(userId, page);
                 break;
             case CURRENT:
-                bookings = bookingRepository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(userId,
-                        now, now, page);
+                bookings = bookingRepository.findCurrentByItemOwnerIdOrderByStartDesc(userId, page);
                 break;
             case PAST:
-                bookings = bookingRepository.findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(userId, now, page);
+                bookings = bookingRepository.findPastByItemOwnerIdOrderByStartDesc(userId, page);
                 break;
             case FUTURE:
-                bookings = bookingRepository.findByItemOwnerIdAndStartIsAfterOrderByStartDesc(userId,now, page);
+                bookings = bookingRepository.findFutureByItemOwnerIdOrderByStartDesc(userId, page);
                 break;
             case WAITING:
                 bookings = bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(userId,
@@ -180,15 +315,130 @@ public class BookingServiceImpl implements BookingService {
                 log.error("Получен запрос с неизвестным статусом — {}", state);
                 throw new ValidateStateException("Unknown state: UNSUPPORTED_STATUS");
         }
-        log.info("Получили список бронирований для всех вещей пользователя");
-        return bookings.stream()
-                .map(BookingMapper::toBookingOutDto).collect(Collectors.toList());
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Получили бронирования вещей владельца userId={} state={} from={} size={} count={}",
+                    userId, state, from, size, bookings.size());
+        }
+        return bookings;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingOutDto> findAllUsersBookingByState(Long userId, BookingState state, BookingCursor after,
+                                                          int size) {
+        validateUser(userId);
+        LocalDateTime start = after.getStart();
+        Long id = after.getId();
+        PageRequest page = PageRequest.of(0, size);
+        List<BookingOutDto> usersBooking = new ArrayList<>();
+        switch (state) {
+            case ALL:
+                usersBooking = bookingRepository.findByBookerIdAfter(userId, start, id, page);
+                break;
+            case CURRENT:
+                usersBooking = bookingRepository.findCurrentByBookerIdAfter(userId, start, id, page);
+                break;
+            case PAST:
+                usersBooking = bookingRepository.findPastByBookerIdAfter(userId, start, id, page);
+                break;
+            case FUTURE:
+                usersBooking = bookingRepository.findFutureByBookerIdAfter(userId, start, id, page);
+                break;
+            case WAITING:
+                usersBooking = bookingRepository.findByBookerIdAndStatusAfter(userId, BookingStatus.WAITING, start,
+                        id, page);
+                break;
+            case REJECTED:
+                usersBooking = bookingRepository.findByBookerIdAndStatusAfter(userId, BookingStatus.REJECTED, start,
+                        id, page);
+                break;
+            case UNSUPPORTED_STATUS:
+                log.error("Получен запрос с неизвестным статусом — {}", state);
+                throw new ValidateStateException("Unknown state: UNSUPPORTED_STATUS");
+        }
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Получили бронирования пользователя после курсора userId={} state={} size={} count={}",
+                    userId, state, size, usersBooking.size());
+        }
+        return usersBooking;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingOutDto> findAllBookingsForItemsOfUser(Long userId, BookingState state, BookingCursor after,
+                                                             int size) {
+        validateUser(userId);
+        if (!itemRepository.existsByOwnerId(userId)) {
+            log.error("У пользователя нет вещей для бронирования");
+            throw new  ObjectNotFoundException("У пользователя нет вещей для бронирования");
+        }
+        LocalDateTime start = after.getStart();
+        Long id = after.getId();
+        PageRequest page = PageRequest.of(0, size);
+        List<BookingOutDto> bookings = new ArrayList<>();
+        switch (state) {
+            case ALL:
+                bookings = bookingRepository.findByItemOwnerIdAfter(userId, start, id, page);
+                break;
+            case CURRENT:
+                bookings = bookingRepository.findCurrentByItemOwnerIdAfter(userId, start, id, page);
+                break;
+            case PAST:
+                bookings = bookingRepository.findPastByItemOwnerIdAfter(userId, start, id, page);
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findFutureByItemOwnerIdAfter(userId, start, id, page);
+                break;
+            case WAITING:
+                bookings = bookingRepository.findByItemOwnerIdAndStatusAfter(userId, BookingStatus.WAITING, start,
+                        id, page);
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findByItemOwnerIdAndStatusAfter(userId, BookingStatus.REJECTED, start,
+                        id, page);
+                break;
+            case UNSUPPORTED_STATUS:
+                log.error("Получен запрос с неизвестным статусом — {}", state);
+                throw new ValidateStateException("Unknown state: UNSUPPORTED_STATUS");
+        }
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Получили бронирования вещей владельца после курсора userId={} state={} size={} count={}",
+                    userId, state, size, bookings.size());
+        }
+        return bookings;
+    }
+
+    @Override
+    public void checkExportUser(Long userId) {
+        validateUser(userId);
+    }
+
+    /**
+     * Передает бронирования в action по одному, не собирая их в список.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllUsersBookings(Long userId, Consumer<BookingOutDto> action) {
+        validateUser(userId);
+        try (Stream<BookingOutDto> bookings = bookingRepository.streamByBookerId(userId)) {
+            bookings.forEach(action);
+        }
+        log.info("Выгрузили историю бронирований userId={}", userId);
+    }
+
+    private void validateUser(Long userId) {
+        if (!userCache.exists(userId)) {
+            throw new ObjectNotFoundException("Пользователь" +
+                    " с id = " + userId + " не найден");
+        }
     }
 
-    private User validateUser(Long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new ObjectNotFoundException("Пользователь" +
-                        " с id = " + userId + " не найден"));
+    /**
+     * Арендатор попадает в ответ с именем и email, поэтому загружается сразу, а не через кэш и ссылку.
+     */
+    private User findUser(Long userId) {
+        return userRepository.findById(userId).orElseThrow(() -> new ObjectNotFoundException("Пользователь" +
+                " с id = " + userId + " не найден"));
     }
 
     private Item validateItem(Long itemId) {
@@ -196,6 +446,23 @@ public class BookingServiceImpl implements BookingService {
                 itemId + " не найдена"));
     }
 
+    private void validateNewBooking(Long userId, Item item, BookingDto bookingDto) {
+        Long itemId = item.getId();
+        validateBookingDates(bookingDto);
+        if (!item.isAvailable()) {
+            log.error("Вещь с id = {} уже забронирована", itemId);
+            throw new BookingApproveException("Вещь с id = " + itemId + "уже забронирована");
+        }
+        if (userId.equals(item.getOwner().getId())) {
+            log.error("Невозможно забронировать вещь, принадлежащую вам");
+            throw new ObjectNotFoundException("Невозможно забронировать вещь, принадлежащую вам");
+        }
+        if (availabilityIndex.hasApprovedOverlap(itemId, bookingDto.getStart(), bookingDto.getEnd())) {
+            log.error("Вещь с id = {} уже забронирована на указанные даты", itemId);
+            throw new BookingApproveException("Вещь с id = " + itemId + " уже забронирована на указанные даты");
+        }
+    }
+
     private Booking validateBooking(Long bookingId) {
         return bookingRepository.findById(bookingId)
                         .orElseThrow(() -> new ObjectNotFoundException("Бронирование с указанным id не найдено"));
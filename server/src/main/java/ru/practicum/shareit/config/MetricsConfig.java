@@ -0,0 +1,52 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Метрики сервера сверх стандартных: время методов сервисов с @Timed (shareit.service)
+ * и число SQL-запросов на HTTP-запрос (shareit.http.statements).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<StatementMetricsFilter> statementMetricsFilter(MeterRegistry meterRegistry) {
+        return new FilterRegistrationBean<>(new StatementMetricsFilter(meterRegistry));
+    }
+
+    /**
+     * Инспектор из spring.jpa.properties.hibernate.session_factory.statement_inspector остается
+     * в цепочке после счетчика.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer requestStatementsCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new RequestStatements(configuredInspector(properties.get(AvailableSettings.STATEMENT_INSPECTOR))));
+    }
+
+    @Nullable
+    private static StatementInspector configuredInspector(@Nullable Object configured) {
+        if (configured == null || configured instanceof StatementInspector) {
+            return (StatementInspector) configured;
+        }
+        Class<?> type = configured instanceof Class
+                ? (Class<?>) configured
+                : ClassUtils.resolveClassName(configured.toString(), null);
+        return (StatementInspector) BeanUtils.instantiateClass(type);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.lang.Nullable;
+
+/**
+ * Считает SQL-запросы, которые Hibernate готовит в потоке между start и stop. Подключается как
+ * hibernate.session_factory.statement_inspector и передает SQL инспектору из настроек, если он задан.
+ */
+public class RequestStatements implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    @Nullable
+    private final StatementInspector delegate;
+
+    public RequestStatements(@Nullable StatementInspector delegate) {
+        this.delegate = delegate;
+    }
+
+    static void start() {
+        COUNT.set(new long[1]);
+    }
+
+    static long stop() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return delegate == null ? sql : delegate.inspect(sql);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.exception.handler;
 
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -34,6 +35,12 @@ public class ErrorHandler {
         return new ErrorResponse("error", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConcurrencyFailureException(final ConcurrencyFailureException e) {
+        return new ErrorResponse("error", "Запись изменена параллельным запросом, повторите запрос");
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleOtherException(final Throwable e) {
@@ -67,4 +74,10 @@ public class ErrorHandler {
     public ErrorResponse handleValidateBookingsDateException(final ValidateBookingsDatesException e) {
         return new ErrorResponse("error", e.getMessage());
     }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleValidateCursorException(final ValidateCursorException e) {
+        return new ErrorResponse("error", e.getMessage());
+    }
 }
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception.model;
+
+public class ValidateCursorException extends RuntimeException {
+    public ValidateCursorException(String message) {
+        super(message);
+    }
+}
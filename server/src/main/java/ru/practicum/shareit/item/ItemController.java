@@ -1,13 +1,24 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.exception.model.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComments;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.service.ItemService;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -21,12 +32,25 @@ public class ItemController {
 
     private final ItemService itemService;
 
+    private final ObjectMapper mapper;
+
     @PostMapping
     public ItemDto createItem(@RequestHeader("X-Sharer-User-Id") Long userId,
                              @RequestBody ItemDto itemDto) {
         return itemService.createItemDto(userId, itemDto);
     }
 
+    /**
+     * Импорт вещей владельца из JSON-массива или NDJSON, по вещи на строку.
+     * Тело разбирается по мере импорта, список вещей целиком в памяти не собирается.
+     */
+    @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ItemImportResultDto importItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                           HttpServletRequest request) throws IOException {
+        MappingIterator<ItemDto> itemDtos = mapper.readerFor(ItemDto.class).readValues(request.getInputStream());
+        return itemService.importItems(userId, new ImportedItems(itemDtos));
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(@RequestHeader("X-Sharer-User-Id") Long userId,
                               @PathVariable("itemId") Long itemId,
@@ -34,10 +58,20 @@ public class ItemController {
         return itemService.updateItemDto(userId, itemId, itemDto);
     }
 
+    /**
+     * Если ETag из If-None-Match совпадает с текущим, отвечает 304 без загрузки карточки. Карточка загружается
+     * после ETag и может оказаться новее него, тогда следующий запрос просто получит ее снова.
+     */
     @GetMapping("{itemId}")
-    public ItemDtoWithBookingAndComments getItemById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                     @PathVariable Long itemId) {
-        return itemService.getItemDtoById(itemId, userId);
+    public ResponseEntity<ItemDtoWithBookingAndComments> getItemById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                     @PathVariable Long itemId,
+                                                                     WebRequest request) {
+        String eTag = itemService.getItemETag(itemId, userId);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy("X-Sharer-User-Id").build();
+        }
+        return ResponseEntity.ok().eTag(eTag).varyBy("X-Sharer-User-Id")
+                .body(itemService.getItemDtoById(itemId, userId));
     }
 
     @GetMapping
@@ -65,4 +99,37 @@ public class ItemController {
                                     @RequestBody CommentDto commentDto, @PathVariable Long itemId) {
         return itemService.createComment(commentDto, userId, itemId);
     }
+
+    /**
+     * Ошибка разбора записи отменяет импорт так же, как некорректное поле вещи.
+     */
+    private static class ImportedItems implements Iterator<ItemDto> {
+
+        private final MappingIterator<ItemDto> itemDtos;
+
+        private long read;
+
+        ImportedItems(MappingIterator<ItemDto> itemDtos) {
+            this.itemDtos = itemDtos;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return itemDtos.hasNextValue();
+            } catch (IOException e) {
+                throw new ValidationException("Вещь №" + (read + 1) + ": не удалось разобрать запись");
+            }
+        }
+
+        @Override
+        public ItemDto next() {
+            try {
+                read++;
+                return itemDtos.nextValue();
+            } catch (IOException e) {
+                throw new ValidationException("Вещь №" + read + ": не удалось разобрать запись");
+            }
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.item.dashboard;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Готовые данные вещи для списка вещей владельца: последнее и следующее бронирование и комментарии.
+ * С началом следующего бронирования (validUntil) документ устаревает: до пересчета в BookingPhaseScheduler
+ * чтение строит его в памяти.
+ */
+@Entity
+@Table(name = "item_dashboards")
+@Getter
+@Setter
+@ToString
+public class ItemDashboard {
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "valid_until")
+    private LocalDateTime validUntil;
+
+    @Convert(converter = ItemDashboardDocumentConverter.class)
+    @Column(name = "document", nullable = false)
+    private ItemDashboardDocument document;
+
+    public boolean isStale(LocalDateTime now) {
+        return validUntil != null && !validUntil.isAfter(now);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null) {
+            return false;
+        }
+        if (getClass() != o.getClass()) {
+            return false;
+        }
+        return itemId != null && itemId.equals(((ItemDashboard) o).getItemId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.dto.CommentDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Содержимое {@link ItemDashboard}, хранится в базе одним JSON-документом.
+ * Документ не изменяется на месте: Hibernate замечает изменение, только когда в сущность записан новый документ.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemDashboardDocument {
+
+    private BookingDto lastBooking;
+
+    private BookingDto nextBooking;
+
+    private List<CommentDto> comments = new ArrayList<>();
+
+    public ItemDashboardDocument withComment(CommentDto comment) {
+        List<CommentDto> withComment = new ArrayList<>(comments);
+        withComment.add(comment);
+        return new ItemDashboardDocument(lastBooking, nextBooking, withComment);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item.dashboard;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.UncheckedIOException;
+
+@Converter
+public class ItemDashboardDocumentConverter implements AttributeConverter<ItemDashboardDocument, String> {
+
+    private static final ObjectMapper MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    @Override
+    public String convertToDatabaseColumn(ItemDashboardDocument document) {
+        try {
+            return MAPPER.writeValueAsString(document);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ItemDashboardDocument convertToEntityAttribute(String json) {
+        try {
+            return MAPPER.readValue(json, ItemDashboardDocument.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
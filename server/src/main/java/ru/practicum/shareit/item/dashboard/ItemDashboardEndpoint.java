@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item.dashboard;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Операция rebuild строит документы всех вещей заново: POST /actuator/itemdashboards на порту
+ * management.server.port, который не открыт наружу.
+ */
+@Component
+@Endpoint(id = "itemdashboards")
+@RequiredArgsConstructor
+public class ItemDashboardEndpoint {
+
+    private final ItemDashboardService dashboardService;
+
+    @WriteOperation
+    public Map<String, Long> rebuild() {
+        return Map.of("items", dashboardService.rebuild());
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.dashboard;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ItemDashboardRepository extends JpaRepository<ItemDashboard, Long> {
+
+    /**
+     * Страница вещей владельца вместе с документами одним запросом по ix_items_owner и первичному ключу документов.
+     */
+    @Query("select i as item, d as dashboard from Item i " +
+            "left join ItemDashboard d on d.itemId = i.id " +
+            "where i.owner.id = :ownerId order by i.id")
+    List<ItemWithDashboard> findByOwnerId(@Param("ownerId") Long ownerId, Pageable page);
+
+    @Query("select distinct c.item.id from Comment c where c.author.id = :authorId")
+    List<Long> findItemIdsByCommentAuthorId(@Param("authorId") Long authorId);
+
+    @Query("select distinct b.item.id from Booking b where b.booker.id = :bookerId")
+    List<Long> findItemIdsByBookerId(@Param("bookerId") Long bookerId);
+
+    @Query("select d.itemId from ItemDashboard d where d.validUntil <= :now")
+    List<Long> findItemIdsByValidUntilLessThanEqual(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,320 @@
+package ru.practicum.shareit.item.dashboard;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComments;
+import ru.practicum.shareit.item.mapper.CommentMapper;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Поддерживает {@link ItemDashboard} в тех же транзакциях, что создают вещи и меняют бронирования и комментарии,
+ * поэтому список вещей владельца читается одним запросом. Документы пишутся только под блокировкой строки вещи,
+ * которую берет увеличение версии карточки или выборка с блокировкой. Чтение ничего не сохраняет: документ,
+ * у которого наступило следующее бронирование, и вещь без документа пересчитываются в памяти прежними запросами.
+ * Те же события увеличивают версию карточки вещи, от которой считается ETag ответа GET /items/{id}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@Transactional
+public class ItemDashboardService {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private static final Comparator<BookingDto> BY_START = Comparator.comparing(BookingDto::getStart)
+            .thenComparing(BookingDto::getId);
+
+    private final ItemDashboardRepository dashboardRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final BookingRepository bookingRepository;
+
+    private final CommentRepository commentRepository;
+
+    private final EntityManager entityManager;
+
+    private final PlatformTransactionManager transactionManager;
+
+    @Transactional(readOnly = true)
+    public List<ItemDtoWithBookingAndComments> findByOwnerId(Long ownerId, PageRequest page) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemWithDashboard> rows = dashboardRepository.findByOwnerId(ownerId, page);
+        List<Long> stale = rows.stream()
+                .filter(row -> row.getDashboard() == null || row.getDashboard().isStale(now))
+                .map(row -> row.getItem().getId())
+                .collect(Collectors.toList());
+        Map<Long, ItemDashboardDocument> documents = rows.stream()
+                .filter(row -> row.getDashboard() != null)
+                .collect(Collectors.toMap(row -> row.getItem().getId(), row -> row.getDashboard().getDocument()));
+        if (!stale.isEmpty()) {
+            documents.putAll(compute(stale, now));
+        }
+        return rows.stream()
+                .map(ItemWithDashboard::getItem)
+                .filter(item -> item.getRequest() == null)
+                .map(item -> {
+                    ItemDashboardDocument document = documents.get(item.getId());
+                    return ItemMapper.toItemDtoWBC(item, document.getComments(),
+                            document.getLastBooking(), document.getNextBooking());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * У новой вещи нет бронирований и комментариев, пустой документ сохраняется вместе с ней.
+     */
+    public void onItemCreated(Long itemId) {
+        ItemDashboard dashboard = new ItemDashboard();
+        dashboard.setItemId(itemId);
+        dashboard.setDocument(new ItemDashboardDocument(null, null, new ArrayList<>()));
+        entityManager.persist(dashboard);
+    }
+
+    /**
+     * Переносит новые и измененные бронирования в документы их вещей. Документ вещи, у которой его еще нет,
+     * строится запросом под той же блокировкой.
+     */
+    public void onBookingsSaved(Collection<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> itemIds = bookings.stream().map(booking -> booking.getItem().getId())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        itemRepository.incrementCardVersion(itemIds);
+        Map<Long, ItemDashboard> dashboards = findDashboards(itemIds);
+        Set<Long> toRefresh = new LinkedHashSet<>();
+        for (Booking booking : bookings) {
+            Long itemId = booking.getItem().getId();
+            ItemDashboard dashboard = dashboards.get(itemId);
+            if (toRefresh.contains(itemId)) {
+                continue;
+            }
+            if (dashboard == null || dashboard.isStale(now)
+                    || !apply(dashboard, BookingMapper.toBookingDto(booking), now)) {
+                toRefresh.add(itemId);
+            }
+        }
+        if (!toRefresh.isEmpty()) {
+            refresh(List.copyOf(toRefresh), dashboards, now);
+        }
+    }
+
+    public void onCommentCreated(CommentDto comment) {
+        itemRepository.incrementCardVersion(List.of(comment.getItemId()));
+        Optional<ItemDashboard> dashboard = dashboardRepository.findById(comment.getItemId());
+        if (dashboard.isPresent()) {
+            dashboard.get().setDocument(dashboard.get().getDocument().withComment(comment));
+        } else {
+            refresh(List.of(comment.getItemId()), Collections.emptyMap(), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Документы хранят имя автора комментария, поэтому вызывается после смены имени
+     * и пересчитывает документы вещей с его комментариями.
+     */
+    public void onAuthorRenamed(Long userId) {
+        itemRepository.incrementCardVersionByCommentAuthorId(userId);
+        List<Long> itemIds = dashboardRepository.findItemIdsByCommentAuthorId(userId);
+        if (!itemIds.isEmpty()) {
+            refresh(itemIds, findDashboards(itemIds), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Вызывается до удаления пользователя: база каскадно удалит его бронирования и комментарии,
+     * которые могли попасть в документы чужих вещей. Блокирует эти вещи и возвращает их id
+     * для {@link #onUserDeleted(Collection)}.
+     */
+    public Set<Long> onUserDeleting(Long userId) {
+        itemRepository.incrementCardVersionByCommentAuthorId(userId);
+        itemRepository.incrementCardVersionByBookerId(userId);
+        Set<Long> itemIds = new LinkedHashSet<>(dashboardRepository.findItemIdsByCommentAuthorId(userId));
+        itemIds.addAll(dashboardRepository.findItemIdsByBookerId(userId));
+        return itemIds;
+    }
+
+    /**
+     * Пересчитывает документы вещей после удаления пользователя. Вещи самого пользователя удалены вместе с ним.
+     */
+    public void onUserDeleted(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        List<Long> remaining = itemRepository.findAllById(itemIds).stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        if (!remaining.isEmpty()) {
+            refresh(remaining, findDashboards(remaining), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Для BookingPhaseScheduler: пересчитывает документы, у которых наступило следующее бронирование.
+     */
+    public void refreshStale(LocalDateTime now) {
+        List<Long> itemIds = dashboardRepository.findItemIdsByValidUntilLessThanEqual(now);
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        List<Long> locked = lock(itemIds);
+        refresh(locked, findDashboards(locked), now);
+    }
+
+    /**
+     * Строит документы всех вещей заново, страницами по REBUILD_PAGE_SIZE вещей. Каждая страница блокирует
+     * свои вещи и коммитится отдельно, в уже открытой транзакции все страницы выполняются в ней.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long rebuild() {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        long rebuilt = 0;
+        long lastId = 0;
+        while (true) {
+            long fromId = lastId;
+            List<Long> page = transactions.execute(status -> {
+                List<Long> itemIds = itemRepository.findByIdGreaterThanOrderByIdAsc(fromId,
+                                PageRequest.of(0, REBUILD_PAGE_SIZE)).stream()
+                        .map(Item::getId)
+                        .collect(Collectors.toList());
+                if (!itemIds.isEmpty()) {
+                    List<Long> locked = lock(itemIds);
+                    refresh(locked, findDashboards(locked), LocalDateTime.now());
+                    if (status.isNewTransaction()) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+                return itemIds;
+            });
+            if (page.isEmpty()) {
+                break;
+            }
+            rebuilt += page.size();
+            lastId = page.get(page.size() - 1);
+        }
+        log.info("Перестроили документы вещей: {}", rebuilt);
+        return rebuilt;
+    }
+
+    /**
+     * Обновляет документ по одному бронированию. Возвращает false, если документ нужно пересчитать запросом:
+     * отклонено последнее или следующее бронирование, и замену ему по документу не найти.
+     */
+    private boolean apply(ItemDashboard dashboard, BookingDto booking, LocalDateTime now) {
+        ItemDashboardDocument document = dashboard.getDocument();
+        BookingDto last = document.getLastBooking();
+        BookingDto next = document.getNextBooking();
+        boolean isLast = last != null && Objects.equals(last.getId(), booking.getId());
+        boolean isNext = next != null && Objects.equals(next.getId(), booking.getId());
+        if (booking.getStatus() == BookingStatus.REJECTED) {
+            return !isLast && !isNext;
+        }
+        if (isLast) {
+            last = booking;
+        } else if (isNext) {
+            next = booking;
+        } else if (booking.getStart().isBefore(now)) {
+            if (last != null && BY_START.compare(booking, last) < 0) {
+                return true;
+            }
+            last = booking;
+        } else if (booking.getStart().isAfter(now)) {
+            if (next != null && BY_START.compare(booking, next) > 0) {
+                return true;
+            }
+            next = booking;
+        } else {
+            return true;
+        }
+        dashboard.setDocument(new ItemDashboardDocument(last, next, document.getComments()));
+        dashboard.setValidUntil(next != null ? next.getStart() : null);
+        return true;
+    }
+
+    private List<Long> lock(Collection<Long> itemIds) {
+        return itemRepository.lockItemsById(itemIds).stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, ItemDashboard> findDashboards(Collection<Long> itemIds) {
+        return dashboardRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(ItemDashboard::getItemId, Function.identity()));
+    }
+
+    private void refresh(Collection<Long> itemIds, Map<Long, ItemDashboard> existing, LocalDateTime now) {
+        compute(itemIds, now).forEach((itemId, document) -> {
+            ItemDashboard dashboard = existing.get(itemId);
+            if (dashboard == null) {
+                dashboard = new ItemDashboard();
+                dashboard.setItemId(itemId);
+                dashboard.setDocument(document);
+                dashboard.setValidUntil(validUntil(document));
+                entityManager.persist(dashboard);
+            } else {
+                dashboard.setDocument(document);
+                dashboard.setValidUntil(validUntil(document));
+            }
+        });
+        log.debug("Пересчитали документы вещей: {}", itemIds);
+    }
+
+    private Map<Long, ItemDashboardDocument> compute(Collection<Long> itemIds, LocalDateTime now) {
+        Map<Long, BookingDto> lastBookings = new HashMap<>();
+        Map<Long, BookingDto> nextBookings = new HashMap<>();
+        for (ItemBookingView view : bookingRepository.findLastAndNextByItemIdIn(itemIds, now)) {
+            (view.getNext() ? nextBookings : lastBookings).put(view.getItemId(), BookingMapper.toBookingDto(view));
+        }
+        Map<Long, List<CommentDto>> comments = commentRepository.findByItemIdIn(itemIds).stream()
+                .sorted(Comparator.comparing(Comment::getId))
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(CommentMapper::toCommentDto, Collectors.toList())));
+        Map<Long, ItemDashboardDocument> documents = new HashMap<>();
+        for (Long itemId : itemIds) {
+            documents.put(itemId, new ItemDashboardDocument(lastBookings.get(itemId), nextBookings.get(itemId),
+                    comments.getOrDefault(itemId, new ArrayList<>())));
+        }
+        return documents;
+    }
+
+    private static LocalDateTime validUntil(ItemDashboardDocument document) {
+        return document.getNextBooking() != null ? document.getNextBooking().getStart() : null;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dashboard;
+
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Строка списка вещей владельца: вещь и ее документ, если он уже построен.
+ */
+public interface ItemWithDashboard {
+
+    Item getItem();
+
+    ItemDashboard getDashboard();
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.dto;
+
+/**
+ * Версия вещи, версия ее карточки и владелец, строка запроса
+ * {@link ru.practicum.shareit.item.repository.ItemRepository#findVersionById}.
+ */
+public interface ItemVersionView {
+
+    long getVersion();
+
+    long getCardVersion();
+
+    Long getOwnerId();
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.mapper;
 
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.dto.CommentDto;
@@ -60,15 +61,22 @@ public class ItemMapper {
                 .filter(booking -> booking.getItem().getOwner().getId().equals(user.getId()))
                 .filter(booking -> booking.getItem().getId().equals(item.getId()))
                 .min(Comparator.comparing(Booking::getStart)).orElse(null);
+        return toItemDtoWBC(item, commentDto,
+                lastBooking != null ? BookingMapper.toBookingDto(lastBooking) : null,
+                nextBooking != null ? BookingMapper.toBookingDto(nextBooking) : null);
+    }
+
+    public static ItemDtoWithBookingAndComments toItemDtoWBC(Item item, List<CommentDto> comments,
+                                                             BookingDto lastBooking, BookingDto nextBooking) {
         return ItemDtoWithBookingAndComments.builder()
                 .id(item.getId())
                 .name(item.getName())
                 .description(item.getDescription())
                 .available(item.isAvailable())
                 .requestId(item.getRequest() != null ? item.getRequest().getId() : null)
-                .comments(commentDto)
-                .lastBooking(lastBooking != null ? BookingMapper.toBookingDto(lastBooking) : null)
-                .nextBooking(nextBooking != null ? BookingMapper.toBookingDto(nextBooking) : null)
+                .comments(comments)
+                .lastBooking(lastBooking)
+                .nextBooking(nextBooking)
                 .build();
     }
 }
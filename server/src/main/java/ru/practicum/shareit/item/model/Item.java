@@ -3,6 +3,8 @@ package ru.practicum.shareit.item.model;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.user.User;
 
@@ -18,8 +20,17 @@ import javax.persistence.*;
 @ToString
 public class Item {
 
+    /**
+     * Как и у Booking: последовательность items_seq с шагом 50, вставки при импорте уходят пакетами.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @GenericGenerator(name = "items_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "items_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private Long id;
 
     @Column(name = "name", nullable = false)
@@ -41,6 +52,21 @@ public class Item {
     @ToString.Exclude
     private ItemRequest request;
 
+    /**
+     * Версия строки для оптимистической блокировки, растет только при изменении самой вещи.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * Версия бронирований и комментариев вещи, вместе с version дает ETag ответа GET /items/{id}.
+     * Растет только запросами ItemRepository: оптимистическая блокировка ее не проверяет, а сохранение вещи
+     * не перезаписывает.
+     */
+    @Column(name = "card_version", nullable = false, insertable = false, updatable = false)
+    private long cardVersion;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.item.model.Comment;
 
@@ -10,5 +11,9 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     List<Comment> findByItemId(Long itemId);
 
+    /**
+     * Имена авторов нужны CommentMapper.toCommentDto, поэтому авторы загружаются тем же запросом.
+     */
+    @EntityGraph(attributePaths = "author")
     List<Comment> findByItemIdIn(Collection<Long> itemIds);
 }
@@ -2,12 +2,20 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemVersionView;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
@@ -16,12 +24,65 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
 
     List<Item> findByOwnerId(Long ownerId, Pageable page);
 
-    @Query(" select i from Item i " +
+    boolean existsByOwnerId(Long ownerId);
+
+    @Query(" select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, " +
+            "i.request.id) from Item i " +
             "where upper(i.name) like upper(concat('%', ?1, '%')) " +
             " or upper(i.description) like upper(concat('%', ?1, '%')) and i.available = true")
-    List<Item> searchByText(@Param(value = "text") String text, Pageable page);
+    List<ItemDto> searchByText(@Param(value = "text") String text, Pageable page);
 
     List<Item> findByRequestId(Long requestId);
 
     List<Item> findByRequestIdIn(List<Long> requestIds);
+
+    List<Item> findByIdGreaterThanOrderByIdAsc(Long id, Pageable page);
+
+    /**
+     * Блокирует строки вещей в порядке id, чтобы документы пересчитывались без гонки с бронированиями
+     * и комментариями. Возвращает существующие из них.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id in (:ids) order by i.id")
+    List<Item> lockItemsById(@Param("ids") Collection<Long> ids);
+
+    List<Item> findByOwnerIdAndIdGreaterThanEqualOrderByIdAsc(Long ownerId, Long id, Pageable page);
+
+    @Query("select i.version as version, i.cardVersion as cardVersion, i.owner.id as ownerId from Item i " +
+            "where i.id = :id")
+    Optional<ItemVersionView> findVersionById(@Param("id") Long id);
+
+    /**
+     * Версия карточки вещи растет без изменения самой вещи: у нее появилось бронирование или комментарий.
+     * Обновление берет блокировку строки вещи, но не меняет version, поэтому не мешает владельцу изменить вещь.
+     */
+    @Modifying
+    @Query("update Item i set i.cardVersion = i.cardVersion + 1 where i.id in (:ids)")
+    int incrementCardVersion(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Item i set i.cardVersion = i.cardVersion + 1 where i.id in " +
+            "(select c.item.id from Comment c where c.author.id = :userId)")
+    int incrementCardVersionByCommentAuthorId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("update Item i set i.cardVersion = i.cardVersion + 1 where i.id in " +
+            "(select b.item.id from Booking b where b.booker.id = :userId)")
+    int incrementCardVersionByBookerId(@Param("userId") Long userId);
+
+    /**
+     * Для BookingPhaseScheduler: у вещей бронирований ids, которые еще не начались, следующее бронирование
+     * становится последним.
+     */
+    @Modifying
+    @Query("update Item i set i.cardVersion = i.cardVersion + 1 where i.id in " +
+            "(select b.item.id from Booking b where b.id in (:ids) " +
+            "and b.phase = ru.practicum.shareit.booking.model.BookingPhase.FUTURE)")
+    int incrementCardVersionOfStarting(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Item i set i.cardVersion = i.cardVersion + 1 where i.id in " +
+            "(select b.item.id from Booking b where b.start <= :now " +
+            "and b.phase = ru.practicum.shareit.booking.model.BookingPhase.FUTURE)")
+    int incrementCardVersionOfStarted(@Param("now") LocalDateTime now);
 }
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+/**
+ * Поиск вещей по тексту в названии и описании.
+ * Реализация выбирается свойством shareit.search.engine: index (по умолчанию) или jpa.
+ */
+public interface ItemSearchEngine {
+
+    List<ItemDto> search(String text, Pageable page);
+
+    void index(Item item);
+
+    /**
+     * Индексирует вещи владельца с id не меньше fromId после коммита, перечитывая их из базы частями.
+     * Для импорта: вещи не держатся в памяти до коммита.
+     */
+    void indexByOwnerId(Long ownerId, Long fromId);
+
+    void remove(Long itemId);
+
+    void removeByOwnerId(Long ownerId);
+}
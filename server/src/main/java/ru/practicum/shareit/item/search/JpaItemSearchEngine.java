@@ -0,0 +1,43 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+
+/**
+ * Резервный режим поиска: запрос like к таблице items на каждый вызов.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "shareit.search", name = "engine", havingValue = "jpa")
+public class JpaItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<ItemDto> search(String text, Pageable page) {
+        return itemRepository.searchByText(text.toUpperCase(), page);
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+
+    @Override
+    public void indexByOwnerId(Long ownerId, Long fromId) {
+    }
+
+    @Override
+    public void remove(Long itemId) {
+    }
+
+    @Override
+    public void removeByOwnerId(Long ownerId) {
+    }
+}
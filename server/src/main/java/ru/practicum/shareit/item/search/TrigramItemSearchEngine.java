@@ -0,0 +1,357 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static ru.practicum.shareit.config.TransactionCallbacks.afterCommit;
+
+/**
+ * Инвертированный индекс по триграммам названия и описания вещей, хранится в памяти сервера.
+ * Текст приводится к верхнему регистру и разбивается на слова, триграммы строятся внутри слов.
+ * Триграммы запроса только отбирают кандидатов, совпадение проверяется по подстроке, как в
+ * {@link ItemRepository#searchByText}, поэтому оба режима возвращают одинаковые вещи.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "shareit.search", name = "engine", havingValue = "index", matchIfMissing = true)
+public class TrigramItemSearchEngine implements ItemSearchEngine, InitializingBean {
+
+    private static final int REBUILD_BATCH_SIZE = 10_000;
+
+    private final ItemRepository itemRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<Long, Document> documents = new TreeMap<>();
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            Long lastId = 0L;
+            List<Item> batch;
+            do {
+                batch = itemRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (Item item : batch) {
+                    add(new Document(item));
+                    lastId = item.getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            log.info("Построен поисковый индекс вещей, документов: {}, триграмм: {}", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ItemDto> search(String text, Pageable page) {
+        String query = fold(text);
+        long[] keys = trigrams(query);
+        Collector collector = new Collector(query, page);
+        lock.readLock().lock();
+        try {
+            if (keys.length == 0) {
+                for (Document document : documents.values()) {
+                    if (collector.offer(document)) {
+                        break;
+                    }
+                }
+            } else {
+                collectCandidates(keys, collector);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return collector.result;
+    }
+
+    @Override
+    public void index(Item item) {
+        Document document = new Document(item);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(document.id);
+                add(document);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Каждая часть читается в своей транзакции только для чтения, поэтому контекст персистентности
+     * не растет с числом вещей.
+     */
+    @Override
+    public void indexByOwnerId(Long ownerId, Long fromId) {
+        afterCommit(() -> {
+            TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+            transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transactions.setReadOnly(true);
+            Long nextId = fromId;
+            List<Document> batch;
+            do {
+                Long from = nextId;
+                batch = transactions.execute(status -> itemRepository
+                        .findByOwnerIdAndIdGreaterThanEqualOrderByIdAsc(ownerId, from,
+                                PageRequest.of(0, REBUILD_BATCH_SIZE))
+                        .stream()
+                        .map(Document::new)
+                        .collect(Collectors.toList()));
+                lock.writeLock().lock();
+                try {
+                    for (Document document : batch) {
+                        delete(document.id);
+                        add(document);
+                        nextId = document.id + 1;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        });
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void removeByOwnerId(Long ownerId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                List<Long> ids = new ArrayList<>();
+                for (Document document : documents.values()) {
+                    if (ownerId.equals(document.ownerId)) {
+                        ids.add(document.id);
+                    }
+                }
+                ids.forEach(this::delete);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectCandidates(long[] keys, Collector collector) {
+        Postings[] lists = new Postings[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            lists[i] = postings.get(keys[i]);
+            if (lists[i] == null) {
+                return;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        Postings shortest = lists[0];
+        for (int i = 0; i < shortest.size; i++) {
+            long id = shortest.ids[i];
+            boolean inAll = true;
+            for (int j = 1; j < lists.length && inAll; j++) {
+                inAll = lists[j].contains(id);
+            }
+            if (inAll && collector.offer(documents.get(id))) {
+                return;
+            }
+        }
+    }
+
+    private void add(Document document) {
+        documents.put(document.id, document);
+        for (long key : document.trigrams) {
+            postings.computeIfAbsent(key, k -> new Postings()).add(document.id);
+        }
+    }
+
+    private void delete(Long itemId) {
+        Document document = documents.remove(itemId);
+        if (document == null) {
+            return;
+        }
+        for (long key : document.trigrams) {
+            Postings list = postings.get(key);
+            list.remove(itemId);
+            if (list.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    static String fold(String text) {
+        return text == null ? "" : text.toUpperCase(Locale.ROOT);
+    }
+
+    static long[] trigrams(String folded) {
+        long[] keys = new long[Math.max(folded.length() - 2, 0)];
+        int count = 0;
+        int tokenStart = 0;
+        for (int i = 0; i <= folded.length(); i++) {
+            if (i < folded.length() && Character.isLetterOrDigit(folded.charAt(i))) {
+                continue;
+            }
+            for (int j = tokenStart; j + 3 <= i; j++) {
+                keys[count++] = ((long) folded.charAt(j) << 32) | ((long) folded.charAt(j + 1) << 16)
+                        | folded.charAt(j + 2);
+            }
+            tokenStart = i + 1;
+        }
+        return Arrays.stream(keys, 0, count).sorted().distinct().toArray();
+    }
+
+    private static final class Document {
+
+        private final Long id;
+        private final Long ownerId;
+        private final String name;
+        private final String description;
+        private final boolean available;
+        private final Long requestId;
+        private final String foldedName;
+        private final String foldedDescription;
+        private final long[] trigrams;
+
+        private Document(Item item) {
+            id = item.getId();
+            ownerId = item.getOwner() != null ? item.getOwner().getId() : null;
+            name = item.getName();
+            description = item.getDescription();
+            available = item.isAvailable();
+            requestId = item.getRequest() != null ? item.getRequest().getId() : null;
+            foldedName = fold(name);
+            foldedDescription = fold(description);
+            trigrams = Arrays.stream(new long[][]{trigrams(foldedName), trigrams(foldedDescription)})
+                    .flatMapToLong(Arrays::stream).sorted().distinct().toArray();
+        }
+
+        private boolean matches(String query) {
+            return foldedName.contains(query) || (available && foldedDescription.contains(query));
+        }
+
+        private ItemDto toItemDto() {
+            return ItemDto.builder()
+                    .id(id)
+                    .name(name)
+                    .description(description)
+                    .available(available)
+                    .requestId(requestId)
+                    .build();
+        }
+    }
+
+    private static final class Collector {
+
+        private final String query;
+        private final int pageSize;
+        private final List<ItemDto> result;
+        private long skip;
+
+        private Collector(String query, Pageable page) {
+            this.query = query;
+            this.pageSize = page.getPageSize();
+            this.result = new ArrayList<>(pageSize);
+            this.skip = page.getOffset();
+        }
+
+        private boolean offer(Document document) {
+            if (!document.matches(query)) {
+                return false;
+            }
+            if (skip > 0) {
+                skip--;
+                return false;
+            }
+            result.add(document.toItemDto());
+            return result.size() == pageSize;
+        }
+    }
+
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        private boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void add(long id) {
+            if (size > 0 && ids[size - 1] < id) {
+                append(size, id);
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                append(-position - 1, id);
+            }
+        }
+
+        private void append(int position, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        private void remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+        }
+    }
+}
@@ -3,17 +3,23 @@ package ru.practicum.shareit.item.service;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComments;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 
+import java.util.Iterator;
 import java.util.List;
 
 public interface ItemService {
 
     ItemDto createItemDto(Long userId, ItemDto itemDto);
 
+    ItemImportResultDto importItems(Long userId, Iterator<ItemDto> itemDtos);
+
     ItemDto updateItemDto(Long userId, Long itemId, ItemDto itemDto);
 
     ItemDtoWithBookingAndComments getItemDtoById(Long itemId, Long userId);
 
+    String getItemETag(Long itemId, Long userId);
+
     List<ItemDtoWithBookingAndComments> getItemDtoByUserId(Long userId, int from, int size);
 
     List<ItemDto> getItemsDtoByTextRequest(String text, int from, int size);
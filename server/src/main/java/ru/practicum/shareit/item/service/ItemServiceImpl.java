@@ -1,7 +1,9 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,8 +13,11 @@ import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.model.BookingAndCommentException;
 import ru.practicum.shareit.exception.model.ObjectNotFoundException;
 import ru.practicum.shareit.exception.model.ValidationException;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComments;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.ItemVersionView;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -20,16 +25,21 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManager;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+
+import static ru.practicum.shareit.logging.SamplingTurboFilter.SAMPLED;
 
 @Service
+@Timed(value = "shareit.service", description = "Время методов сервисов")
 @Slf4j
 @RequiredArgsConstructor
 @Transactional
@@ -39,19 +49,68 @@ public class ItemServiceImpl implements ItemService {
 
     private final UserRepository userRepository;
 
+    private final UserExistenceCache userCache;
+
     private final BookingRepository bookingRepository;
 
     private final CommentRepository commentRepository;
 
+    private final ItemSearchEngine searchEngine;
+
+    private final ItemDashboardService dashboardService;
+
+    private final EntityManager entityManager;
+
+    /**
+     * Через сколько вещей импорт отправляет накопленные вставки в базу и очищает контекст персистентности.
+     */
+    @Value("${shareit.items.import.batch-size:1000}")
+    private int importBatchSize = 1000;
+
     @Override
     public ItemDto createItemDto(Long userId, ItemDto itemDto) {
         User owner = validateUser(userId);
         Item item = ItemMapper.toItem(itemDto, owner);
         item = itemRepository.save(item);
-        log.info("Создали вещь id = {}", item.getId());
+        dashboardService.onItemCreated(item.getId());
+        searchEngine.index(item);
+        log.info("Создали вещь itemId={} userId={}", item.getId(), userId);
         return ItemMapper.toItemDto(item);
     }
 
+    /**
+     * Импорт вещей владельца одной транзакцией. Вещи читаются из итератора по одной, каждые importBatchSize
+     * вещей вставки уходят в базу и контекст очищается. Поисковый индекс пополняется после коммита одним
+     * перечитыванием новых вещей частями, поэтому и он не держит импортированные вещи до конца транзакции.
+     * Id из последовательности растут, новые вещи владельца - с id от первой импортированной.
+     * Некорректная вещь отменяет весь импорт.
+     */
+    @Override
+    public ItemImportResultDto importItems(Long userId, Iterator<ItemDto> itemDtos) {
+        User owner = validateUser(userId);
+        long imported = 0;
+        Long firstId = null;
+        while (itemDtos.hasNext()) {
+            ItemDto itemDto = itemDtos.next();
+            validateImportedItem(itemDto, imported);
+            itemDto.setId(null);
+            Item item = itemRepository.save(ItemMapper.toItem(itemDto, owner));
+            dashboardService.onItemCreated(item.getId());
+            if (firstId == null) {
+                firstId = item.getId();
+            }
+            if (++imported % importBatchSize == 0) {
+                itemRepository.flush();
+                entityManager.clear();
+            }
+        }
+        if (firstId != null) {
+            searchEngine.indexByOwnerId(userId, firstId);
+        }
+        log.info("Импортировали вещи userId={} imported={}", userId, imported);
+        return new ItemImportResultDto(imported);
+    }
+
     @Override
     public ItemDto updateItemDto(Long userId, Long itemId, ItemDto itemDto) {
         Item item = validateUserAndItem(userId, itemId);
@@ -72,8 +131,10 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
-        log.info("Обновили вещь id = {}", itemId);
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        item = itemRepository.save(item);
+        searchEngine.index(item);
+        log.info("Обновили вещь itemId={} userId={}", itemId, userId);
+        return ItemMapper.toItemDto(item);
     }
 
     @Override
@@ -86,21 +147,34 @@ public class ItemServiceImpl implements ItemService {
         return ItemMapper.toItemDtoWBC(item, comments, bookings, user);
     }
 
+    /**
+     * ETag карточки вещи по версии вещи и версии карточки, без загрузки вещи, бронирований и комментариев.
+     * Бронирования в карточке видит только владелец, поэтому его ETag отличается от ETag остальных пользователей.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getItemETag(Long itemId, Long userId) {
+        validateUser(userId);
+        ItemVersionView version = itemRepository.findVersionById(itemId)
+                .orElseThrow(() -> new ObjectNotFoundException("Вещь с id = " + itemId + "не найдена"));
+        String eTag = version.getVersion() + "." + version.getCardVersion();
+        if (Objects.equals(version.getOwnerId(), userId)) {
+            return eTag + "-owner";
+        }
+        return eTag;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<ItemDtoWithBookingAndComments> getItemDtoByUserId(Long userId, int from, int size) {
-        User user = validateUser(userId);
-        PageRequest page = PageRequest.of(from / size, size);
-        List<Item> itemsOfUser = itemRepository.findByOwnerId(userId, page);
-        List<Booking> bookings = bookingRepository.findByItemOwnerIdOrderByStartDesc(userId, page);
-        List<Comment> comments = commentRepository.findByItemIdIn(itemsOfUser.stream()
-                .map(Item::getId).collect(Collectors.toList()));
-        log.info("Получили список вещей пользователя id = {}", userId);
-        return itemsOfUser.stream()
-                .sorted(Comparator.comparing(Item::getId))
-                .filter(item -> item.getRequest() == null)
-                .map(item -> ItemMapper.toItemDtoWBC(item, comments, bookings, user))
-                .collect(Collectors.toList());
+        validateUser(userId);
+        List<ItemDtoWithBookingAndComments> items = dashboardService.findByOwnerId(userId,
+                PageRequest.of(from / size, size));
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Получили вещи владельца userId={} from={} size={} count={}", userId, from, size,
+                    items.size());
+        }
+        return items;
     }
 
     @Override
@@ -109,36 +183,59 @@ public class ItemServiceImpl implements ItemService {
         if (text.isBlank()) {
             return Collections.emptyList();
         }
-        log.info("Получили список вещей по текстовому запросу {}", text);
         PageRequest page = PageRequest.of(from / size, size);
-        return itemRepository.searchByText(text.toUpperCase(), page).stream()
-                .map(ItemMapper::toItemDto).collect(Collectors.toList());
+        List<ItemDto> items = searchEngine.search(text, page);
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Нашли вещи text={} from={} size={} count={}", text, from, size, items.size());
+        }
+        return items;
     }
 
     @Override
     public void deleteItemDto(Long userId, Long itemId) {
         validateUserAndItem(userId, itemId);
         itemRepository.deleteById(itemId);
-        log.info("Удалили вещь id = {}", itemId);
+        searchEngine.remove(itemId);
+        log.info("Удалили вещь itemId={} userId={}", itemId, userId);
     }
 
     @Override
     public CommentDto createComment(CommentDto commentDto, Long userId, Long itemId) {
-        User user = validateUser(userId);
+        User user = findUser(userId);
         Item item = validateItem(itemId);
         Booking booking = bookingRepository
                 .findTopByStatusNotLikeAndItemIdAndBookerIdOrderByEndAsc(BookingStatus.REJECTED, itemId, userId);
         Comment comment = CommentMapper.toComment(commentDto, user, item);
         if (booking == null) {
-            log.info("Пользователь id = {} не бронировал вещь id = {}", userId, itemId);
+            log.info("Пользователь не бронировал вещь userId={} itemId={}", userId, itemId);
             throw new BookingAndCommentException("Пользователь id = " + userId + " не бронировал вещь id = " + itemId);
         }
         if (comment.getCreated().isBefore(booking.getEnd())) {
             log.info("Аренда должна закончиться к моменту написания комментария");
             throw new BookingAndCommentException("Аренда должна закончиться к моменту написания комментария");
         }
-        log.info("Пользователь id = {} добавил комментарий к вещи id = {}", userId, itemId);
-        return CommentMapper.toCommentDto(commentRepository.save(comment));
+        CommentDto created = CommentMapper.toCommentDto(commentRepository.save(comment));
+        dashboardService.onCommentCreated(created);
+        log.info("Добавлен комментарий userId={} itemId={}", userId, itemId);
+        return created;
+    }
+
+    /**
+     * Вещи при импорте не проходят валидацию шлюза, поэтому поля проверяются здесь, как при создании вещи.
+     */
+    private void validateImportedItem(ItemDto itemDto, long index) {
+        String error = null;
+        if (itemDto.getName() == null || itemDto.getName().isBlank()) {
+            error = "поле name не должно быть пустым";
+        } else if (itemDto.getDescription() == null || itemDto.getDescription().isBlank()) {
+            error = "поле description не должно быть пустым";
+        } else if (itemDto.getAvailable() == null) {
+            error = "не указано поле available";
+        }
+        if (error != null) {
+            log.error("Импорт отменен, вещь №{}: {}", index + 1, error);
+            throw new ValidationException("Вещь №" + (index + 1) + ": " + error);
+        }
     }
 
     private Item validateUserAndItem(Long userId, Long itemId) {
@@ -153,9 +250,19 @@ public class ItemServiceImpl implements ItemService {
     }
 
     private User validateUser(Long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new ObjectNotFoundException("Пользователь" +
-                        "с id = " + userId + " не найден"));
+        if (!userCache.exists(userId)) {
+            throw new ObjectNotFoundException("Пользователь" +
+                    "с id = " + userId + " не найден");
+        }
+        return userRepository.getReferenceById(userId);
+    }
+
+    /**
+     * Для комментария нужно имя автора, поэтому пользователь загружается сразу, а не через кэш и ссылку.
+     */
+    private User findUser(Long userId) {
+        return userRepository.findById(userId).orElseThrow(() -> new ObjectNotFoundException("Пользователь" +
+                " с id = " + userId + " не найден"));
     }
 
     private Item validateItem(Long itemId) {
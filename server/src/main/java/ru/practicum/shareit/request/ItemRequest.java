@@ -32,4 +32,8 @@ public class ItemRequest {
 
     @Column(name = "created")
     private LocalDateTime created;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
 }
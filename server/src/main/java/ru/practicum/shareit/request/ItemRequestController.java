@@ -1,8 +1,11 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -39,8 +42,13 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{requestId}")
-    public ItemRequestDtoWithItems getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                  @PathVariable("requestId") Long requestId) {
-        return itemRequestService.getRequestById(userId, requestId);
+    public ResponseEntity<ItemRequestDtoWithItems> getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                  @PathVariable("requestId") Long requestId,
+                                                                  WebRequest request) {
+        String eTag = itemRequestService.getRequestETag(userId, requestId);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(itemRequestService.getRequestById(userId, requestId));
     }
 }
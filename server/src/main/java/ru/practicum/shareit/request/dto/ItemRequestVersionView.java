@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.dto;
+
+/**
+ * Версии запроса, его автора и одной из вещей по запросу, строка запроса
+ * {@link ru.practicum.shareit.request.repository.ItemRequestRepository#findVersionsById}.
+ * Без вещей itemId и itemVersion - null.
+ */
+public interface ItemRequestVersionView {
+
+    long getVersion();
+
+    long getRequestorVersion();
+
+    Long getItemId();
+
+    Long getItemVersion();
+}
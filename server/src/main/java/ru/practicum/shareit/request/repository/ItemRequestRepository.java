@@ -2,8 +2,11 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemRequestVersionView;
 
 import java.util.List;
 
@@ -13,4 +16,12 @@ public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>
     List<ItemRequest> findByRequestorId(Long requestorId);
 
     List<ItemRequest> findAllByRequestorIdNot(Long requestorId, Pageable page);
+
+    /**
+     * Все, от чего зависит ответ GET /requests/{id}: запрос, его автор и вещи по запросу, по строке на вещь.
+     */
+    @Query("select r.version as version, u.version as requestorVersion, i.id as itemId, i.version as itemVersion " +
+            "from ItemRequest r join r.requestor u left join Item i on i.request.id = r.id " +
+            "where r.id = :id order by i.id")
+    List<ItemRequestVersionView> findVersionsById(@Param("id") Long id);
 }
@@ -14,4 +14,6 @@ public interface ItemRequestService {
     List<ItemRequestDtoWithItems> getAllRequestsPageable(Long userId, int from, int size);
 
     ItemRequestDtoWithItems getRequestById(Long userId, Long requestId);
+
+    String getRequestETag(Long userId, Long requestId);
 }
@@ -1,11 +1,13 @@
 package ru.practicum.shareit.request.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 import ru.practicum.shareit.exception.model.ObjectNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
@@ -15,15 +17,23 @@ import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
+import ru.practicum.shareit.request.dto.ItemRequestVersionView;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import static ru.practicum.shareit.logging.SamplingTurboFilter.SAMPLED;
+
 @Service
+@Timed(value = "shareit.service", description = "Время методов сервисов")
 @Transactional
 @RequiredArgsConstructor
 @Slf4j
@@ -31,16 +41,17 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     private final ItemRequestRepository repository;
     private final UserRepository userRepository;
+    private final UserExistenceCache userCache;
     private final ItemRepository itemRepository;
 
     @Override
     public ItemRequestDto createRequest(Long userId, ItemRequestDto itemRequestDto) {
-        User requestor = validateUser(userId);
+        User requestor = findUser(userId);
         itemRequestDto.setCreated(LocalDateTime.now());
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestDto);
         itemRequest.setRequestor(requestor);
         itemRequest = repository.save(itemRequest);
-        log.info("Добавлен запрос на вещь: {}", itemRequest);
+        log.info("Добавлен запрос на вещь requestId={} userId={}", itemRequest.getId(), userId);
         return ItemRequestMapper.toItemRequestDto(itemRequest);
     }
 
@@ -49,7 +60,9 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     public List<ItemRequestDtoWithItems> getRequestDtoByRequestorId(Long userId) {
         validateUser(userId);
         List<ItemRequest> itemRequests = repository.findByRequestorId(userId);
-        log.info("Нашли все запросы на вещи пользователя id = {}", userId);
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Нашли запросы на вещи пользователя userId={} count={}", userId, itemRequests.size());
+        }
         return addItemsToRequest(itemRequests);
     }
 
@@ -60,7 +73,10 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         Sort sort = Sort.by(Sort.Direction.DESC, "created");
         PageRequest page = PageRequest.of(from / size, size, sort);
         List<ItemRequest> itemRequests = repository.findAllByRequestorIdNot(userId, page);
-        log.info("Получили список всех запросов на вещи");
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Получили запросы на вещи других пользователей userId={} from={} size={} count={}",
+                    userId, from, size, itemRequests.size());
+        }
         return addItemsToRequest(itemRequests);
     }
 
@@ -73,26 +89,61 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         List<Item> items = itemRepository.findByRequestId(requestId);
         List<ItemDto> itemDtos = items.stream()
                 .map(ItemMapper::toItemDto).collect(Collectors.toList());
-        log.info("Получен запрос на вещь по id = " + requestId);
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Получили запрос на вещь requestId={} userId={}", requestId, userId);
+        }
         return ItemRequestMapper.toItemRequestDtoWithItems(request, itemDtos);
     }
 
-    private User validateUser(Long userId) {
+    /**
+     * ETag запроса по версиям запроса, его автора и вещей по запросу: ответ содержит автора и вещи,
+     * поэтому меняется и без изменения самого запроса.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getRequestETag(Long userId, Long requestId) {
+        validateUser(userId);
+        List<ItemRequestVersionView> versions = repository.findVersionsById(requestId);
+        if (versions.isEmpty()) {
+            throw new ObjectNotFoundException("Запрос по id = " + requestId + " не найден");
+        }
+        StringBuilder state = new StringBuilder()
+                .append(versions.get(0).getVersion()).append('.').append(versions.get(0).getRequestorVersion());
+        for (ItemRequestVersionView version : versions) {
+            if (version.getItemId() != null) {
+                state.append(';').append(version.getItemId()).append('.').append(version.getItemVersion());
+            }
+        }
+        return DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void validateUser(Long userId) {
+        if (!userCache.exists(userId)) {
+            throw new ObjectNotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+    }
+
+    /**
+     * Автор запроса целиком попадает в ответ, поэтому загружается сразу, а не через кэш и ссылку.
+     */
+    private User findUser(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new ObjectNotFoundException("Пользователь с id = " + userId + " не найден"));
     }
 
+    /**
+     * Вещи всех запросов загружаются одним запросом и раскладываются по id запроса за один проход,
+     * каждый запрос получает только свои вещи.
+     */
     private List<ItemRequestDtoWithItems> addItemsToRequest(List<ItemRequest> itemRequests) {
         List<Long> requestIds = itemRequests.stream()
                 .map(ItemRequest::getId).collect(Collectors.toList());
-        List<Item> items = itemRepository.findByRequestIdIn(requestIds);
+        Map<Long, List<ItemDto>> itemsByRequestId = itemRepository.findByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId(),
+                        Collectors.mapping(ItemMapper::toItemDto, Collectors.toList())));
         return itemRequests.stream()
-                .map(itemRequest -> {
-                    List<ItemDto> itemDtos = items.stream()
-                            .map(ItemMapper::toItemDto)
-                            .collect(Collectors.toList());
-                    return ItemRequestMapper.toItemRequestDtoWithItems(itemRequest, itemDtos);
-                })
+                .map(itemRequest -> ItemRequestMapper.toItemRequestDtoWithItems(itemRequest,
+                        itemsByRequestId.getOrDefault(itemRequest.getId(), Collections.emptyList())))
                 .collect(Collectors.toList());
     }
 }
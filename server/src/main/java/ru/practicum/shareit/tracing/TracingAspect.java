@@ -0,0 +1,80 @@
+package ru.practicum.shareit.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Отрезки INTERNAL на вызовы контроллеров, сервисов и репозиториев внутри трассы запроса, с тегом layer.
+ * Вне трассы (планировщики, запуск приложения) вызовы не отслеживаются. Отрезок метода, вернувшего
+ * CompletionStage, завершается вместе с ним.
+ */
+@Aspect
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("@within(org.springframework.web.bind.annotation.RestController)")
+    public Object controller(ProceedingJoinPoint point) throws Throwable {
+        return trace(point, "controller");
+    }
+
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object service(ProceedingJoinPoint point) throws Throwable {
+        return trace(point, "service");
+    }
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object repository(ProceedingJoinPoint point) throws Throwable {
+        return trace(point, "repository");
+    }
+
+    private Object trace(ProceedingJoinPoint point, String layer) throws Throwable {
+        if (Tracer.current() == null) {
+            return point.proceed();
+        }
+        Span span = tracer.startSpan(type(point.getTarget()).getSimpleName() + "." + point.getSignature().getName(),
+                Span.Kind.INTERNAL).tag("layer", layer);
+        boolean async = false;
+        try (Tracer.Scope ignored = Tracer.activate(span)) {
+            Object result = point.proceed();
+            if (result instanceof CompletionStage) {
+                async = true;
+                ((CompletionStage<?>) result).whenComplete((value, error) -> {
+                    if (error != null) {
+                        span.error(error);
+                    }
+                    span.finish();
+                });
+            }
+            return result;
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            if (!async) {
+                span.finish();
+            }
+        }
+    }
+
+    /**
+     * Для репозитория Spring Data - его интерфейс, а не прокси.
+     */
+    private static Class<?> type(Object target) {
+        if (target instanceof Repository) {
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(target);
+            return interfaces.length > 0 ? interfaces[0] : target.getClass();
+        }
+        return ClassUtils.getUserClass(target);
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.tracing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.Nullable;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Отрезки jdbc на получение соединения из пула и на выполнение SQL (execute*, тег sql) внутри трассы
+ * запроса. Соединения и запросы оборачиваются прокси, вне трассы прокси только передает вызовы дальше.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<Tracer> tracer;
+
+    public TracingDataSource(DataSource target, ObjectProvider<Tracer> tracer) {
+        super(target);
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return traced("jdbc getConnection", null, () -> wrap(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return traced("jdbc getConnection", null, () -> wrap(super.getConnection(username, password)));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String
+                                ? (String) args[0] : null;
+                        return wrap((Statement) result, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * sql - запрос PreparedStatement; у Statement запрос передается в execute.
+     */
+    private Object wrap(Statement statement, Class<?> type, @Nullable String sql) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    String executed = args != null && args.length > 0 && args[0] instanceof String
+                            ? (String) args[0] : sql;
+                    return traced("jdbc " + method.getName(), executed, () -> invoke(statement, method, args));
+                });
+    }
+
+    private <T> T traced(String name, @Nullable String sql, JdbcCall<T> call) throws SQLException {
+        if (Tracer.current() == null) {
+            return call.call();
+        }
+        Span span = tracer.getObject().startSpan(name, Span.Kind.INTERNAL).tag("layer", "jdbc");
+        if (sql != null) {
+            span.tag("sql", sql);
+        }
+        try {
+            return call.call();
+        } catch (SQLException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.finish();
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getTargetException();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface JdbcCall<T> {
+
+        T call() throws SQLException;
+    }
+}
@@ -26,6 +26,10 @@ public class User {
     @Column(name = "email", nullable = false, unique = true)
     private String email;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
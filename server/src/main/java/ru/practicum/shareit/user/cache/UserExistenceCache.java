@@ -0,0 +1,65 @@
+package ru.practicum.shareit.user.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+
+import static ru.practicum.shareit.config.TransactionCallbacks.afterCommit;
+
+/**
+ * Кэш существующих пользователей для проверки заголовка X-Sharer-User-Id без загрузки сущности.
+ * Хранятся только найденные id: отсутствующий пользователь может появиться, а удаленный сразу вытесняется.
+ * Статистика попаданий публикуется в actuator как метрики cache.gets с тегом cache=users.
+ */
+@Component
+public class UserExistenceCache {
+
+    private final UserRepository userRepository;
+
+    private final Cache<Long, Boolean> cache;
+
+    public UserExistenceCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                              @Value("${shareit.users.cache.ttl:10m}") Duration ttl,
+                              @Value("${shareit.users.cache.max-size:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    public boolean exists(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        if (cache.getIfPresent(userId) != null) {
+            return true;
+        }
+        boolean exists = userRepository.existsById(userId);
+        if (exists) {
+            cache.put(userId, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    public void add(Long userId) {
+        afterCommit(() -> cache.put(userId, Boolean.TRUE));
+    }
+
+    /**
+     * Вытесняет пользователя сразу и еще раз после коммита, чтобы параллельная проверка
+     * до коммита не вернула его в кэш.
+     */
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+        afterCommit(() -> cache.invalidate(userId));
+    }
+}
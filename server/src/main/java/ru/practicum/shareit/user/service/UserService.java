@@ -10,6 +10,8 @@ public interface UserService {
 
     UserDto getUserById(Long userId);
 
+    String getUserETag(Long userId);
+
     UserDto create(UserDto userDto);
 
     UserDto update(Long userDtoId, UserDto userDto);
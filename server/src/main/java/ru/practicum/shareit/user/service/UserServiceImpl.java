@@ -1,20 +1,29 @@
 package ru.practicum.shareit.user.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.availability.BookingAvailabilityIndex;
 import ru.practicum.shareit.exception.model.ObjectNotFoundException;
 import ru.practicum.shareit.exception.model.ValidationException;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import static ru.practicum.shareit.logging.SamplingTurboFilter.SAMPLED;
+
 @Service
+@Timed(value = "shareit.service", description = "Время методов сервисов")
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
@@ -22,13 +31,24 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository repository;
 
+    private final ItemSearchEngine searchEngine;
+
+    private final UserExistenceCache userCache;
+
+    private final ItemDashboardService dashboardService;
+
+    private final BookingAvailabilityIndex availabilityIndex;
+
     @Override
     @Transactional(readOnly = true)
     public List<UserDto> getAllUsers() {
-        log.info("Получили список всех пользователей");
-        return repository.findAll()
+        List<UserDto> users = repository.findAll()
                 .stream().map(UserMapper::toUserDto)
                 .collect(Collectors.toList());
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Получили всех пользователей count={}", users.size());
+        }
+        return users;
     }
 
     @Override
@@ -36,17 +56,28 @@ public class UserServiceImpl implements UserService {
     public UserDto getUserById(Long userId) {
         User user = repository.findById(userId)
                 .orElseThrow(() -> new ObjectNotFoundException("Пользователь с id = " + userId + " не найден"));
-        log.info("Получили пользователя по id = {}", userId);
+        if (log.isInfoEnabled(SAMPLED)) {
+            log.info(SAMPLED, "Получили пользователя userId={}", userId);
+        }
         return UserMapper.toUserDto(user);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public String getUserETag(Long userId) {
+        return repository.findVersionById(userId)
+                .map(String::valueOf)
+                .orElseThrow(() -> new ObjectNotFoundException("Пользователь с id = " + userId + " не найден"));
+    }
+
     @Override
     public UserDto create(UserDto userDto) {
         User user = UserMapper.toUser(userDto);
         User userFromDB = new User();
         try {
             userFromDB = repository.save(user);
-            log.info("Создан пользователь {}", userFromDB);
+            userCache.add(userFromDB.getId());
+            log.info("Создан пользователь userId={}", userFromDB.getId());
         } catch (RuntimeException exception) {
             if (exception.getMessage().contains("uq_user_email")) {
                 throw new ValidationException("Пользователь с email = " + user.getEmail() + " уже зарегистрирован");
@@ -60,11 +91,13 @@ public class UserServiceImpl implements UserService {
         User user = repository.findById(userDtoId)
                 .orElseThrow(() -> new ObjectNotFoundException("Пользователь" +
                         "с id = " + userDtoId + " не найден"));
+        boolean renamed = false;
         if (userDto.getName() != null) {
             if (userDto.getName().isBlank()) {
                 log.error("Поле name не должно быть пустым");
                 throw new ValidationException("Поле name не должно быть пустым");
             }
+            renamed = !userDto.getName().equals(user.getName());
             user.setName(userDto.getName());
         }
         if (userDto.getEmail() != null) {
@@ -74,13 +107,23 @@ public class UserServiceImpl implements UserService {
             }
             user.setEmail(userDto.getEmail());
         }
-        log.info("Обновили пользователя с id = {}", userDtoId);
-        return UserMapper.toUserDto(repository.save(user));
+        user = repository.save(user);
+        if (renamed) {
+            dashboardService.onAuthorRenamed(userDtoId);
+        }
+        userCache.evict(userDtoId);
+        log.info("Обновили пользователя userId={}", userDtoId);
+        return UserMapper.toUserDto(user);
     }
 
     @Override
     public void deleteUserById(Long userDtoId) {
+        Set<Long> itemIds = dashboardService.onUserDeleting(userDtoId);
+        availabilityIndex.onUserDeleting(userDtoId);
         repository.deleteById(userDtoId);
-        log.info("Удалили пользователя по id = {}", userDtoId);
+        dashboardService.onUserDeleted(itemIds);
+        userCache.evict(userDtoId);
+        searchEngine.removeByOwnerId(userDtoId);
+        log.info("Удалили пользователя userId={}", userDtoId);
     }
 }
@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS users, requests, items, bookings, comments CASCADE;
-
 CREATE TABLE users (
 id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
 name VARCHAR(255) NOT NULL,
@@ -0,0 +1,22 @@
+-- Списки бронирований арендатора: по всем состояниям и по курсору (start_date, id)
+CREATE INDEX ix_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+
+-- Списки бронирований арендатора со статусом WAITING и REJECTED
+CREATE INDEX ix_bookings_booker_status_start ON bookings (booker_id, status, start_date DESC, id DESC);
+
+-- Бронирования вещей владельца, последнее и следующее бронирование, проверка пересечений
+CREATE INDEX ix_bookings_item_start ON bookings (item_id, start_date DESC, id DESC);
+
+-- Проверка, что автор комментария брал вещь в аренду
+CREATE INDEX ix_bookings_item_booker_end ON bookings (item_id, booker_id, end_date);
+
+CREATE INDEX ix_items_owner ON items (owner_id, id);
+
+CREATE INDEX ix_items_request ON items (request_id);
+
+CREATE INDEX ix_comments_item ON comments (item_id);
+
+-- Каскадное удаление комментариев вместе с пользователем
+CREATE INDEX ix_comments_author ON comments (author_id);
+
+CREATE INDEX ix_requests_requestor_created ON requests (requestor_id, created DESC);
@@ -0,0 +1,6 @@
+CREATE TABLE item_dashboards (
+item_id BIGINT PRIMARY KEY,
+valid_until TIMESTAMP WITHOUT TIME ZONE NULL,
+document TEXT NOT NULL,
+CONSTRAINT fk_dashboard_of_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
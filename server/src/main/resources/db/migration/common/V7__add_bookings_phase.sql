@@ -0,0 +1,20 @@
+-- Фаза бронирования относительно текущего времени: FUTURE, CURRENT или PAST.
+-- Границы, прошедшие после миграции, догонит BookingPhaseScheduler при старте сервера.
+ALTER TABLE bookings ADD COLUMN phase VARCHAR(7);
+
+UPDATE bookings SET phase = CASE
+    WHEN end_date <= LOCALTIMESTAMP THEN 'PAST'
+    WHEN start_date > LOCALTIMESTAMP THEN 'FUTURE'
+    ELSE 'CURRENT'
+END;
+
+ALTER TABLE bookings ALTER COLUMN phase SET NOT NULL;
+
+-- Списки бронирований арендатора в состояниях CURRENT, PAST и FUTURE
+CREATE INDEX ix_bookings_booker_phase_start ON bookings (booker_id, phase, start_date DESC, id DESC);
+
+-- Бронирования вещей владельца в состояниях CURRENT, PAST и FUTURE
+CREATE INDEX ix_bookings_item_phase_start ON bookings (item_id, phase, start_date DESC, id DESC);
+
+-- Пополнение очереди BookingPhaseScheduler: ближайшие начала и концы бронирований
+CREATE INDEX ix_bookings_phase_start ON bookings (phase, start_date);
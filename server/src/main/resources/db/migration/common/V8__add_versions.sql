@@ -0,0 +1,9 @@
+-- Версии строк для оптимистической блокировки и ETag ответов GET /users/{id}, /items/{id}, /requests/{id}.
+-- Версия вещи растет и при изменении ее бронирований и комментариев, см. ItemDashboardService.
+ALTER TABLE users ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE requests ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE items ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE bookings ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
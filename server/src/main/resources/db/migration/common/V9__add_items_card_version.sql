@@ -0,0 +1,3 @@
+-- Версия карточки вещи для ETag ответа GET /items/{id}: растет при изменении бронирований и комментариев вещи,
+-- см. ItemDashboardService. Колонка version остается версией строки для оптимистической блокировки.
+ALTER TABLE items ADD COLUMN card_version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,2 @@
+-- H2 не поддерживает частичные индексы, эти запросы обслуживает ix_bookings_item_start.
+-- Миграция оставлена пустой, чтобы номера версий совпадали с PostgreSQL.
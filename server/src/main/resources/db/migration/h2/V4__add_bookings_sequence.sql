@@ -0,0 +1,6 @@
+-- См. миграцию для PostgreSQL. База H2 создается пустой при каждом запуске, поэтому последовательность
+-- начинается с 1 без сдвига за максимальный id.
+CREATE SEQUENCE bookings_seq INCREMENT BY 50;
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT NEXT VALUE FOR bookings_seq;
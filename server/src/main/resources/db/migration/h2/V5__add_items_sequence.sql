@@ -0,0 +1,5 @@
+-- См. миграцию для PostgreSQL и V4 для H2.
+CREATE SEQUENCE items_seq INCREMENT BY 50;
+
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE items ALTER COLUMN id SET DEFAULT NEXT VALUE FOR items_seq;
@@ -0,0 +1,7 @@
+-- Одобренные бронирования одной вещи не пересекаются по датам. Одобрение не блокирует строку вещи,
+-- поэтому параллельные одобрения разных бронирований разводит это ограничение, а не проверка в приложении.
+-- Интервал [start_date, end_date) полуоткрытый, как в BookingRepository.existsOverlapping.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE bookings ADD CONSTRAINT ex_bookings_approved_overlap
+    EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status = 'APPROVED');
@@ -0,0 +1,5 @@
+-- Последнее и следующее бронирование вещи: отклоненные бронирования не участвуют
+CREATE INDEX ix_bookings_item_active_start ON bookings (item_id, start_date) WHERE status <> 'REJECTED';
+
+-- Проверка пересечения с одобренными бронированиями вещи
+CREATE INDEX ix_bookings_item_approved ON bookings (item_id, start_date, end_date) WHERE status = 'APPROVED';
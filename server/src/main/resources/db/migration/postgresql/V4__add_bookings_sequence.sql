@@ -0,0 +1,8 @@
+-- Идентификаторы бронирований выдает последовательность с шагом 50: Hibernate резервирует сразу 50 значений
+-- (оптимизатор pooled-lo) и может отправлять вставки пакетами. Значения по умолчанию для вставок в обход
+-- приложения берутся из той же последовательности и не пересекаются с резервом Hibernate.
+CREATE SEQUENCE bookings_seq INCREMENT BY 50;
+SELECT setval('bookings_seq', COALESCE((SELECT MAX(id) FROM bookings), 0) + 1, false);
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT nextval('bookings_seq');
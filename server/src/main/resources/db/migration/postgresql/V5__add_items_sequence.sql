@@ -0,0 +1,7 @@
+-- Идентификаторы вещей, как и бронирований (V4), выдает последовательность с шагом 50,
+-- чтобы импорт вещей отправлял вставки пакетами.
+CREATE SEQUENCE items_seq INCREMENT BY 50;
+SELECT setval('items_seq', COALESCE((SELECT MAX(id) FROM items), 0) + 1, false);
+
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE items ALTER COLUMN id SET DEFAULT nextval('items_seq');
@@ -0,0 +1,200 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Условные GET /items/{id}, /users/{id} и /requests/{id}: 304 одним запросом версии, новый ETag после
+ * любого изменения, которое видно в ответе.
+ */
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.practicum.shareit.StatementCounter$SequenceCalls"
+})
+class ConditionalGetIntegrationTest {
+
+    private static final String HEADER = "X-Sharer-User-Id";
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private EntityManager manager;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private UserExistenceCache userCache;
+
+    private StatementCounter counter;
+
+    private User owner;
+
+    private User booker;
+
+    private Item item;
+
+    private ItemRequest request;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = persistUser("Tom", "tom@etag.ru");
+        booker = persistUser("Rick", "rick@etag.ru");
+        item = new Item();
+        item.setName("tool");
+        item.setDescription("good");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        manager.persist(item);
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(NOW.minusDays(3));
+        booking.setEnd(NOW.minusDays(2));
+        booking.setStatus(BookingStatus.APPROVED);
+        manager.persist(booking);
+        Comment comment = new Comment();
+        comment.setText("good tool");
+        comment.setItem(item);
+        comment.setAuthor(booker);
+        comment.setCreated(NOW.minusDays(1));
+        manager.persist(comment);
+        request = new ItemRequest();
+        request.setDescription("need a saw");
+        request.setRequestor(booker);
+        request.setCreated(NOW);
+        manager.persist(request);
+        manager.flush();
+        userCache.exists(owner.getId());
+        userCache.exists(booker.getId());
+        counter = new StatementCounter(manager);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForUnchangedItemWithOneQuery() throws Throwable {
+        String eTag = eTag("/items/" + item.getId(), booker);
+
+        long statements = counter.count(() -> mvc.perform(get("/items/{id}", item.getId())
+                        .header(HEADER, booker.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string("")));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void shouldChangeOwnerItemETagWhenBookingIsCreated() throws Exception {
+        String ownerETag = eTag("/items/" + item.getId(), owner);
+        assertNotEquals(ownerETag, eTag("/items/" + item.getId(), booker));
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(item.getId())
+                .start(NOW.plusDays(1))
+                .end(NOW.plusDays(2))
+                .build();
+        mvc.perform(post("/bookings")
+                        .header(HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(bookingDto)))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/items/{id}", item.getId())
+                        .header(HEADER, owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, ownerETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextBooking.bookerId").value(booker.getId()));
+    }
+
+    @Test
+    void shouldChangeItemETagWhenCommentAuthorIsRenamed() throws Exception {
+        String itemETag = eTag("/items/" + item.getId(), owner);
+        String userETag = eTag("/users/" + booker.getId(), owner);
+
+        mvc.perform(patch("/users/{id}", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(Map.of("name", "Richard"))))
+                .andExpect(status().isOk());
+
+        assertNotEquals(userETag, eTag("/users/" + booker.getId(), owner));
+        mvc.perform(get("/items/{id}", item.getId())
+                        .header(HEADER, owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, itemETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments[0].authorName").value("Richard"));
+    }
+
+    @Test
+    void shouldChangeRequestETagWhenItemIsAddedForRequest() throws Exception {
+        String eTag = eTag("/requests/" + request.getId(), owner);
+        mvc.perform(get("/requests/{id}", request.getId())
+                        .header(HEADER, owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        ItemDto itemDto = ItemDto.builder()
+                .name("saw")
+                .description("sharp")
+                .available(true)
+                .requestId(request.getId())
+                .build();
+
+        mvc.perform(post("/items")
+                        .header(HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(itemDto)))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/requests/{id}", request.getId())
+                        .header(HEADER, owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("saw"));
+    }
+
+    private String eTag(String path, User viewer) throws Exception {
+        return mvc.perform(get(path).header(HEADER, viewer.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private User persistUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        manager.persist(user);
+        return user;
+    }
+}
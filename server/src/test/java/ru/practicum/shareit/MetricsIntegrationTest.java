@@ -0,0 +1,89 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Метрики сервисов и SQL-запросов на HTTP-запрос и их выгрузка в формате Prometheus. Реестр общий
+ * для всех тестов с тем же контекстом, поэтому сравниваются значения до и после запроса.
+ * Без @AutoConfigureMetrics тесты Spring Boot не создают реестр Prometheus.
+ */
+@Transactional
+@AutoConfigureMetrics
+@AutoConfigureMockMvc
+@SpringBootTest
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager manager;
+
+    @Test
+    void shouldTimeServiceMethodsAndCountStatementsPerRequest() throws Exception {
+        User user = new User();
+        user.setName("Tom");
+        user.setEmail("tom@metrics.ru");
+        manager.persist(user);
+        manager.flush();
+        long calls = serviceTimer().map(Timer::count).orElse(0L);
+        long requests = statements().map(DistributionSummary::count).orElse(0L);
+        double total = statements().map(DistributionSummary::totalAmount).orElse(0.0);
+
+        mvc.perform(get("/users")).andExpect(status().isOk());
+
+        assertEquals(calls + 1, serviceTimer().orElseThrow().count());
+        assertEquals(requests + 1, statements().orElseThrow().count());
+        assertEquals(total + 1, statements().orElseThrow().totalAmount());
+    }
+
+    @Test
+    void shouldExportMetricsInPrometheusFormat() throws Exception {
+        mvc.perform(get("/users")).andExpect(status().isOk());
+
+        String scrape = mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/plain;version=0.0.4;charset=utf-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("# TYPE shareit_service_seconds histogram\n"), scrape);
+        assertTrue(scrape.contains("shareit_service_seconds_bucket{class=\"ru.practicum.shareit.user.service"
+                + ".UserServiceImpl\",exception=\"none\",method=\"getAllUsers\",le=\"0.001\",}"), scrape);
+        assertTrue(scrape.contains("shareit_http_statements_bucket{method=\"GET\",uri=\"/users\",le=\"1.0\",}"),
+                scrape);
+        assertTrue(scrape.contains("# TYPE http_server_requests_seconds histogram\n"), scrape);
+    }
+
+    private Optional<Timer> serviceTimer() {
+        return Optional.ofNullable(meterRegistry.find("shareit.service")
+                .tags("class", "ru.practicum.shareit.user.service.UserServiceImpl", "method", "getAllUsers")
+                .timer());
+    }
+
+    private Optional<DistributionSummary> statements() {
+        return Optional.ofNullable(meterRegistry.find("shareit.http.statements")
+                .tags("method", "GET", "uri", "/users")
+                .summary());
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Проверяет по EXPLAIN, что горячие запросы репозиториев читают индексы из миграций, а не всю таблицу.
+ * Запросы повторяют SQL, который Hibernate строит для методов репозиториев.
+ * В PostgreSQL последовательное чтение запрещается на время теста, иначе на пустых таблицах
+ * планировщик всегда выбирает его.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest {
+
+    private static final String TS = "TIMESTAMP '2023-03-01 12:00:00'";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private boolean postgres;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+        postgres = product.toLowerCase().contains("postgres");
+        if (postgres) {
+            jdbc.execute("SET enable_seqscan = off");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        // BookingRepository: списки арендатора
+        "SELECT * FROM bookings b WHERE b.booker_id = 1 ORDER BY b.start_date DESC",
+        "SELECT * FROM bookings b WHERE b.booker_id = 1 AND b.phase = 'PAST' ORDER BY b.start_date DESC",
+        "SELECT * FROM bookings b WHERE b.booker_id = 1 AND b.status = 'WAITING' ORDER BY b.start_date DESC",
+        "SELECT * FROM bookings b WHERE b.booker_id = 1 AND b.start_date <= " + TS
+                + " AND (b.start_date < " + TS + " OR b.id < 10) ORDER BY b.start_date DESC, b.id DESC",
+        // BookingRepository: списки владельца
+        "SELECT b.* FROM bookings b JOIN items i ON b.item_id = i.id WHERE i.owner_id = 1 "
+                + "ORDER BY b.start_date DESC",
+        "SELECT b.* FROM bookings b JOIN items i ON b.item_id = i.id WHERE i.owner_id = 1 AND b.phase = 'CURRENT' "
+                + "ORDER BY b.start_date DESC",
+        // BookingRepository: пополнение очереди BookingPhaseScheduler
+        "SELECT * FROM bookings b WHERE b.phase = 'FUTURE' AND b.start_date <= " + TS,
+        "SELECT * FROM bookings b WHERE b.phase = 'CURRENT' AND b.end_date <= " + TS,
+        // BookingRepository: бронирования вещи
+        "SELECT * FROM bookings b WHERE b.item_id = 1",
+        "SELECT * FROM bookings b WHERE b.item_id IN (1, 2) AND b.status <> 'REJECTED' AND b.start_date < " + TS,
+        "SELECT * FROM bookings b WHERE b.item_id = 1 AND b.status = 'APPROVED' AND b.start_date < " + TS
+                + " AND b.end_date > " + TS,
+        "SELECT * FROM bookings b WHERE b.status <> 'REJECTED' AND b.item_id = 1 AND b.booker_id = 2 "
+                + "ORDER BY b.end_date",
+        // ItemRepository
+        "SELECT * FROM items i WHERE i.owner_id = 1",
+        "SELECT * FROM items i WHERE i.request_id = 1",
+        "SELECT * FROM items i WHERE i.request_id IN (1, 2)",
+        // CommentRepository
+        "SELECT * FROM comments c WHERE c.item_id = 1",
+        "SELECT * FROM comments c WHERE c.item_id IN (1, 2)",
+        // ItemRequestRepository
+        "SELECT * FROM requests r WHERE r.requestor_id = 1"
+    })
+    void shouldUseIndex(String query) {
+        String plan = String.join("\n", explain(query));
+
+        assertFalse(plan.contains("tableScan") || plan.contains("Seq Scan"),
+                () -> "Запрос читает всю таблицу:\n" + query + "\n" + plan);
+    }
+
+    private List<String> explain(String query) {
+        return jdbc.queryForList("EXPLAIN " + query, String.class);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.function.Executable;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Считает SQL-запросы, которые Hibernate отправил в базу за время действия.
+ * Перед действием контекст сохраняется и очищается, чтобы ленивые связи не брались из кэша первого уровня,
+ * после действия изменения сохраняются, чтобы в счет попали и запросы на запись.
+ * Обращения к последовательностям не считаются: Hibernate берет из bookings_seq сразу 50 идентификаторов,
+ * и попадет ли следующее обращение в действие, зависит от предыдущих тестов.
+ * Требует hibernate.generate_statistics=true и hibernate.session_factory.statement_inspector=SequenceCalls.
+ */
+public class StatementCounter {
+
+    private final EntityManager manager;
+
+    private final Statistics statistics;
+
+    public StatementCounter(EntityManager manager) {
+        this.manager = manager;
+        this.statistics = manager.unwrap(Session.class).getSessionFactory().getStatistics();
+    }
+
+    public long count(Executable action) throws Throwable {
+        manager.flush();
+        manager.clear();
+        statistics.clear();
+        long sequenceCalls = SequenceCalls.COUNT.get();
+        action.execute();
+        manager.flush();
+        return statistics.getPrepareStatementCount() - (SequenceCalls.COUNT.get() - sequenceCalls);
+    }
+
+    /**
+     * Сколько раз за время действия сущность entity была загружена из базы, подготовка контекста как в count.
+     */
+    public long countLoads(Class<?> entity, Executable action) throws Throwable {
+        manager.flush();
+        manager.clear();
+        statistics.clear();
+        action.execute();
+        manager.flush();
+        return statistics.getEntityStatistics(entity.getName()).getLoadCount();
+    }
+
+    public static class SequenceCalls implements StatementInspector {
+
+        private static final AtomicLong COUNT = new AtomicLong();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.contains("next value for") || sql.contains("nextval(")) {
+                COUNT.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+}
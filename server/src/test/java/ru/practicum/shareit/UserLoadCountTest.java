@@ -0,0 +1,138 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Пользователь из заголовка загружается, только если его поля попадают в ответ, и тогда один раз.
+ * Если пользователь нужен только как внешний ключ, хватает кэша существования и ссылки без запроса.
+ */
+@Transactional
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserLoadCountTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private EntityManager manager;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ItemRequestService requestService;
+
+    @Autowired
+    private UserExistenceCache userCache;
+
+    private StatementCounter counter;
+
+    private User owner;
+
+    private User booker;
+
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = persistUser("Tom", "tom@loads.ru");
+        booker = persistUser("Rick", "rick@loads.ru");
+        item = new Item();
+        item.setName("tool");
+        item.setDescription("good");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        manager.persist(item);
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(NOW.minusDays(3));
+        booking.setEnd(NOW.minusDays(2));
+        booking.setStatus(BookingStatus.APPROVED);
+        manager.persist(booking);
+        manager.flush();
+        userCache.exists(owner.getId());
+        userCache.exists(booker.getId());
+        counter = new StatementCounter(manager);
+    }
+
+    @Test
+    void shouldNotLoadOwnerWhenCreatingItem() throws Throwable {
+        ItemDto itemDto = ItemDto.builder()
+                .name("saw")
+                .description("sharp")
+                .available(true)
+                .build();
+
+        assertEquals(0, counter.countLoads(User.class, () -> itemService.createItemDto(owner.getId(), itemDto)));
+    }
+
+    @Test
+    void shouldLoadBookerOnceWhenCreatingBooking() throws Throwable {
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(item.getId())
+                .start(NOW.plusDays(1))
+                .end(NOW.plusDays(2))
+                .build();
+
+        long loads = counter.countLoads(User.class, () -> assertEquals(booker.getName(),
+                bookingService.create(booker.getId(), bookingDto).getBooker().getName()));
+
+        assertEquals(1, loads);
+    }
+
+    @Test
+    void shouldLoadAuthorOnceWhenCreatingComment() throws Throwable {
+        CommentDto commentDto = CommentDto.builder()
+                .text("good tool")
+                .build();
+
+        long loads = counter.countLoads(User.class, () -> assertEquals(booker.getName(),
+                itemService.createComment(commentDto, booker.getId(), item.getId()).getAuthorName()));
+
+        assertEquals(1, loads);
+    }
+
+    @Test
+    void shouldLoadRequestorOnceWhenCreatingRequest() throws Throwable {
+        ItemRequestDto requestDto = ItemRequestDto.builder()
+                .description("need a ladder")
+                .build();
+
+        long loads = counter.countLoads(User.class, () -> assertEquals(booker.getEmail(),
+                requestService.createRequest(booker.getId(), requestDto).getRequestor().getEmail()));
+
+        assertEquals(1, loads);
+    }
+
+    private User persistUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        manager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,211 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.support.JdbcUtils;
+import ru.practicum.shareit.booking.availability.BookingAvailabilityIndex;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.model.BookingApproveException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Параллельные одобрения в отдельных транзакциях. Данные коммитятся, поэтому тест без @Transactional
+ * и удаляет своих пользователей после себя, бронирования и вещи удаляются каскадом. Между проверкой
+ * пересечений и коммитом стоит пауза, чтобы одобрения гарантированно выполнялись одновременно. Число попыток
+ * одобрения - рабочее, shareit.booking.approve.attempts=3.
+ * Здесь проверка идет запросом к базе, {@link IndexBookingApprovalConcurrencyTest} повторяет тесты с индексом.
+ * Без индекса одновременные одобрения пересекающихся бронирований разводит только ограничение
+ * ex_bookings_approved_overlap, которое есть лишь в PostgreSQL, поэтому на H2 этот тест пропускается.
+ */
+@SpringBootTest
+class BookingApprovalConcurrencyTest {
+
+    static final int THREADS = 8;
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private BookingService service;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${shareit.booking.availability}")
+    private String availability;
+
+    @SpyBean
+    private BookingAvailabilityIndex availabilityIndex;
+
+    private User owner;
+
+    private User booker;
+
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        doAnswer(invocation -> {
+            Object approved = invocation.callRealMethod();
+            TimeUnit.MILLISECONDS.sleep(100);
+            return approved;
+        }).when(availabilityIndex).tryApprove(any());
+        owner = saveUser("Tom", "tom@race.ru");
+        booker = saveUser("Rick", "rick@race.ru");
+        item = new Item();
+        item.setName("tool");
+        item.setDescription("good");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item = itemRepository.save(item);
+    }
+
+    @AfterEach
+    void afterEach() {
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    void shouldApproveOnlyOneOfOverlappingBookings() throws Exception {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+        assumeTrue("index".equals(availability) || product.toLowerCase().contains("postgres"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            ids.add(book(NOW.plusDays(1).plusHours(i), NOW.plusDays(2).plusHours(i)));
+        }
+
+        List<Throwable> errors = race(i -> () -> service.updateBookingStatusByOwner(owner.getId(), ids.get(i), true));
+
+        assertEquals(THREADS - 1, errors.stream().filter(BookingApproveException.class::isInstance).count());
+        assertEquals(1, statuses(ids).stream().filter(BookingStatus.APPROVED::equals).count());
+    }
+
+    @Test
+    void shouldApproveSameBookingOnce() throws Exception {
+        Long id = book(NOW.plusDays(1), NOW.plusDays(2));
+
+        List<Throwable> errors = race(i -> () -> service.updateBookingStatusByOwner(owner.getId(), id, true));
+
+        assertEquals(THREADS - 1, errors.size());
+        errors.forEach(error -> assertEquals("Бронирование вещи с id = " + item.getId() + " уже одобрено",
+                error.getMessage()));
+        Booking booking = bookingRepository.findById(id).orElseThrow();
+        assertEquals(BookingStatus.APPROVED, booking.getStatus());
+        assertEquals(1, booking.getVersion());
+    }
+
+    @Test
+    void shouldApproveAllBookingsWithoutOverlap() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            ids.add(book(NOW.plusDays(1 + i * 2), NOW.plusDays(2 + i * 2)));
+        }
+
+        List<Throwable> errors = race(i -> () -> service.updateBookingStatusByOwner(owner.getId(), ids.get(i), true));
+
+        assertEquals(List.of(), errors);
+        assertTrue(statuses(ids).stream().allMatch(BookingStatus.APPROVED::equals));
+    }
+
+    @Test
+    void shouldApproveBookingsWhileOtherBookingsAreCreated() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            ids.add(book(NOW.plusDays(1 + i * 2), NOW.plusDays(2 + i * 2)));
+        }
+
+        List<Throwable> errors = race(i -> i % 2 == 0
+                ? () -> service.updateBookingStatusByOwner(owner.getId(), ids.get(i), true)
+                : () -> book(NOW.plusDays(40 + i), NOW.plusDays(41 + i)));
+
+        assertEquals(List.of(), errors);
+        assertEquals(THREADS / 2, statuses(ids).stream().filter(BookingStatus.APPROVED::equals).count());
+    }
+
+    /**
+     * Запускает THREADS вызовов одновременно и возвращает исключения неуспешных.
+     */
+    private List<Throwable> race(IntFunction<Callable<?>> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Callable<?> task = call.apply(i);
+            results.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<Throwable> errors = new ArrayList<>();
+        for (Future<?> result : results) {
+            try {
+                result.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                errors.add(e.getCause());
+            }
+        }
+        executor.shutdown();
+        return errors;
+    }
+
+    private Long book(LocalDateTime start, LocalDateTime end) {
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(end)
+                .build();
+        return service.create(booker.getId(), bookingDto).getId();
+    }
+
+    private List<BookingStatus> statuses(List<Long> ids) {
+        List<BookingStatus> statuses = new ArrayList<>();
+        bookingRepository.findAllById(ids).forEach(booking -> statuses.add(booking.getStatus()));
+        return statuses;
+    }
+
+    private User saveUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        return userRepository.save(user);
+    }
+}
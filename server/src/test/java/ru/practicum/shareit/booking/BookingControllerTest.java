@@ -10,16 +10,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.model.ObjectNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -100,6 +105,28 @@ class BookingControllerTest {
                 .create(anyLong(), any());
     }
 
+    @SneakyThrows
+    @Test
+    void shouldCreateBatchOfBookings() {
+        when(service.createBatch(anyLong(), anyList()))
+                .thenReturn(List.of(BookingBatchResultDto.created(0, bookingOutDto),
+                        BookingBatchResultDto.rejected(1, "Вещь с id = 99 не найдена")));
+
+        mvc.perform(post(URL + "/batch")
+                .header(HEADER, 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(List.of(bookingDto, bookingDto))))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$[0].index").value(0),
+                        jsonPath("$[0].booking.id", Matchers.is(bookingOutDto.getId()), Long.class),
+                        jsonPath("$[1].index").value(1),
+                        jsonPath("$[1].error").value("Вещь с id = 99 не найдена")
+                );
+        verify(service, times(1))
+                .createBatch(anyLong(), argThat(bookings -> bookings.size() == 2));
+    }
+
     @SneakyThrows
     @Test
     void shouldUpdateBookingStatusByOwnerWhenApproved() {
@@ -231,4 +258,104 @@ class BookingControllerTest {
         verify(service, times(1))
                 .findAllBookingsForItemsOfUser(anyLong(), any(), anyInt(), anyInt());
     }
-}
\ No newline at end of file
+
+    @SneakyThrows
+    @Test
+    void shouldFindAllUsersBookingAfterCursorAndReturnNextCursor() {
+        BookingCursor after = BookingCursor.after(bookingOutDto);
+        when(service.findAllUsersBookingByState(anyLong(), any(), any(BookingCursor.class), anyInt()))
+                .thenReturn(List.of(bookingOutDto));
+
+        mvc.perform(get(URL)
+                        .header(HEADER, 1L)
+                        .param("size", "1")
+                        .param("after", after.encode()))
+                .andExpectAll(
+                        status().isOk(),
+                        header().string(BookingController.NEXT_CURSOR_HEADER, after.encode()),
+                        jsonPath("$[0].id", Matchers.is(bookingOutDto.getId()), Long.class)
+                );
+        verify(service, times(1))
+                .findAllUsersBookingByState(eq(1L), any(), argThat((BookingCursor cursor) ->
+                        cursor.getId().equals(bookingOutDto.getId())
+                                && cursor.getStart().equals(bookingOutDto.getStart())), eq(1));
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldFindAllBookingsForItemsOfUserFromFirstPageWithoutNextCursorWhenPageIsNotFull() {
+        when(service.findAllBookingsForItemsOfUser(anyLong(), any(), any(BookingCursor.class), anyInt()))
+                .thenReturn(List.of(bookingOutDto));
+
+        mvc.perform(get(URL + "/owner")
+                        .header(HEADER, 1L)
+                        .param("state", "ALL")
+                        .param("size", "10")
+                        .param("after", ""))
+                .andExpectAll(
+                        status().isOk(),
+                        header().doesNotExist(BookingController.NEXT_CURSOR_HEADER),
+                        jsonPath("$[0].id", Matchers.is(bookingOutDto.getId()), Long.class)
+                );
+        verify(service, times(1))
+                .findAllBookingsForItemsOfUser(anyLong(), any(), eq(BookingCursor.FIRST), eq(10));
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldReturnBadRequestWhenCursorIsInvalid() {
+        mvc.perform(get(URL)
+                        .header(HEADER, 1L)
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        verify(service, never())
+                .findAllUsersBookingByState(anyLong(), any(), any(BookingCursor.class), anyInt());
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldExportAllUsersBookingsAsNdjson() {
+        BookingOutDto second = BookingOutDto.builder()
+                .id(2L)
+                .item(bookingOutDto.getItem())
+                .booker(bookingOutDto.getBooker())
+                .build();
+        doAnswer(invocation -> {
+            Consumer<BookingOutDto> action = invocation.getArgument(1);
+            action.accept(bookingOutDto);
+            action.accept(second);
+            return null;
+        }).when(service).exportAllUsersBookings(eq(1L), any());
+
+        MvcResult result = mvc.perform(get(URL + "/export")
+                        .header(HEADER, 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentType(MediaType.APPLICATION_NDJSON),
+                        content().string(mapper.writeValueAsString(bookingOutDto) + "\n"
+                                + mapper.writeValueAsString(second) + "\n")
+                );
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldReturnNotFoundWhenExportBookingsOfUnknownUser() {
+        doThrow(new ObjectNotFoundException("Пользователь с id = 99 не найден"))
+                .when(service).checkExportUser(99L);
+
+        mvc.perform(get(URL + "/export")
+                        .header(HEADER, 99L)
+                        .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        request().asyncNotStarted(),
+                        status().isNotFound(),
+                        content().contentType(MediaType.APPLICATION_JSON),
+                        jsonPath("$.error").exists()
+                );
+        verify(service, never()).exportAllUsersBookings(anyLong(), any());
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.model.Booking;
@@ -118,6 +119,39 @@ public class BookingIntegrationTest {
         Assertions.assertThat(result.getItem().getId()).isEqualTo(item.getId());
     }
 
+    @Test
+    void shouldCreateBatchOfBookingsInOneTransaction() {
+        BookingDto first = BookingDto.builder()
+                .itemId(item.getId())
+                .start(NOW.plusDays(6))
+                .end(NOW.plusDays(7))
+                .build();
+        BookingDto overlapsApproved = BookingDto.builder()
+                .itemId(item.getId())
+                .start(NOW.plusDays(1))
+                .end(NOW.plusDays(2))
+                .build();
+        BookingDto second = BookingDto.builder()
+                .itemId(secondItem.getId())
+                .start(NOW.plusDays(6))
+                .end(NOW.plusDays(7))
+                .build();
+
+        List<BookingBatchResultDto> results = service.createBatch(booker.getId(),
+                List.of(first, overlapsApproved, second));
+        manager.flush();
+
+        Assertions.assertThat(results).extracting(BookingBatchResultDto::getIndex).containsExactly(0, 1, 2);
+        Assertions.assertThat(results.get(1).getBooking()).isNull();
+        Assertions.assertThat(results.get(1).getError())
+                .isEqualTo("Вещь с id = " + item.getId() + " уже забронирована на указанные даты");
+        Long firstId = results.get(0).getBooking().getId();
+        Long secondId = results.get(2).getBooking().getId();
+        Assertions.assertThat(firstId).isNotEqualTo(secondId);
+        Assertions.assertThat(manager.find(Booking.class, firstId).getItem().getId()).isEqualTo(item.getId());
+        Assertions.assertThat(manager.find(Booking.class, secondId).getStatus()).isEqualTo(BookingStatus.WAITING);
+    }
+
     @Test
     void shouldUpdateBookingWhenApprove() {
         Assertions.assertThat(service.findByBookingId(booker.getId(), booking.getId()))
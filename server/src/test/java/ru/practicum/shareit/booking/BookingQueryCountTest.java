@@ -0,0 +1,210 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.StatementCounter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Фиксирует число SQL-запросов на каждый эндпоинт бронирований, чтобы ленивые связи
+ * в BookingMapper не превращали страницу бронирований в N+1 запросов.
+ */
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.practicum.shareit.StatementCounter$SequenceCalls"
+})
+class BookingQueryCountTest {
+
+    private static final String HEADER = "X-Sharer-User-Id";
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private static final int BOOKINGS = 10;
+
+    private static final int BATCH = 20;
+
+    @Autowired
+    private EntityManager manager;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private UserExistenceCache userCache;
+
+    @Autowired
+    private ItemDashboardService dashboardService;
+
+    private StatementCounter counter;
+
+    private User owner;
+
+    private User booker;
+
+    private Item item;
+
+    private Booking waiting;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = persistUser("Tom", "tom@count.ru");
+        booker = persistUser("Rick", "rick@count.ru");
+        for (int i = 0; i < BOOKINGS; i++) {
+            item = new Item();
+            item.setName("tool " + i);
+            item.setDescription("good");
+            item.setAvailable(true);
+            item.setOwner(owner);
+            manager.persist(item);
+            waiting = persistBooking(item, NOW.plusDays(i + 1), BookingStatus.WAITING);
+            persistBooking(item, NOW.minusDays(i + 2), BookingStatus.APPROVED);
+        }
+        manager.flush();
+        userCache.exists(owner.getId());
+        userCache.exists(booker.getId());
+        // вещи вставлены мимо сервисов, документы списка вещей для них строятся здесь
+        dashboardService.rebuild();
+        counter = new StatementCounter(manager);
+    }
+
+    /**
+     * Для владельца перед страницей проверяется, что у него есть вещи.
+     */
+    @ParameterizedTest
+    @CsvSource({
+        "/bookings, ALL, 1", "/bookings, CURRENT, 1", "/bookings, PAST, 1", "/bookings, FUTURE, 1",
+        "/bookings, WAITING, 1", "/bookings, REJECTED, 1",
+        "/bookings/owner, ALL, 2", "/bookings/owner, CURRENT, 2", "/bookings/owner, PAST, 2",
+        "/bookings/owner, FUTURE, 2", "/bookings/owner, WAITING, 2", "/bookings/owner, REJECTED, 2"
+    })
+    void shouldLoadPageOfBookingsWithFixedQueries(String url, String state, long expected) throws Throwable {
+        Long userId = url.endsWith("owner") ? owner.getId() : booker.getId();
+
+        long offsetPage = counter.count(() -> mvc.perform(get(url).header(HEADER, userId)
+                        .param("state", state).param("from", "0").param("size", String.valueOf(BOOKINGS)))
+                .andExpect(status().isOk()));
+        long cursorPage = counter.count(() -> mvc.perform(get(url).header(HEADER, userId)
+                        .param("state", state).param("after", "").param("size", String.valueOf(BOOKINGS)))
+                .andExpect(status().isOk()));
+
+        assertEquals(expected, offsetPage);
+        assertEquals(expected, cursorPage);
+    }
+
+    @Test
+    void shouldFindBookingByIdWithOneQuery() throws Throwable {
+        long statements = counter.count(() -> mvc.perform(get("/bookings/{id}", waiting.getId())
+                        .header(HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.booker.name").value(booker.getName()))
+                .andExpect(jsonPath("$.item.name").value(item.getName())));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void shouldApproveBookingWithFixedQueries() throws Throwable {
+        long statements = counter.count(() -> mvc.perform(patch("/bookings/{id}", waiting.getId())
+                        .header(HEADER, owner.getId())
+                        .param("approved", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("APPROVED")));
+
+        // бронирование с вещью и арендатором, условное обновление статуса, проверка пересечений,
+        // версия карточки вещи, документ вещи, обновление документа
+        assertEquals(6, statements);
+    }
+
+    @Test
+    void shouldCreateBookingWithFixedQueries() throws Throwable {
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(item.getId())
+                .start(NOW.plusDays(BOOKINGS + 5))
+                .end(NOW.plusDays(BOOKINGS + 6))
+                .build();
+
+        long statements = counter.count(() -> mvc.perform(post("/bookings")
+                        .header(HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(bookingDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.booker.name").value(booker.getName())));
+
+        // вещь, проверка пересечений, версия вещи, документ вещи, вставка, арендатор для ответа
+        assertEquals(6, statements);
+    }
+
+    @Test
+    void shouldCreateBatchOfBookingsWithFixedQueries() throws Throwable {
+        List<BookingDto> bookingDtos = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            bookingDtos.add(BookingDto.builder()
+                    .itemId(item.getId())
+                    .start(NOW.plusDays(BOOKINGS + 5 + i))
+                    .end(NOW.plusDays(BOOKINGS + 6 + i))
+                    .build());
+        }
+
+        long statements = counter.count(() -> mvc.perform(post("/bookings/batch")
+                        .header(HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(bookingDtos)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(BATCH))
+                .andExpect(jsonPath("$[" + (BATCH - 1) + "].booking.booker.name").value(booker.getName())));
+
+        // вещи, проверка пересечений на каждую запись в режиме jpa, одна пакетная вставка, арендатор для ответа,
+        // версии и документы вещей
+        assertEquals(1 + BATCH + 1 + 1 + 1 + 1, statements);
+    }
+
+    private User persistUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        manager.persist(user);
+        return user;
+    }
+
+    private Booking persistBooking(Item bookedItem, LocalDateTime start, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setItem(bookedItem);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(12));
+        booking.setStatus(status);
+        manager.persist(booking);
+        return booking;
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Те же параллельные одобрения с индексом занятости в памяти, как в рабочей конфигурации.
+ */
+@TestPropertySource(properties = "shareit.booking.availability=index")
+class IndexBookingApprovalConcurrencyTest extends BookingApprovalConcurrencyTest {
+}
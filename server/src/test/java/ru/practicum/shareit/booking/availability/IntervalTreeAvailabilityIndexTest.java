@@ -0,0 +1,130 @@
+package ru.practicum.shareit.booking.availability;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IntervalTreeAvailabilityIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 3, 1, 12, 0);
+
+    @Mock
+    private BookingRepository repository;
+
+    private IntervalTreeAvailabilityIndex index;
+
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        item = new Item();
+        item.setId(1L);
+
+        when(repository.findByStatusNotAndIdGreaterThanOrderByIdAsc(any(), anyLong(), any()))
+                .thenReturn(List.of(booking(1L, NOW, NOW.plusDays(2), BookingStatus.APPROVED),
+                        booking(2L, NOW.plusDays(3), NOW.plusDays(4), BookingStatus.WAITING)));
+        index = new IntervalTreeAvailabilityIndex(repository);
+        index.afterPropertiesSet();
+    }
+
+    @Test
+    void shouldBuildIndexOnStartup() {
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void shouldDetectOverlapOnlyWithApprovedBookings() {
+        assertTrue(index.hasApprovedOverlap(1L, NOW.minusDays(1), NOW.plusHours(1)));
+        assertTrue(index.hasApprovedOverlap(1L, NOW.plusHours(1), NOW.plusHours(2)));
+        assertFalse(index.hasApprovedOverlap(1L, NOW.plusDays(2), NOW.plusDays(3)));
+        assertFalse(index.hasApprovedOverlap(1L, NOW.minusDays(1), NOW));
+        assertFalse(index.hasApprovedOverlap(1L, NOW.plusDays(3), NOW.plusDays(4)));
+        assertFalse(index.hasApprovedOverlap(2L, NOW, NOW.plusDays(1)));
+    }
+
+    @Test
+    void shouldApproveOnlyWhenNoOverlap() {
+        Booking overlapping = booking(3L, NOW.plusDays(1), NOW.plusDays(3), BookingStatus.WAITING);
+        index.update(overlapping);
+
+        assertFalse(index.tryApprove(overlapping));
+        assertTrue(index.tryApprove(booking(2L, NOW.plusDays(3), NOW.plusDays(4), BookingStatus.WAITING)));
+        assertTrue(index.hasApprovedOverlap(1L, NOW.plusDays(3), NOW.plusDays(5)));
+    }
+
+    @Test
+    void shouldRemoveRejectedBooking() {
+        index.update(booking(1L, NOW, NOW.plusDays(2), BookingStatus.REJECTED));
+
+        assertEquals(1, index.size());
+        assertFalse(index.hasApprovedOverlap(1L, NOW, NOW.plusDays(1)));
+    }
+
+    @Test
+    void shouldMatchBruteForceOnRandomBookings() {
+        Random random = new Random(42);
+        List<Booking> approved = new ArrayList<>();
+        for (long id = 10; id < 2_000; id++) {
+            LocalDateTime start = NOW.plusHours(random.nextInt(100_000));
+            Booking booking = booking(id, start, start.plusHours(1 + random.nextInt(48)),
+                    random.nextInt(3) == 0 ? BookingStatus.APPROVED : BookingStatus.WAITING);
+            index.update(booking);
+            if (booking.getStatus() == BookingStatus.APPROVED) {
+                approved.add(booking);
+            }
+        }
+        approved.add(booking(1L, NOW, NOW.plusDays(2), BookingStatus.APPROVED));
+        assertMatchesBruteForce(approved, random);
+
+        List<Booking> remaining = new ArrayList<>();
+        for (int i = 0; i < approved.size(); i++) {
+            Booking booking = approved.get(i);
+            if (i % 2 == 0) {
+                booking.setStatus(BookingStatus.REJECTED);
+                index.update(booking);
+            } else {
+                remaining.add(booking);
+            }
+        }
+        assertMatchesBruteForce(remaining, random);
+    }
+
+    private void assertMatchesBruteForce(List<Booking> approved, Random random) {
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = NOW.plusHours(random.nextInt(100_000));
+            LocalDateTime end = start.plusHours(1 + random.nextInt(24));
+            boolean expected = approved.stream()
+                    .anyMatch(b -> b.getStart().isBefore(end) && b.getEnd().isAfter(start));
+            assertEquals(expected, index.hasApprovedOverlap(1L, start, end));
+        }
+    }
+
+    private Booking booking(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItem(item);
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(status);
+        return booking;
+    }
+}
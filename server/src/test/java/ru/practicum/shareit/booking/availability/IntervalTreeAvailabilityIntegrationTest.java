@@ -0,0 +1,188 @@
+package ru.practicum.shareit.booking.availability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.model.BookingApproveException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Создание и одобрение бронирований с индексом занятости в памяти, как в рабочей конфигурации.
+ * Индекс меняется после коммита, поэтому тест без @Transactional и удаляет своих пользователей после себя,
+ * бронирования и вещи удаляются каскадом.
+ */
+@SpringBootTest(properties = "shareit.booking.availability=index")
+class IntervalTreeAvailabilityIntegrationTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private BookingService service;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User owner;
+
+    private User booker;
+
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = saveUser("Tom", "tom@interval.ru");
+        booker = saveUser("Rick", "rick@interval.ru");
+        item = new Item();
+        item.setName("tool");
+        item.setDescription("good");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item = itemRepository.save(item);
+    }
+
+    @AfterEach
+    void afterEach() {
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    void shouldUseIndex() {
+        assertInstanceOf(IntervalTreeAvailabilityIndex.class, availabilityIndex);
+    }
+
+    @Test
+    void shouldRejectNewBookingOverlappingApprovedOne() {
+        Long id = book(NOW.plusDays(1), NOW.plusDays(3));
+        service.updateBookingStatusByOwner(owner.getId(), id, true);
+
+        assertThrows(BookingApproveException.class, () -> book(NOW.plusDays(2), NOW.plusDays(4)));
+        assertDoesNotThrow(() -> book(NOW.plusDays(3).plusMinutes(1), NOW.plusDays(4)));
+    }
+
+    @Test
+    void shouldNotApproveSecondOfOverlappingWaitingBookings() {
+        Long first = book(NOW.plusDays(1), NOW.plusDays(3));
+        Long second = book(NOW.plusDays(2), NOW.plusDays(4));
+
+        service.updateBookingStatusByOwner(owner.getId(), first, true);
+
+        assertThrows(BookingApproveException.class,
+                () -> service.updateBookingStatusByOwner(owner.getId(), second, true));
+        assertEquals(BookingStatus.REJECTED, service.updateBookingStatusByOwner(owner.getId(), second, false)
+                .getStatus());
+    }
+
+    @Test
+    void shouldFreeDatesOfRejectedBooking() {
+        Long id = book(NOW.plusDays(1), NOW.plusDays(3));
+        service.updateBookingStatusByOwner(owner.getId(), id, true);
+
+        service.updateBookingStatusByOwner(owner.getId(), id, false);
+
+        Long next = book(NOW.plusDays(2), NOW.plusDays(4));
+        assertEquals(BookingStatus.APPROVED, service.updateBookingStatusByOwner(owner.getId(), next, true)
+                .getStatus());
+    }
+
+    @Test
+    void shouldReleaseReservationOfRolledBackApproval() {
+        Long first = book(NOW.plusDays(1), NOW.plusDays(3));
+        Long second = book(NOW.plusDays(2), NOW.plusDays(4));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            service.updateBookingStatusByOwner(owner.getId(), first, true);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(BookingStatus.APPROVED, service.updateBookingStatusByOwner(owner.getId(), second, true)
+                .getStatus());
+        assertThrows(BookingApproveException.class,
+                () -> service.updateBookingStatusByOwner(owner.getId(), first, true));
+    }
+
+    @Test
+    void shouldRejectOverlappingRecordsOfBatch() {
+        Long id = book(NOW.plusDays(1), NOW.plusDays(3));
+        service.updateBookingStatusByOwner(owner.getId(), id, true);
+
+        List<BookingBatchResultDto> results = service.createBatch(booker.getId(), List.of(
+                bookingDto(NOW.plusDays(2), NOW.plusDays(4)),
+                bookingDto(NOW.plusDays(5), NOW.plusDays(6))));
+
+        assertNull(results.get(0).getBooking());
+        assertNotNull(results.get(1).getBooking());
+    }
+
+    @Test
+    void shouldFreeDatesOfDeletedBooker() {
+        Long id = book(NOW.plusDays(1), NOW.plusDays(3));
+        service.updateBookingStatusByOwner(owner.getId(), id, true);
+
+        userService.deleteUserById(booker.getId());
+        booker = saveUser("Morty", "morty@interval.ru");
+
+        Long next = book(NOW.plusDays(1), NOW.plusDays(3));
+        assertEquals(BookingStatus.APPROVED, service.updateBookingStatusByOwner(owner.getId(), next, true)
+                .getStatus());
+    }
+
+    @Test
+    void shouldForgetBookingsOfDeletedOwner() {
+        Long id = book(NOW.plusDays(1), NOW.plusDays(3));
+        service.updateBookingStatusByOwner(owner.getId(), id, true);
+        int size = ((IntervalTreeAvailabilityIndex) availabilityIndex).size();
+
+        userService.deleteUserById(owner.getId());
+        owner = saveUser("Tom", "tom@interval.ru");
+
+        assertEquals(size - 1, ((IntervalTreeAvailabilityIndex) availabilityIndex).size());
+        assertFalse(availabilityIndex.hasApprovedOverlap(item.getId(), NOW.plusDays(1), NOW.plusDays(3)));
+    }
+
+    private Long book(LocalDateTime start, LocalDateTime end) {
+        return service.create(booker.getId(), bookingDto(start, end)).getId();
+    }
+
+    private BookingDto bookingDto(LocalDateTime start, LocalDateTime end) {
+        return BookingDto.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(end)
+                .build();
+    }
+
+    private User saveUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        return userRepository.save(user);
+    }
+}
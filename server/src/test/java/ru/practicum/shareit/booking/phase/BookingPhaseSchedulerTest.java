@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking.phase;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Без @Transactional: поток планировщика видит только закоммиченные бронирования.
+ */
+@SpringBootTest
+class BookingPhaseSchedulerTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingPhaseScheduler scheduler;
+
+    private User user;
+
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        user = new User();
+        user.setName("Tom");
+        user.setEmail("tom@phase.ru");
+        user = userRepository.save(user);
+        item = new Item();
+        item.setName("tool");
+        item.setDescription("good");
+        item.setAvailable(true);
+        item.setOwner(user);
+        item = itemRepository.save(item);
+    }
+
+    @AfterEach
+    void afterEach() {
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void shouldMoveBookingThroughPhasesAtItsBoundaries() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.now().plusSeconds(1);
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(user);
+        booking.setStart(start);
+        booking.setEnd(start.plusSeconds(2));
+        booking.setStatus(BookingStatus.WAITING);
+        booking = bookingRepository.save(booking);
+        scheduler.schedule(booking);
+
+        assertEquals(BookingPhase.FUTURE, booking.getPhase());
+        awaitPhase(booking.getId(), BookingPhase.CURRENT);
+        awaitPhase(booking.getId(), BookingPhase.PAST);
+    }
+
+    private void awaitPhase(Long bookingId, BookingPhase phase) throws InterruptedException {
+        LocalDateTime deadline = LocalDateTime.now().plus(WAIT);
+        BookingPhase actual = bookingRepository.findById(bookingId).orElseThrow().getPhase();
+        while (actual != phase && LocalDateTime.now().isBefore(deadline)) {
+            Thread.sleep(20);
+            actual = bookingRepository.findById(bookingId).orElseThrow().getPhase();
+        }
+        assertEquals(phase, actual);
+    }
+}
@@ -0,0 +1,197 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingBoundaryView;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@DataJpaTest
+class BookingRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 3, 1, 12, 0);
+
+    @Autowired
+    private TestEntityManager manager;
+
+    @Autowired
+    private BookingRepository repository;
+
+    private User booker;
+
+    private Item item;
+
+    private Item secondItem;
+
+    private Item thirdItem;
+
+    @BeforeEach
+    void beforeEach() {
+        User owner = new User();
+        owner.setName("Tom");
+        owner.setEmail("tom@mail.com");
+        manager.persist(owner);
+
+        booker = new User();
+        booker.setName("Rick");
+        booker.setEmail("rick@mail.com");
+        manager.persist(booker);
+
+        item = persistItem("tool", owner);
+        secondItem = persistItem("bike", owner);
+        thirdItem = persistItem("tent", owner);
+    }
+
+    @Test
+    void shouldFindLastAndNextBookingForEachItem() {
+        persistBooking(item, NOW.minusDays(10), BookingStatus.APPROVED);
+        Booking last = persistBooking(item, NOW.minusDays(3), BookingStatus.APPROVED);
+        persistBooking(item, NOW.minusDays(1), BookingStatus.REJECTED);
+        Booking next = persistBooking(item, NOW.plusDays(2), BookingStatus.WAITING);
+        persistBooking(item, NOW.plusDays(5), BookingStatus.APPROVED);
+        Booking onlyNext = persistBooking(secondItem, NOW.plusDays(1), BookingStatus.APPROVED);
+        persistBooking(thirdItem, NOW.minusDays(1), BookingStatus.APPROVED);
+
+        List<ItemBookingView> result = repository.findLastAndNextByItemIdIn(List.of(item.getId(),
+                secondItem.getId()), NOW);
+
+        Map<Boolean, Map<Long, Long>> ids = result.stream()
+                .collect(Collectors.partitioningBy(ItemBookingView::getNext,
+                        Collectors.toMap(ItemBookingView::getItemId, ItemBookingView::getId)));
+        Assertions.assertThat(result).hasSize(3);
+        Assertions.assertThat(ids.get(false)).isEqualTo(Map.of(item.getId(), last.getId()));
+        Assertions.assertThat(ids.get(true)).isEqualTo(Map.of(item.getId(), next.getId(),
+                secondItem.getId(), onlyNext.getId()));
+        ItemBookingView view = result.stream().filter(v -> v.getId().equals(next.getId())).findFirst().orElseThrow();
+        Assertions.assertThat(view.getStart()).isEqualTo(next.getStart());
+        Assertions.assertThat(view.getEnd()).isEqualTo(next.getEnd());
+        Assertions.assertThat(view.getBookerId()).isEqualTo(booker.getId());
+        Assertions.assertThat(view.getStatus()).isEqualTo(BookingStatus.WAITING);
+    }
+
+    @Test
+    void shouldPageByCursorWithoutGapsOrDuplicates() {
+        Booking first = persistBooking(item, NOW.plusDays(3), BookingStatus.WAITING);
+        Booking sameStart = persistBooking(secondItem, NOW.plusDays(3), BookingStatus.APPROVED);
+        Booking second = persistBooking(item, NOW.plusDays(1), BookingStatus.APPROVED);
+        Booking third = persistBooking(thirdItem, NOW.minusDays(2), BookingStatus.REJECTED);
+        PageRequest page = PageRequest.of(0, 2);
+        BookingCursor cursor = BookingCursor.FIRST;
+
+        List<BookingOutDto> firstPage = repository.findByBookerIdAfter(booker.getId(), cursor.getStart(), cursor.getId(),
+                page);
+        BookingOutDto last = firstPage.get(firstPage.size() - 1);
+        List<BookingOutDto> secondPage = repository.findByBookerIdAfter(booker.getId(), last.getStart(), last.getId(),
+                page);
+        List<BookingOutDto> future = repository.findFutureByItemOwnerIdAfter(item.getOwner().getId(),
+                sameStart.getStart(), sameStart.getId(), page);
+
+        Assertions.assertThat(firstPage).extracting(BookingOutDto::getId)
+                .containsExactly(sameStart.getId(), first.getId());
+        Assertions.assertThat(secondPage).extracting(BookingOutDto::getId)
+                .containsExactly(second.getId(), third.getId());
+        Assertions.assertThat(future).extracting(BookingOutDto::getId)
+                .containsExactly(first.getId(), second.getId());
+    }
+
+    @Test
+    void shouldSelectBookingsByPhaseAndMovePhaseAtBoundaries() {
+        Booking past = persistBooking(item, NOW.minusDays(5), BookingStatus.APPROVED);
+        Booking current = persistBooking(secondItem, NOW.minusHours(12), BookingStatus.APPROVED);
+        Booking future = persistBooking(thirdItem, NOW.plusDays(1), BookingStatus.WAITING);
+        PageRequest page = PageRequest.of(0, 10);
+
+        Assertions.assertThat(repository.findPastByBookerIdOrderByStartDesc(booker.getId(), page))
+                .extracting(BookingOutDto::getId).containsExactly(past.getId());
+        Assertions.assertThat(repository.findCurrentByBookerIdOrderByStartDesc(booker.getId(), page))
+                .extracting(BookingOutDto::getId).containsExactly(current.getId());
+        Assertions.assertThat(repository.findFutureByBookerIdOrderByStartDesc(booker.getId(), page))
+                .extracting(BookingOutDto::getId).containsExactly(future.getId());
+        Assertions.assertThat(repository.findBoundariesUntil(NOW.plusDays(1)))
+                .extracting(BookingBoundaryView::getId).containsExactlyInAnyOrder(current.getId(), future.getId());
+
+        LocalDateTime later = NOW.plusDays(1).plusHours(1);
+        Assertions.assertThat(repository.updatePhaseOfFinished(later)).isEqualTo(1);
+        Assertions.assertThat(repository.updatePhaseOfStarted(later)).isEqualTo(1);
+        manager.clear();
+
+        Assertions.assertThat(repository.findPastByBookerIdOrderByStartDesc(booker.getId(), page))
+                .extracting(BookingOutDto::getId).containsExactly(current.getId(), past.getId());
+        Assertions.assertThat(repository.findCurrentByBookerIdOrderByStartDesc(booker.getId(), page))
+                .extracting(BookingOutDto::getId).containsExactly(future.getId());
+    }
+
+    @Test
+    void shouldStreamWholeHistoryOfBookerNewestFirst() {
+        Booking future = persistBooking(item, NOW.plusDays(3), BookingStatus.WAITING);
+        Booking past = persistBooking(secondItem, NOW.minusDays(5), BookingStatus.APPROVED);
+        Booking current = persistBooking(thirdItem, NOW, BookingStatus.REJECTED);
+
+        List<Long> ids;
+        try (Stream<BookingOutDto> bookings = repository.streamByBookerId(booker.getId())) {
+            ids = bookings.map(BookingOutDto::getId).collect(Collectors.toList());
+        }
+
+        Assertions.assertThat(ids).containsExactly(future.getId(), current.getId(), past.getId());
+    }
+
+    @Test
+    void shouldReadBookingOutDtoWithoutLoadingEntities() {
+        Booking booking = persistBooking(item, NOW.plusDays(1), BookingStatus.WAITING);
+        manager.flush();
+        manager.clear();
+
+        List<BookingOutDto> result = repository.findByBookerIdOrderByStartDesc(booker.getId(), PageRequest.of(0, 10));
+
+        Assertions.assertThat(result).hasSize(1);
+        BookingOutDto dto = result.get(0);
+        Assertions.assertThat(dto.getId()).isEqualTo(booking.getId());
+        Assertions.assertThat(dto.getStart()).isEqualTo(booking.getStart());
+        Assertions.assertThat(dto.getStatus()).isEqualTo(BookingStatus.WAITING);
+        Assertions.assertThat(dto.getItem().getId()).isEqualTo(item.getId());
+        Assertions.assertThat(dto.getItem().getName()).isEqualTo(item.getName());
+        Assertions.assertThat(dto.getItem().getAvailable()).isTrue();
+        Assertions.assertThat(dto.getItem().getRequestId()).isNull();
+        Assertions.assertThat(dto.getBooker().getEmail()).isEqualTo(booker.getEmail());
+        Assertions.assertThat(manager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount())
+                .isZero();
+    }
+
+    private Item persistItem(String name, User owner) {
+        Item newItem = new Item();
+        newItem.setName(name);
+        newItem.setDescription("nice " + name);
+        newItem.setAvailable(true);
+        newItem.setOwner(owner);
+        return manager.persist(newItem);
+    }
+
+    private Booking persistBooking(Item bookedItem, LocalDateTime start, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setItem(bookedItem);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+        booking.setStatus(status);
+        booking.setPhase(BookingPhase.at(booking.getStart(), booking.getEnd(), NOW));
+        return manager.persist(booking);
+    }
+}
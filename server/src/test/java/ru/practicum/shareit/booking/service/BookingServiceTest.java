@@ -6,26 +6,45 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.availability.BookingAvailabilityIndex;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.phase.BookingPhaseScheduler;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.model.BookingApproveException;
 import ru.practicum.shareit.exception.model.ValidateBookingsDatesException;
+import ru.practicum.shareit.exception.model.ValidateCursorException;
 import ru.practicum.shareit.exception.model.ValidateStateException;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.exception.model.ObjectNotFoundException;
 
 
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -47,9 +66,27 @@ class BookingServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserExistenceCache userCache;
+
     @Mock
     private ItemRepository itemRepository;
 
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private ItemDashboardService dashboardService;
+
+    @Mock
+    private BookingPhaseScheduler phaseScheduler;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private BookingServiceImpl service;
 
@@ -110,6 +147,30 @@ class BookingServiceTest {
         assertEquals(booking.getId(), bookingOutDto.getId());
         verify(repository, times(1))
                 .save(any());
+        verify(availabilityIndex, times(1))
+                .update(booking);
+        verify(phaseScheduler, times(1))
+                .schedule(booking);
+        verify(dashboardService, times(1))
+                .onBookingsSaved(List.of(booking));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenCreateBookingIfDatesOverlapApprovedBooking() {
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booker));
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(availabilityIndex.hasApprovedOverlap(item.getId(), bookingDto.getStart(), bookingDto.getEnd()))
+                .thenReturn(true);
+
+        BookingApproveException exception = assertThrows(BookingApproveException.class,
+                () -> service.create(booker.getId(), bookingDto));
+
+        assertEquals("Вещь с id = " + item.getId() + " уже забронирована на указанные даты",
+                exception.getMessage());
+        verify(repository, never())
+                .save(any());
     }
 
     @Test
@@ -118,7 +179,7 @@ class BookingServiceTest {
         String errorMessage = "Пользователь" +
                 " с id = " + userId + " не найден";
         when(userRepository.findById(anyLong()))
-                .thenThrow(new ObjectNotFoundException(errorMessage));
+                .thenReturn(Optional.empty());
 
         ObjectNotFoundException exception = assertThrows(ObjectNotFoundException.class,
                 () -> service.create(userId, bookingDto));
@@ -199,33 +260,96 @@ class BookingServiceTest {
     }
 
     @Test
-    void shouldUpdateBookingStatusByOwnerWhenApproved() {
+    void shouldCreateBatchAndReportRejectedEntries() {
+        Item ownItem = new Item();
+        ownItem.setId(2L);
+        ownItem.setAvailable(true);
+        ownItem.setOwner(booker);
+        BookingDto missingItem = BookingDto.builder()
+                .itemId(99L)
+                .start(NOW.plusDays(1))
+                .end(NOW.plusDays(2))
+                .build();
+        BookingDto wrongDates = BookingDto.builder()
+                .itemId(item.getId())
+                .start(NOW.plusDays(2))
+                .end(NOW.plusDays(1))
+                .build();
+        BookingDto ownBooking = BookingDto.builder()
+                .itemId(ownItem.getId())
+                .start(NOW.plusDays(1))
+                .end(NOW.plusDays(2))
+                .build();
+        when(userRepository.findById(booker.getId()))
+                .thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(Set.of(item.getId(), 99L, ownItem.getId())))
+                .thenReturn(List.of(item, ownItem));
+
+        List<BookingBatchResultDto> results = service.createBatch(booker.getId(),
+                List.of(bookingDto, missingItem, wrongDates, ownBooking));
+
+        assertEquals(4, results.size());
+        assertEquals(item.getId(), results.get(0).getBooking().getItem().getId());
+        assertEquals(BookingStatus.WAITING, results.get(0).getBooking().getStatus());
+        assertNull(results.get(0).getError());
+        assertEquals("Вещь с id = 99 не найдена", results.get(1).getError());
+        assertEquals("Проверьте даты начала и окончания бронирования", results.get(2).getError());
+        assertEquals("Невозможно забронировать вещь, принадлежащую вам", results.get(3).getError());
+        assertEquals(List.of(0, 1, 2, 3), results.stream()
+                .map(BookingBatchResultDto::getIndex)
+                .collect(Collectors.toList()));
+        verify(repository, times(1))
+                .saveAll(argThat(bookings -> ((List<Booking>) bookings).size() == 1));
+        verify(itemRepository, never())
+                .findById(anyLong());
+        verify(availabilityIndex, times(1))
+                .update(any());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenCreateBatchIfUserNotExist() {
         when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(owner));
+                .thenReturn(Optional.empty());
+
+        assertThrows(ObjectNotFoundException.class, () -> service.createBatch(99L, List.of(bookingDto)));
+        verify(repository, never())
+                .saveAll(any());
+    }
+
+    @Test
+    void shouldUpdateBookingStatusByOwnerWhenApproved() {
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
         when(repository.findById(anyLong()))
                 .thenReturn(Optional.of(booking));
-        when(repository.save(any()))
-                .thenReturn(booking);
+        when(repository.updateStatus(booking.getId(), null, BookingStatus.APPROVED))
+                .thenReturn(1);
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item));
+        when(availabilityIndex.tryApprove(booking))
+                .thenReturn(true);
 
         BookingOutDto bookingOutDto = service.updateBookingStatusByOwner(owner.getId(), booking.getId(), true);
 
         assertNotNull(bookingOutDto);
         assertEquals(booking.getId(), bookingOutDto.getId());
         assertEquals(BookingStatus.APPROVED, bookingOutDto.getStatus());
-        verify(repository, times(1))
+        verify(entityManager, times(1))
+                .detach(booking);
+        verify(repository, never())
                 .save(any());
+        verify(dashboardService, times(1))
+                .onBookingsSaved(List.of(booking));
     }
 
     @Test
     void shouldUpdateBookingStatusByOwnerWhenRejected() {
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
         when(repository.findById(anyLong()))
                 .thenReturn(Optional.of(booking));
-        when(repository.save(any()))
-                .thenReturn(booking);
+        when(repository.updateStatus(booking.getId(), null, BookingStatus.REJECTED))
+                .thenReturn(1);
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item));
 
@@ -234,14 +358,110 @@ class BookingServiceTest {
         assertNotNull(bookingOutDto);
         assertEquals(booking.getId(), bookingOutDto.getId());
         assertEquals(BookingStatus.REJECTED, bookingOutDto.getStatus());
-        verify(repository, times(1))
-                .save(any());
+        verify(availabilityIndex, never())
+                .tryApprove(any());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenApproveBookingIfDatesOverlapApprovedBooking() {
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findById(anyLong()))
+                .thenReturn(Optional.of(booking));
+        when(repository.updateStatus(anyLong(), any(), any()))
+                .thenReturn(1);
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(availabilityIndex.tryApprove(booking))
+                .thenReturn(false);
+
+        BookingApproveException exception = assertThrows(BookingApproveException.class,
+                () -> service.updateBookingStatusByOwner(owner.getId(), booking.getId(), true));
+
+        assertEquals("Вещь с id = " + item.getId() + " уже забронирована на указанные даты",
+                exception.getMessage());
+        verify(transactionManager, times(1))
+                .rollback(any());
+        verify(dashboardService, never())
+                .onBookingsSaved(any());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenApproveBookingIfDatabaseRejectsOverlap() {
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findById(anyLong()))
+                .thenReturn(Optional.of(booking));
+        when(repository.updateStatus(anyLong(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("ERROR: conflicting key value violates exclusion constraint "
+                                + "\"ex_bookings_approved_overlap\"", "23P01")));
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+
+        BookingApproveException exception = assertThrows(BookingApproveException.class,
+                () -> service.updateBookingStatusByOwner(owner.getId(), booking.getId(), true));
+
+        assertEquals("Вещь с id = " + item.getId() + " уже забронирована на указанные даты",
+                exception.getMessage());
+        verify(transactionManager, times(1))
+                .getTransaction(any());
+        verify(availabilityIndex, never())
+                .tryApprove(any());
+    }
+
+    /**
+     * Каждая попытка читает бронирование заново, как новая транзакция.
+     */
+    @Test
+    void shouldRetryApproveWhenBookingIsChangedConcurrently() {
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(copyOf(booking)));
+        when(repository.updateStatus(anyLong(), any(), any()))
+                .thenReturn(0)
+                .thenReturn(1);
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(availabilityIndex.tryApprove(any()))
+                .thenReturn(true);
+
+        BookingOutDto bookingOutDto = service.updateBookingStatusByOwner(owner.getId(), booking.getId(), true);
+
+        assertEquals(BookingStatus.APPROVED, bookingOutDto.getStatus());
+        verify(transactionManager, times(2))
+                .getTransaction(any());
+        verify(transactionManager, times(1))
+                .rollback(any());
+        verify(availabilityIndex, times(1))
+                .tryApprove(any());
+    }
+
+    @Test
+    void shouldGiveUpApproveAfterAllAttempts() {
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(copyOf(booking)));
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(repository.updateStatus(anyLong(), any(), any()))
+                .thenReturn(0);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> service.updateBookingStatusByOwner(owner.getId(), booking.getId(), true));
+
+        verify(repository, times(3))
+                .updateStatus(anyLong(), any(), any());
+        verify(dashboardService, never())
+                .onBookingsSaved(any());
     }
 
     @Test
     void shouldThrowExceptionWhenUpdateBookingStatusIfBookingDoesNotFound() {
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
         when(repository.findById(anyLong()))
                 .thenReturn(Optional.empty());
 
@@ -250,13 +470,13 @@ class BookingServiceTest {
 
         assertEquals("Бронирование с указанным id не найдено", exception.getMessage());
         verify(repository, never())
-                .save(any());
+                .updateStatus(anyLong(), any(), any());
     }
 
     @Test
     void shouldThrowExceptionWhenUpdateBookingStatusIfUserIsNotOwner() {
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
         item.setOwner(booker);
         when(repository.findById(anyLong()))
                 .thenReturn(Optional.of(booking));
@@ -268,13 +488,13 @@ class BookingServiceTest {
 
         assertEquals("Подтверждать бронирование может только собственник вещи", exception.getMessage());
         verify(repository, never())
-                .save(any());
+                .updateStatus(anyLong(), any(), any());
     }
 
     @Test
     void shouldThrowExceptionWhenUpdateBookingStatusIfAlreadyConfirmed() {
-        when(userRepository.findById(owner.getId()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
         when(repository.findById(anyLong()))
                 .thenReturn(Optional.of(booking));
         when(itemRepository.findById(anyLong()))
@@ -294,13 +514,13 @@ class BookingServiceTest {
         assertEquals("Бронирование вещи с id = " + item.getId() + "уже было отклонено",
                 exception1.getMessage());
         verify(repository, never())
-                .save(any());
+                .updateStatus(anyLong(), any(), any());
     }
 
     @Test
     void shouldFindByBookingId() {
-        when(userRepository.findById(owner.getId()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
         when(repository.findById(anyLong()))
                 .thenReturn(Optional.of(booking));
 
@@ -318,8 +538,8 @@ class BookingServiceTest {
         newUser.setEmail("emeil@email.ru");
         Long userId = newUser.getId();
         Long bookingId = booking.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(newUser));
+        when(userCache.exists(userId))
+                .thenReturn(true);
         when(repository.findById(bookingId))
                 .thenReturn(Optional.of(booking));
 
@@ -333,10 +553,10 @@ class BookingServiceTest {
     @Test
     void shouldFindAllUsersBookingByStateAll() {
         Long userId = booker.getId();
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(booker));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
         when(repository.findByBookerIdOrderByStartDesc(anyLong(), any()))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllUsersBookingByState(userId, BookingState.ALL, FROM, SIZE);
 
@@ -351,10 +571,10 @@ class BookingServiceTest {
     void shouldFindAllUsersBookingByStateCurrent() {
         Long userId = booker.getId();
         booking.setEnd(NOW.plusHours(10));
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(booker));
-        when(repository.findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any()))
-                .thenReturn(List.of(booking));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findCurrentByBookerIdOrderByStartDesc(anyLong(), any()))
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllUsersBookingByState(userId, BookingState.CURRENT, FROM, SIZE);
 
@@ -362,16 +582,16 @@ class BookingServiceTest {
         assertEquals(1, bookingOutDtos.size());
         assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
         verify(repository, times(1))
-                .findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
+                .findCurrentByBookerIdOrderByStartDesc(anyLong(), any());
     }
 
     @Test
     void shouldFindAllUsersBookingByStatePast() {
         Long userId = booker.getId();
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(booker));
-        when(repository.findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(booking));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findPastByBookerIdOrderByStartDesc(anyLong(), any()))
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllUsersBookingByState(userId, BookingState.PAST, FROM, SIZE);
 
@@ -379,17 +599,17 @@ class BookingServiceTest {
         assertEquals(1, bookingOutDtos.size());
         assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
         verify(repository, times(1))
-                .findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
+                .findPastByBookerIdOrderByStartDesc(anyLong(), any());
     }
 
     @Test
     void shouldFindAllUsersBookingByStateFuture() {
         Long userId = booker.getId();
         booking.setStatus(BookingStatus.WAITING);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(booker));
-        when(repository.findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(booking));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findFutureByBookerIdOrderByStartDesc(anyLong(), any()))
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllUsersBookingByState(userId, BookingState.FUTURE, FROM, SIZE);
 
@@ -398,16 +618,16 @@ class BookingServiceTest {
         assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
         assertEquals(BookingStatus.WAITING, bookingOutDtos.get(0).getStatus());
         verify(repository, times(1))
-                .findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
+                .findFutureByBookerIdOrderByStartDesc(anyLong(), any());
     }
 
     @Test
     void shouldFindAllUsersBookingByStateWaiting() {
         Long userId = booker.getId();
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(booker));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
         when(repository.findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllUsersBookingByState(userId, BookingState.WAITING, FROM, SIZE);
 
@@ -422,10 +642,10 @@ class BookingServiceTest {
     void shouldFindAllUsersBookingByStateRejected() {
         Long userId = booker.getId();
         booking.setStatus(BookingStatus.REJECTED);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(booker));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
         when(repository.findByBookerIdAndStatusOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllUsersBookingByState(userId, BookingState.REJECTED, FROM, SIZE);
 
@@ -440,8 +660,8 @@ class BookingServiceTest {
     @Test
     void shouldThrowExceptionWhenFindAllUsersBookingByStateWithUnsupportedState() {
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
+        when(userCache.exists(userId))
+                .thenReturn(true);
         String errorMessage = "Unknown state: UNSUPPORTED_STATUS";
 
         ValidateStateException exception = assertThrows(ValidateStateException.class,
@@ -454,8 +674,8 @@ class BookingServiceTest {
     @Test
     void shouldThrowExceptionWhenFindAllUsersBookingByStateWithUnknownState() {
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
+        when(userCache.exists(userId))
+                .thenReturn(true);
         String errorMessage = "Unknown state: UNSUPPORTED_STATUS";
 
         ValidateStateException exception = assertThrows(ValidateStateException.class,
@@ -469,12 +689,12 @@ class BookingServiceTest {
     @Test
     void shouldFindAllBookingsForItemsOfUserWithStateAll() {
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(itemRepository.findByOwnerId(anyLong()))
-                .thenReturn(List.of(item));
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRepository.existsByOwnerId(anyLong()))
+                .thenReturn(true);
         when(repository.findByItemOwnerIdOrderByStartDesc(anyLong(), any()))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllBookingsForItemsOfUser(userId, BookingState.ALL, FROM, SIZE);
 
@@ -488,12 +708,12 @@ class BookingServiceTest {
     @Test
     void shouldFindAllBookingsForItemsOfUserWithStateCurrent() {
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(itemRepository.findByOwnerId(anyLong()))
-                .thenReturn(List.of(item));
-        when(repository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any()))
-                .thenReturn(List.of(booking));
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRepository.existsByOwnerId(anyLong()))
+                .thenReturn(true);
+        when(repository.findCurrentByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllBookingsForItemsOfUser(userId, BookingState.CURRENT, FROM, SIZE);
 
@@ -501,18 +721,18 @@ class BookingServiceTest {
         assertEquals(1, bookingOutDtos.size());
         assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
         verify(repository, times(1))
-                .findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(anyLong(), any(), any(), any());
+                .findCurrentByItemOwnerIdOrderByStartDesc(anyLong(), any());
     }
 
     @Test
     void shouldFindAllBookingsForItemsOfUserWithStatePast() {
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(itemRepository.findByOwnerId(anyLong()))
-                .thenReturn(List.of(item));
-        when(repository.findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(booking));
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRepository.existsByOwnerId(anyLong()))
+                .thenReturn(true);
+        when(repository.findPastByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllBookingsForItemsOfUser(userId, BookingState.PAST, FROM, SIZE);
 
@@ -520,18 +740,18 @@ class BookingServiceTest {
         assertEquals(1, bookingOutDtos.size());
         assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
         verify(repository, times(1))
-                .findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
+                .findPastByItemOwnerIdOrderByStartDesc(anyLong(), any());
     }
 
     @Test
     void shouldFindAllBookingsForItemsOfUserWithStateFuture() {
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(itemRepository.findByOwnerId(anyLong()))
-                .thenReturn(List.of(item));
-        when(repository.findByItemOwnerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(booking));
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRepository.existsByOwnerId(anyLong()))
+                .thenReturn(true);
+        when(repository.findFutureByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllBookingsForItemsOfUser(userId, BookingState.FUTURE, FROM, SIZE);
 
@@ -539,19 +759,19 @@ class BookingServiceTest {
         assertEquals(1, bookingOutDtos.size());
         assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
         verify(repository, times(1))
-                .findByItemOwnerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
+                .findFutureByItemOwnerIdOrderByStartDesc(anyLong(), any());
     }
 
     @Test
     void shouldFindAllBookingsForItemsOfUserWithStateWaiting() {
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(itemRepository.findByOwnerId(anyLong()))
-                .thenReturn(List.of(item));
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRepository.existsByOwnerId(anyLong()))
+                .thenReturn(true);
         booking.setStatus(BookingStatus.WAITING);
         when(repository.findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllBookingsForItemsOfUser(userId, BookingState.WAITING, FROM, SIZE);
 
@@ -565,13 +785,13 @@ class BookingServiceTest {
     @Test
     void shouldFindAllBookingsForItemsOfUserWithStateRejected() {
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(itemRepository.findByOwnerId(anyLong()))
-                .thenReturn(List.of(item));
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRepository.existsByOwnerId(anyLong()))
+                .thenReturn(true);
         booking.setStatus(BookingStatus.REJECTED);
         when(repository.findByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
 
         List<BookingOutDto> bookingOutDtos = service.findAllBookingsForItemsOfUser(userId, BookingState.REJECTED, FROM, SIZE);
 
@@ -585,10 +805,10 @@ class BookingServiceTest {
     @Test
     void shouldThrowExceptionWhenFindAllBookingsForItemsOfUserWithUnsupportedState() {
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(itemRepository.findByOwnerId(anyLong()))
-                .thenReturn(List.of(item));
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRepository.existsByOwnerId(anyLong()))
+                .thenReturn(true);
         String errorMessage = "Unknown state: UNSUPPORTED_STATUS";
 
         ValidateStateException exception = assertThrows(ValidateStateException.class,
@@ -602,14 +822,116 @@ class BookingServiceTest {
     void shouldThrowExceptionWhenFindAllBookingsForItemsOfUserIfUserHasNotItemsForBooking() {
         String errorMessage = "У пользователя нет вещей для бронирования";
         Long userId = booker.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(itemRepository.findByOwnerId(anyLong()))
-                .thenThrow(new ObjectNotFoundException(errorMessage));
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRepository.existsByOwnerId(anyLong()))
+                .thenReturn(false);
 
         ObjectNotFoundException exception = assertThrows(ObjectNotFoundException.class,
                 () -> service.findAllBookingsForItemsOfUser(userId, BookingState.ALL, FROM, SIZE));
 
         assertEquals(errorMessage, exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldFindAllUsersBookingByStateAllAfterCursor() {
+        Long userId = booker.getId();
+        BookingCursor after = BookingCursor.decode("");
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findByBookerIdAfter(userId, after.getStart(), after.getId(), PageRequest.of(0, SIZE)))
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
+
+        List<BookingOutDto> bookingOutDtos = service.findAllUsersBookingByState(userId, BookingState.ALL, after, SIZE);
+
+        assertEquals(1, bookingOutDtos.size());
+        assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
+    }
+
+    @Test
+    void shouldFindAllUsersBookingByStateWaitingAfterCursor() {
+        Long userId = booker.getId();
+        BookingCursor after = BookingCursor.after(BookingMapper.toBookingOutDto(booking));
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findByBookerIdAndStatusAfter(userId, BookingStatus.WAITING, booking.getStart(),
+                booking.getId(), PageRequest.of(0, SIZE)))
+                .thenReturn(Collections.emptyList());
+
+        List<BookingOutDto> bookingOutDtos = service.findAllUsersBookingByState(userId, BookingState.WAITING,
+                after, SIZE);
+
+        assertTrue(bookingOutDtos.isEmpty());
+    }
+
+    @Test
+    void shouldFindAllBookingsForItemsOfUserWithStateFutureAfterCursor() {
+        Long userId = owner.getId();
+        BookingCursor after = BookingCursor.decode("");
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRepository.existsByOwnerId(userId))
+                .thenReturn(true);
+        when(repository.findFutureByItemOwnerIdAfter(eq(userId), eq(after.getStart()), eq(after.getId()),
+                eq(PageRequest.of(0, SIZE))))
+                .thenReturn(List.of(BookingMapper.toBookingOutDto(booking)));
+
+        List<BookingOutDto> bookingOutDtos = service.findAllBookingsForItemsOfUser(userId, BookingState.FUTURE,
+                after, SIZE);
+
+        assertEquals(1, bookingOutDtos.size());
+        assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenCursorIsInvalid() {
+        ValidateCursorException exception = assertThrows(ValidateCursorException.class,
+                () -> BookingCursor.decode("bm90LWEtY3Vyc29y"));
+
+        assertEquals("Некорректное значение параметра after: bm90LWEtY3Vyc29y", exception.getMessage());
+    }
+
+    @Test
+    void shouldExportAllUsersBookingsOneByOne() {
+        BookingOutDto bookingOutDto = BookingMapper.toBookingOutDto(booking);
+        when(userCache.exists(booker.getId()))
+                .thenReturn(true);
+        when(repository.streamByBookerId(booker.getId()))
+                .thenReturn(Stream.of(bookingOutDto, bookingOutDto));
+        List<BookingOutDto> exported = new ArrayList<>();
+
+        service.exportAllUsersBookings(booker.getId(), exported::add);
+
+        assertEquals(List.of(bookingOutDto, bookingOutDto), exported);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenExportBookingsIfUserNotFound() {
+        when(userCache.exists(0L))
+                .thenReturn(false);
+
+        assertThrows(ObjectNotFoundException.class,
+                () -> service.exportAllUsersBookings(0L, booking -> fail()));
+        verify(repository, never())
+                .streamByBookerId(anyLong());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenCheckExportUserIfUserNotFound() {
+        when(userCache.exists(0L))
+                .thenReturn(false);
+
+        assertThrows(ObjectNotFoundException.class, () -> service.checkExportUser(0L));
+    }
+
+    private static Booking copyOf(Booking booking) {
+        Booking copy = new Booking();
+        copy.setId(booking.getId());
+        copy.setItem(booking.getItem());
+        copy.setBooker(booking.getBooker());
+        copy.setStart(booking.getStart());
+        copy.setEnd(booking.getEnd());
+        copy.setStatus(booking.getStatus());
+        return copy;
+    }
+}
@@ -8,18 +8,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComments;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -28,6 +33,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -105,6 +112,64 @@ class ItemControllerTest {
                 .createItemDto(anyLong(), any());
     }
 
+    @SneakyThrows
+    @Test
+    void shouldImportItemsFromNdjsonAndJsonArray() {
+        List<String> names = new ArrayList<>();
+        when(service.importItems(anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    Iterator<ItemDto> itemDtos = invocation.getArgument(1);
+                    long imported = 0;
+                    while (itemDtos.hasNext()) {
+                        names.add(itemDtos.next().getName());
+                        imported++;
+                    }
+                    return new ItemImportResultDto(imported);
+                });
+        ItemDto secondItemDto = ItemDto.builder().name("saw").description("sharp").available(true).build();
+
+        mvc.perform(post(URL + "/import")
+                .header(HEADER, 1L)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(mapper.writeValueAsString(itemDto) + "\n" + mapper.writeValueAsString(secondItemDto) + "\n"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.imported", is(2))
+                );
+        mvc.perform(post(URL + "/import")
+                .header(HEADER, 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(List.of(itemDto, secondItemDto))))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.imported", is(2))
+                );
+
+        assertEquals(List.of("knife", "saw", "knife", "saw"), names);
+    }
+
+    @SneakyThrows
+    @Test
+    void shouldGetStatusConflictWhenImportHasMalformedItem() {
+        when(service.importItems(anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    Iterator<ItemDto> itemDtos = invocation.getArgument(1);
+                    while (itemDtos.hasNext()) {
+                        itemDtos.next();
+                    }
+                    return new ItemImportResultDto(0);
+                });
+
+        mvc.perform(post(URL + "/import")
+                .header(HEADER, 1L)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(mapper.writeValueAsString(itemDto) + "\n{\"name\": \n"))
+                .andExpectAll(
+                        status().isConflict(),
+                        jsonPath("$.description", is("Вещь №2: не удалось разобрать запись"))
+                );
+    }
+
     @SneakyThrows
     @Test
     void shouldUpdateItemWithName() {
@@ -168,6 +233,8 @@ class ItemControllerTest {
     @SneakyThrows
     @Test
     void shouldGetItemById() {
+        when(service.getItemETag(anyLong(), anyLong()))
+                .thenReturn("3-owner");
         when(service.getItemDtoById(anyLong(), anyLong()))
                 .thenReturn(fullItemDto);
 
@@ -175,6 +242,8 @@ class ItemControllerTest {
                 .header(HEADER, 1L))
                 .andExpectAll(
                         status().isOk(),
+                        header().string(HttpHeaders.ETAG, "\"3-owner\""),
+                        header().string(HttpHeaders.VARY, HEADER),
                         jsonPath("$.id", Matchers.is(fullItemDto.getId()), Long.class),
                         jsonPath("$.name", Matchers.is(fullItemDto.getName())),
                         jsonPath("$.description", Matchers.is(fullItemDto.getDescription()))
@@ -183,6 +252,24 @@ class ItemControllerTest {
                 .getItemDtoById(anyLong(), anyLong());
     }
 
+    @SneakyThrows
+    @Test
+    void shouldAnswerNotModifiedWithoutLoadingItem() {
+        when(service.getItemETag(1L, 2L))
+                .thenReturn("3");
+
+        mvc.perform(get(URL + "/1")
+                        .header(HEADER, 2L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\", \"3\""))
+                .andExpectAll(
+                        status().isNotModified(),
+                        header().string(HttpHeaders.ETAG, "\"3\""),
+                        content().string("")
+                );
+        verify(service, never())
+                .getItemDtoById(anyLong(), anyLong());
+    }
+
     @SneakyThrows
     @Test
     void shouldGetItemsByUserId() {
@@ -11,6 +11,7 @@ import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComments;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
@@ -20,7 +21,9 @@ import ru.practicum.shareit.user.User;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.IntStream;
 
 @Transactional
 @SpringBootTest public class ItemIntegrationTest {
@@ -100,6 +103,27 @@ import java.util.List;
                 .hasFieldOrProperty("id");
     }
 
+    @Test
+    void shouldImportItemsInSeveralBatches() {
+        int count = 2_500;
+        Iterator<ItemDto> dtos = IntStream.range(0, count)
+                .mapToObj(i -> ItemDto.builder()
+                        .name("imported " + i)
+                        .description("good")
+                        .available(true)
+                        .build())
+                .iterator();
+
+        ItemImportResultDto result = service.importItems(booker.getId(), dtos);
+        manager.flush();
+
+        Assertions.assertThat(result.getImported()).isEqualTo(count);
+        Assertions.assertThat(manager.createQuery("select count(i) from Item i where i.owner.id = :ownerId",
+                        Long.class)
+                .setParameter("ownerId", booker.getId())
+                .getSingleResult()).isEqualTo(count);
+    }
+
     @Test
     void shouldUpdateItem() {
         ItemDto dto = ItemMapper.toItemDto(item);
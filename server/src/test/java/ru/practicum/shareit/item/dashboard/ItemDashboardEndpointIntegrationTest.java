@@ -0,0 +1,53 @@
+package ru.practicum.shareit.item.dashboard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Перестроение документов по HTTP, как в рабочей конфигурации: actuator на отдельном порту,
+ * основной порт эндпойнт не отдает.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "management.server.port=0")
+class ItemDashboardEndpointIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    void shouldRebuildDashboardsOnManagementPort() {
+        ResponseEntity<Map> response = restTemplate.postForEntity(
+                "http://localhost:" + managementPort + "/actuator/itemdashboards", Map.of(), Map.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("items", (int) itemRepository.count()), response.getBody());
+    }
+
+    @Test
+    void shouldNotRebuildDashboardsOnServerPort() {
+        ResponseEntity<String> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/actuator/itemdashboards", Map.of(), String.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
@@ -0,0 +1,313 @@
+package ru.practicum.shareit.item.dashboard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.StatementCounter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Список вещей владельца читается из item_dashboards одним запросом, а записи бронирований и комментариев
+ * обновляют документы так, что список совпадает с пересчитанным заново. Данные теста вставлены мимо сервисов,
+ * поэтому документы для них строит rebuild.
+ */
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.practicum.shareit.StatementCounter$SequenceCalls"
+})
+class ItemDashboardIntegrationTest {
+
+    private static final String HEADER = "X-Sharer-User-Id";
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private static final int ITEMS = 5;
+
+    @Autowired
+    private EntityManager manager;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private UserExistenceCache userCache;
+
+    @Autowired
+    private ItemDashboardService dashboardService;
+
+    @Autowired
+    private ItemDashboardEndpoint dashboardEndpoint;
+
+    private StatementCounter counter;
+
+    private User owner;
+
+    private User booker;
+
+    private Item item;
+
+    private Booking last;
+
+    private Booking next;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = persistUser("Tom", "tom@dashboard.ru");
+        booker = persistUser("Rick", "rick@dashboard.ru");
+        for (int i = 0; i < ITEMS; i++) {
+            Item ownerItem = new Item();
+            ownerItem.setName("tool " + i);
+            ownerItem.setDescription("good");
+            ownerItem.setAvailable(true);
+            ownerItem.setOwner(owner);
+            manager.persist(ownerItem);
+            if (i == 0) {
+                item = ownerItem;
+            }
+        }
+        last = persistBooking(NOW.minusDays(3), BookingStatus.APPROVED);
+        next = persistBooking(NOW.plusDays(3), BookingStatus.WAITING);
+        Comment comment = new Comment();
+        comment.setText("good tool");
+        comment.setItem(item);
+        comment.setAuthor(booker);
+        comment.setCreated(NOW.minusDays(1));
+        manager.persist(comment);
+        manager.flush();
+        userCache.exists(owner.getId());
+        userCache.exists(booker.getId());
+        dashboardService.rebuild();
+        counter = new StatementCounter(manager);
+    }
+
+    @Test
+    void shouldListOwnerItemsWithOneQueryOnceDashboardsAreBuilt() throws Throwable {
+        long statements = counter.count(() -> listItems()
+                .andExpect(jsonPath("$.length()").value(ITEMS))
+                .andExpect(jsonPath("$[0].lastBooking.id").value(last.getId()))
+                .andExpect(jsonPath("$[0].nextBooking.id").value(next.getId()))
+                .andExpect(jsonPath("$[0].comments[0].authorName").value(booker.getName()))
+                .andExpect(jsonPath("$[1].lastBooking").value(nullValue())));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void shouldMoveNextBookingWhenEarlierBookingIsCreated() throws Throwable {
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(item.getId())
+                .start(NOW.plusDays(1))
+                .end(NOW.plusDays(2))
+                .build();
+        String created = mvc.perform(post("/bookings")
+                        .header(HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(bookingDto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Number createdId = (Number) mapper.readValue(created, Map.class).get("id");
+
+        long statements = counter.count(() -> listItems()
+                .andExpect(jsonPath("$[0].lastBooking.id").value(last.getId()))
+                .andExpect(jsonPath("$[0].nextBooking.id").value(createdId.longValue())));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void shouldRecomputeDashboardWhenNextBookingIsRejected() throws Throwable {
+        mvc.perform(patch("/bookings/{id}", next.getId())
+                        .header(HEADER, owner.getId())
+                        .param("approved", "false"))
+                .andExpect(status().isOk());
+
+        long statements = counter.count(() -> listItems()
+                .andExpect(jsonPath("$[0].lastBooking.id").value(last.getId()))
+                .andExpect(jsonPath("$[0].nextBooking").value(nullValue())));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void shouldRecomputeDashboardWhenNextBookingHasStarted() throws Throwable {
+        manager.createQuery("update ItemDashboard d set d.validUntil = :past where d.itemId = :itemId")
+                .setParameter("past", NOW.minusMinutes(1))
+                .setParameter("itemId", item.getId())
+                .executeUpdate();
+        manager.createQuery("update Booking b set b.start = :started where b.id = :id")
+                .setParameter("started", NOW.minusMinutes(1))
+                .setParameter("id", next.getId())
+                .executeUpdate();
+        manager.clear();
+
+        listItems()
+                .andExpect(jsonPath("$[0].lastBooking.id").value(next.getId()))
+                .andExpect(jsonPath("$[0].nextBooking").value(nullValue()));
+        assertTrue(manager.find(ItemDashboard.class, item.getId()).isStale(NOW));
+
+        dashboardService.refreshStale(NOW);
+
+        ItemDashboard dashboard = manager.find(ItemDashboard.class, item.getId());
+        assertNull(dashboard.getValidUntil());
+        assertEquals(next.getId(), dashboard.getDocument().getLastBooking().getId());
+    }
+
+    @Test
+    void shouldNotSaveDashboardsWhenListing() throws Throwable {
+        deleteDashboards();
+
+        listItems()
+                .andExpect(jsonPath("$.length()").value(ITEMS))
+                .andExpect(jsonPath("$[0].lastBooking.id").value(last.getId()))
+                .andExpect(jsonPath("$[0].nextBooking.id").value(next.getId()))
+                .andExpect(jsonPath("$[0].comments[0].authorName").value(booker.getName()));
+
+        assertEquals(0, countDashboards());
+    }
+
+    @Test
+    void shouldBuildDashboardOnBookingOfItemWithoutIt() throws Throwable {
+        deleteDashboards();
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(item.getId())
+                .start(NOW.plusDays(1))
+                .end(NOW.plusDays(2))
+                .build();
+        String created = mvc.perform(post("/bookings")
+                        .header(HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(bookingDto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Number createdId = (Number) mapper.readValue(created, Map.class).get("id");
+
+        ItemDashboard dashboard = manager.find(ItemDashboard.class, item.getId());
+        assertEquals(last.getId(), dashboard.getDocument().getLastBooking().getId());
+        assertEquals(createdId.longValue(), dashboard.getDocument().getNextBooking().getId());
+        assertEquals(1, dashboard.getDocument().getComments().size());
+    }
+
+    @Test
+    void shouldSaveEmptyDashboardOfCreatedItem() throws Throwable {
+        String created = mvc.perform(post("/items")
+                        .header(HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"saw\",\"description\":\"sharp\",\"available\":true}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Number createdId = (Number) mapper.readValue(created, Map.class).get("id");
+
+        ItemDashboard dashboard = manager.find(ItemDashboard.class, createdId.longValue());
+        assertNull(dashboard.getValidUntil());
+        assertNull(dashboard.getDocument().getLastBooking());
+        assertEquals(0, dashboard.getDocument().getComments().size());
+    }
+
+    @Test
+    void shouldAppendCreatedComment() throws Throwable {
+        mvc.perform(post("/items/{itemId}/comment", item.getId())
+                        .header(HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(CommentDto.builder().text("still good").build())))
+                .andExpect(status().isOk());
+
+        long statements = counter.count(() -> listItems()
+                .andExpect(jsonPath("$[0].comments.length()").value(2))
+                .andExpect(jsonPath("$[0].comments[1].text").value("still good")));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void shouldShowNewAuthorNameAfterRename() throws Throwable {
+        mvc.perform(patch("/users/{id}", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Richard\"}"))
+                .andExpect(status().isOk());
+
+        listItems()
+                .andExpect(jsonPath("$[0].comments[0].authorName").value("Richard"));
+    }
+
+    @Test
+    void shouldRebuildDashboardsOfAllItems() throws Throwable {
+        deleteDashboards();
+        long items = manager.createQuery("select count(i) from Item i", Long.class).getSingleResult();
+
+        assertEquals(Map.of("items", items), dashboardEndpoint.rebuild());
+
+        assertEquals(ITEMS, countDashboards());
+        long statements = counter.count(() -> listItems()
+                .andExpect(jsonPath("$[0].nextBooking.id").value(next.getId())));
+        assertEquals(1, statements);
+    }
+
+    private ResultActions listItems() throws Exception {
+        return mvc.perform(get("/items").header(HEADER, owner.getId()))
+                .andExpect(status().isOk());
+    }
+
+    private void deleteDashboards() {
+        manager.createQuery("delete from ItemDashboard d where d.itemId in " +
+                        "(select i.id from Item i where i.owner.id = :ownerId)")
+                .setParameter("ownerId", owner.getId())
+                .executeUpdate();
+        manager.clear();
+    }
+
+    private long countDashboards() {
+        return manager.createQuery("select count(d) from ItemDashboard d where d.itemId in " +
+                        "(select i.id from Item i where i.owner.id = :ownerId)", Long.class)
+                .setParameter("ownerId", owner.getId())
+                .getSingleResult();
+    }
+
+    private User persistUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        manager.persist(user);
+        return user;
+    }
+
+    private Booking persistBooking(LocalDateTime start, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(12));
+        booking.setStatus(status);
+        manager.persist(booking);
+        return booking;
+    }
+}
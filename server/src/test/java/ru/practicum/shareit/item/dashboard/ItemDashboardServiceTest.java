@@ -0,0 +1,191 @@
+package ru.practicum.shareit.item.dashboard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemDashboardServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Mock
+    private ItemDashboardRepository dashboardRepository;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private ItemDashboardService service;
+
+    private Item item;
+
+    private User booker;
+
+    private Booking last;
+
+    private Booking next;
+
+    private ItemDashboard dashboard;
+
+    @BeforeEach
+    void beforeEach() {
+        item = new Item();
+        item.setId(1L);
+        booker = new User();
+        booker.setId(2L);
+        last = booking(10L, NOW.minusDays(2), BookingStatus.APPROVED);
+        next = booking(11L, NOW.plusDays(2), BookingStatus.WAITING);
+        dashboard = new ItemDashboard();
+        dashboard.setItemId(item.getId());
+        dashboard.setValidUntil(next.getStart());
+        dashboard.setDocument(new ItemDashboardDocument(BookingMapper.toBookingDto(last),
+                BookingMapper.toBookingDto(next), new ArrayList<>()));
+    }
+
+    @Test
+    void shouldReplaceNextBookingWithEarlierOne() {
+        Booking earlier = booking(12L, NOW.plusDays(1), BookingStatus.WAITING);
+        when(dashboardRepository.findAllById(Set.of(item.getId())))
+                .thenReturn(List.of(dashboard));
+
+        service.onBookingsSaved(List.of(earlier));
+
+        assertEquals(earlier.getId(), dashboard.getDocument().getNextBooking().getId());
+        assertEquals(last.getId(), dashboard.getDocument().getLastBooking().getId());
+        assertEquals(earlier.getStart(), dashboard.getValidUntil());
+        verify(itemRepository, times(1))
+                .incrementCardVersion(Set.of(item.getId()));
+        verifyNoMoreInteractions(itemRepository);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void shouldKeepNextBookingWhenLaterOneIsCreated() {
+        ItemDashboardDocument document = dashboard.getDocument();
+        when(dashboardRepository.findAllById(Set.of(item.getId())))
+                .thenReturn(List.of(dashboard));
+
+        service.onBookingsSaved(List.of(booking(12L, NOW.plusDays(3), BookingStatus.WAITING)));
+
+        assertSame(document, dashboard.getDocument());
+        verify(itemRepository, times(1))
+                .incrementCardVersion(Set.of(item.getId()));
+        verifyNoMoreInteractions(itemRepository);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void shouldUpdateStatusOfNextBooking() {
+        next.setStatus(BookingStatus.APPROVED);
+        when(dashboardRepository.findAllById(Set.of(item.getId())))
+                .thenReturn(List.of(dashboard));
+
+        service.onBookingsSaved(List.of(next));
+
+        assertEquals(BookingStatus.APPROVED, dashboard.getDocument().getNextBooking().getStatus());
+        verify(itemRepository, times(1))
+                .incrementCardVersion(Set.of(item.getId()));
+        verifyNoMoreInteractions(itemRepository);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void shouldRecomputeDashboardWhenNextBookingIsRejected() {
+        next.setStatus(BookingStatus.REJECTED);
+        when(dashboardRepository.findAllById(Set.of(item.getId())))
+                .thenReturn(List.of(dashboard));
+
+        service.onBookingsSaved(List.of(next));
+
+        assertNull(dashboard.getDocument().getNextBooking());
+        assertNull(dashboard.getValidUntil());
+        verify(bookingRepository, times(1))
+                .findLastAndNextByItemIdIn(eq(List.of(item.getId())), any());
+        verify(entityManager, never())
+                .persist(any());
+    }
+
+    @Test
+    void shouldBuildDashboardOfItemWithoutIt() {
+        when(dashboardRepository.findAllById(Set.of(item.getId())))
+                .thenReturn(List.of());
+
+        service.onBookingsSaved(List.of(booking(12L, NOW.plusDays(1), BookingStatus.WAITING)));
+
+        verify(itemRepository, times(1))
+                .incrementCardVersion(Set.of(item.getId()));
+        verify(bookingRepository, times(1))
+                .findLastAndNextByItemIdIn(eq(List.of(item.getId())), any());
+        verify(entityManager, times(1))
+                .persist(any(ItemDashboard.class));
+    }
+
+    @Test
+    void shouldAppendCreatedComment() {
+        CommentDto comment = CommentDto.builder().id(5L).text("good").itemId(item.getId()).build();
+        when(dashboardRepository.findById(item.getId()))
+                .thenReturn(Optional.of(dashboard));
+
+        service.onCommentCreated(comment);
+
+        assertEquals(List.of(comment), dashboard.getDocument().getComments());
+    }
+
+    @Test
+    void shouldBuildDashboardOnCommentOfItemWithoutIt() {
+        CommentDto comment = CommentDto.builder().id(5L).text("good").itemId(item.getId()).build();
+        when(dashboardRepository.findById(item.getId()))
+                .thenReturn(Optional.empty());
+
+        service.onCommentCreated(comment);
+
+        verify(commentRepository, times(1))
+                .findByItemIdIn(List.of(item.getId()));
+        verify(entityManager, times(1))
+                .persist(any(ItemDashboard.class));
+    }
+
+    private Booking booking(Long id, LocalDateTime start, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(12));
+        booking.setStatus(status);
+        return booking;
+    }
+}
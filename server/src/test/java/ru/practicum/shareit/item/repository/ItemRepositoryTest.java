@@ -7,6 +7,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemVersionView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
@@ -14,6 +19,7 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -126,7 +132,7 @@ class ItemRepositoryTest {
                 .createQuery(QUERY, Item.class);
 
         List<Item> items = query.setParameter(1, text).getResultList();
-        List<Item> itemsFromRepository = repository.searchByText(text, page);
+        List<ItemDto> itemsFromRepository = repository.searchByText(text, page);
 
         assertNotNull(items);
         assertEquals(0, items.size());
@@ -145,9 +151,9 @@ class ItemRepositoryTest {
                 .createQuery(QUERY, Item.class);
 
         List<Item> items = query.setParameter(1, text).getResultList();
-        List<Item> itemsFromRepository = repository.searchByText(text, page);
+        List<ItemDto> itemsFromRepository = repository.searchByText(text, page);
         List<Item> twoItems = query.setParameter(1, alsoText).getResultList();
-        List<Item> twoItemFromRepo = repository.searchByText(alsoText, page);
+        List<ItemDto> twoItemFromRepo = repository.searchByText(alsoText, page);
 
 
         assertNotNull(items);
@@ -175,4 +181,47 @@ class ItemRepositoryTest {
         Assertions.assertThat(result).isNotNull().hasSize(2)
                 .hasAtLeastOneElementOfType(Item.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldIncrementCardVersionOfItemsWhoseBookingsHaveStarted() {
+        LocalDateTime now = LocalDateTime.now();
+        persistBooking(item, now.minusHours(1), BookingPhase.FUTURE);
+        persistBooking(secondItem, now.minusHours(1), BookingPhase.CURRENT);
+        persistBooking(secondItem, now.plusHours(1), BookingPhase.FUTURE);
+        manager.flush();
+
+        int updated = repository.incrementCardVersionOfStarted(now);
+        manager.clear();
+
+        assertEquals(1, updated);
+        assertEquals(1, repository.findVersionById(item.getId()).orElseThrow().getCardVersion());
+        assertEquals(0, repository.findVersionById(item.getId()).orElseThrow().getVersion());
+        assertEquals(0, repository.findVersionById(secondItem.getId()).orElseThrow().getCardVersion());
+    }
+
+    @Test
+    void shouldUpdateItemLoadedBeforeCardVersionIsIncremented() {
+        manager.flush();
+        Item loaded = repository.findById(item.getId()).orElseThrow();
+
+        repository.incrementCardVersion(List.of(item.getId()));
+        loaded.setName("new tool");
+        repository.saveAndFlush(loaded);
+        manager.clear();
+
+        ItemVersionView version = repository.findVersionById(item.getId()).orElseThrow();
+        assertEquals(1, version.getVersion());
+        assertEquals(1, version.getCardVersion());
+    }
+
+    private void persistBooking(Item bookedItem, LocalDateTime start, BookingPhase phase) {
+        Booking booking = new Booking();
+        booking.setItem(bookedItem);
+        booking.setBooker(requestor);
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+        booking.setStatus(BookingStatus.APPROVED);
+        booking.setPhase(phase);
+        manager.persist(booking);
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrigramItemSearchEngineTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    @Mock
+    private ItemRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TrigramItemSearchEngine engine;
+
+    private User owner;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = new User();
+        owner.setId(1L);
+
+        when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(List.of(item(1L, "Дрель", "Простая дрель", true),
+                        item(2L, "Отвертка", "Аккумуляторная отвертка", true),
+                        item(3L, "Пила", "Аккумуляторная пила", false)));
+        engine = new TrigramItemSearchEngine(repository, transactionManager);
+        engine.afterPropertiesSet();
+    }
+
+    @Test
+    void shouldBuildIndexOnStartup() {
+        assertEquals(3, engine.size());
+    }
+
+    @Test
+    void shouldIndexOwnerItemsReadFromDatabase() {
+        when(repository.findByOwnerIdAndIdGreaterThanEqualOrderByIdAsc(eq(1L), eq(4L), any()))
+                .thenReturn(List.of(item(4L, "Стамеска", "Острая стамеска", true),
+                        item(5L, "Киянка", "Резиновая киянка", true)));
+
+        engine.indexByOwnerId(1L, 4L);
+
+        assertEquals(5, engine.size());
+        assertEquals(List.of(5L), ids(engine.search("КИЯН", PAGE)));
+    }
+
+    @Test
+    void shouldFindBySubstringIgnoringCase() {
+        assertEquals(List.of(1L), ids(engine.search("дРелЬ", PAGE)));
+        assertEquals(List.of(2L), ids(engine.search("ертк", PAGE)));
+    }
+
+    @Test
+    void shouldFindUnavailableItemOnlyByName() {
+        assertEquals(List.of(2L), ids(engine.search("аккумулятор", PAGE)));
+        assertEquals(List.of(3L), ids(engine.search("пила", PAGE)));
+    }
+
+    @Test
+    void shouldFindByQueryShorterThanTrigram() {
+        assertEquals(List.of(1L, 2L), ids(engine.search("р", PAGE)));
+    }
+
+    @Test
+    void shouldFindByQueryWithSeveralWords() {
+        assertEquals(List.of(2L), ids(engine.search("ная отв", PAGE)));
+        assertEquals(List.of(), ids(engine.search("ная дрель", PAGE)));
+    }
+
+    @Test
+    void shouldReturnRequestedPage() {
+        engine.index(item(4L, "Дрель ударная", "Мощная", true));
+
+        assertEquals(List.of(1L, 4L), ids(engine.search("дрель", PageRequest.of(0, 2))));
+        assertEquals(List.of(4L), ids(engine.search("дрель", PageRequest.of(1, 1))));
+    }
+
+    @Test
+    void shouldUpdateIndexIncrementally() {
+        engine.index(item(1L, "Молоток", "Тяжелый", true));
+        engine.index(item(5L, "Дрель", "Новая", true));
+
+        assertEquals(List.of(5L), ids(engine.search("дрель", PAGE)));
+        assertEquals(List.of(1L), ids(engine.search("молот", PAGE)));
+
+        engine.remove(5L);
+
+        assertEquals(List.of(), ids(engine.search("дрель", PAGE)));
+        assertEquals(3, engine.size());
+    }
+
+    @Test
+    void shouldRemoveItemsOfDeletedOwner() {
+        engine.removeByOwnerId(owner.getId());
+
+        assertEquals(0, engine.size());
+        assertEquals(List.of(), ids(engine.search("р", PAGE)));
+    }
+
+    private Item item(Long id, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return item;
+    }
+
+    private static List<Long> ids(List<ItemDto> items) {
+        return items.stream().map(ItemDto::getId).collect(Collectors.toList());
+    }
+}
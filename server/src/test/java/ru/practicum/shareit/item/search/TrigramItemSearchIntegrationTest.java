@@ -0,0 +1,183 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Поиск с индексом в памяти, как в рабочей конфигурации. Индекс меняется после коммита, поэтому тест
+ * без @Transactional и удаляет своего пользователя после себя. Слова в названиях уникальны для теста:
+ * база общая с другими тестами.
+ */
+@SpringBootTest(properties = "shareit.search.engine=index")
+class TrigramItemSearchIntegrationTest {
+
+    @Autowired
+    private ItemSearchEngine searchEngine;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User owner;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = new User();
+        owner.setName("Tom");
+        owner.setEmail("tom@trigram.ru");
+        owner = userRepository.save(owner);
+    }
+
+    @AfterEach
+    void afterEach() {
+        if (userRepository.existsById(owner.getId())) {
+            userRepository.deleteById(owner.getId());
+        }
+    }
+
+    @Test
+    void shouldUseIndexEngine() {
+        assertInstanceOf(TrigramItemSearchEngine.class, searchEngine);
+    }
+
+    @Test
+    void shouldFindCreatedItemAfterCommit() {
+        ItemDto created = itemService.createItemDto(owner.getId(), item("Перфоратор Зубробур", "мощный"));
+
+        assertEquals(List.of(created.getId()), search("зубробур"));
+        assertEquals(List.of(created.getId()), search("МОЩН"));
+    }
+
+    @Test
+    void shouldReindexUpdatedItem() {
+        ItemDto created = itemService.createItemDto(owner.getId(), item("Дрель Шуруповерт", "легкая"));
+
+        itemService.updateItemDto(owner.getId(), created.getId(), ItemDto.builder().name("Лобзик Пилоид").build());
+
+        assertEquals(List.of(), search("шуруповерт"));
+        assertEquals(List.of(created.getId()), search("пилоид"));
+        assertEquals(List.of(created.getId()), search("легкая"));
+    }
+
+    @Test
+    void shouldNotFindDescriptionOfUnavailableItem() {
+        ItemDto created = itemService.createItemDto(owner.getId(), item("Стремянка", "раскладная алюминиевая"));
+
+        itemService.updateItemDto(owner.getId(), created.getId(), ItemDto.builder().available(false).build());
+
+        assertEquals(List.of(), search("алюминиевая"));
+        assertEquals(List.of(created.getId()), search("стремянка"));
+    }
+
+    @Test
+    void shouldRemoveDeletedItem() {
+        ItemDto created = itemService.createItemDto(owner.getId(), item("Рубанок Строгач", "ручной"));
+
+        itemService.deleteItemDto(owner.getId(), created.getId());
+
+        assertEquals(List.of(), search("строгач"));
+    }
+
+    @Test
+    void shouldRemoveItemsOfDeletedOwner() {
+        itemService.createItemDto(owner.getId(), item("Стамеска Долотник", "острая"));
+        itemService.createItemDto(owner.getId(), item("Киянка Долотник", "резиновая"));
+
+        userService.deleteUserById(owner.getId());
+
+        assertEquals(List.of(), search("долотник"));
+    }
+
+    @Test
+    void shouldNotIndexItemsOfRolledBackTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            itemService.createItemDto(owner.getId(), item("Болгарка Откатник", "угловая"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(), search("откатник"));
+    }
+
+    @Test
+    void shouldKeepIndexOfRolledBackUpdate() {
+        ItemDto created = itemService.createItemDto(owner.getId(), item("Паяльник Оловянник", "с подставкой"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            itemService.updateItemDto(owner.getId(), created.getId(), ItemDto.builder().name("Фен").build());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(created.getId()), search("оловянник"));
+    }
+
+    @Test
+    void shouldIndexImportedItemsAfterCommit() {
+        List<ItemDto> items = List.of(item("Рашпиль Импортник", "крупный"), item("Надфиль Импортник", "мелкий"),
+                item("Напильник Импортник", "плоский"));
+
+        itemService.importItems(owner.getId(), items.iterator());
+
+        assertEquals(3, search("импортник").size());
+    }
+
+    @Test
+    void shouldNotIndexRolledBackImport() {
+        transactionTemplate.executeWithoutResult(status -> {
+            itemService.importItems(owner.getId(), List.of(item("Ножовка Отменник", "по металлу")).iterator());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(), search("отменник"));
+    }
+
+    @Test
+    void shouldPageSearchResults() {
+        for (int i = 0; i < 5; i++) {
+            itemService.createItemDto(owner.getId(), item("Струбцина Зажимник " + i, "столярная"));
+        }
+
+        List<Long> all = search("зажимник");
+        List<Long> page = itemService.getItemsDtoByTextRequest("зажимник", 2, 2).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(5, all.size());
+        assertEquals(all.subList(2, 4), page);
+    }
+
+    private List<Long> search(String text) {
+        return itemService.getItemsDtoByTextRequest(text, 0, 10).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static ItemDto item(String name, String description) {
+        return ItemDto.builder()
+                .name(name)
+                .description(description)
+                .available(true)
+                .build();
+    }
+}
@@ -7,30 +7,40 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.model.BookingAndCommentException;
 import ru.practicum.shareit.exception.model.ObjectNotFoundException;
 import ru.practicum.shareit.exception.model.ValidationException;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComments;
+import ru.practicum.shareit.item.dto.ItemVersionView;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,12 +54,24 @@ class ItemServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserExistenceCache userCache;
+
     @Mock
     private BookingRepository bookingRepository;
 
     @Mock
     private CommentRepository commentRepository;
 
+    @Mock
+    private ItemSearchEngine searchEngine;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ItemDashboardService dashboardService;
+
     @InjectMocks
     private ItemServiceImpl service;
 
@@ -101,10 +123,69 @@ class ItemServiceTest {
         comment.setCreated(NOW);
     }
 
+    @Test
+    void shouldImportItemsAndFlushEveryBatch() {
+        ReflectionTestUtils.setField(service, "importBatchSize", 2);
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(owner.getId()))
+                .thenReturn(owner);
+        AtomicLong ids = new AtomicLong(100);
+        when(repository.save(any()))
+                .thenAnswer(invocation -> {
+                    Item saved = invocation.getArgument(0);
+                    assertNull(saved.getId());
+                    saved.setId(ids.incrementAndGet());
+                    return saved;
+                });
+        List<ItemDto> itemDtos = List.of(
+                ItemDto.builder().id(7L).name("saw").description("sharp").available(true).build(),
+                ItemDto.builder().name("drill").description("loud").available(false).build(),
+                ItemDto.builder().name("ladder").description("high").available(true).build());
+
+        ItemImportResultDto result = service.importItems(owner.getId(), itemDtos.iterator());
+
+        assertEquals(3, result.getImported());
+        verify(repository, times(3))
+                .save(argThat(saved -> saved.getOwner() == owner));
+        verify(searchEngine, never())
+                .index(any());
+        verify(searchEngine, times(1))
+                .indexByOwnerId(owner.getId(), 101L);
+        verify(dashboardService, times(3))
+                .onItemCreated(anyLong());
+        verify(repository, times(1))
+                .flush();
+        verify(entityManager, times(1))
+                .clear();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenImportItemWithoutName() {
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(owner.getId()))
+                .thenReturn(owner);
+        when(repository.save(any()))
+                .thenAnswer(returnsFirstArg());
+        List<ItemDto> itemDtos = List.of(
+                ItemDto.builder().name("saw").description("sharp").available(true).build(),
+                ItemDto.builder().name(" ").description("loud").available(false).build());
+
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> service.importItems(owner.getId(), itemDtos.iterator()));
+
+        assertEquals("Вещь №2: поле name не должно быть пустым", exception.getMessage());
+        verify(repository, times(1))
+                .save(any());
+    }
+
     @Test
     void shouldCreateItemDto() {
-        when(userRepository.findById(owner.getId()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(owner.getId()))
+                .thenReturn(owner);
         when(repository.save(any()))
                 .thenReturn(item);
         ItemDto itemDto = ItemDto.builder()
@@ -119,12 +200,18 @@ class ItemServiceTest {
         assertEquals(item.getId(), result.getId());
         verify(repository, times(1))
                 .save(any());
+        verify(searchEngine, times(1))
+                .index(item);
+        verify(dashboardService, times(1))
+                .onItemCreated(item.getId());
     }
 
     @Test
     void shouldUpdateItemDto() {
-        when(userRepository.findById(owner.getId()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(owner.getId()))
+                .thenReturn(owner);
         when(repository.findById(item.getId()))
                 .thenReturn(Optional.of(item));
         when(repository.save(any()))
@@ -147,8 +234,10 @@ class ItemServiceTest {
 
     @Test
     void shouldGetItemDtoById() {
-        when(userRepository.findById(owner.getId()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(owner.getId()))
+                .thenReturn(owner);
         when(repository.findById(item.getId()))
                 .thenReturn(Optional.of(item));
         when(bookingRepository.findByItemId(anyLong()))
@@ -166,27 +255,51 @@ class ItemServiceTest {
     }
 
     @Test
-    void shouldGetItemDtoByUserId() {
+    void shouldGetItemETagWhichDiffersForOwner() {
+        when(userCache.exists(anyLong()))
+                .thenReturn(true);
+        when(repository.findVersionById(item.getId()))
+                .thenReturn(Optional.of(new ItemVersionView() {
+                    @Override
+                    public long getVersion() {
+                        return 3;
+                    }
+
+                    @Override
+                    public long getCardVersion() {
+                        return 5;
+                    }
+
+                    @Override
+                    public Long getOwnerId() {
+                        return owner.getId();
+                    }
+                }));
+
+        assertEquals("3.5-owner", service.getItemETag(item.getId(), owner.getId()));
+        assertEquals("3.5", service.getItemETag(item.getId(), booker.getId()));
+        verify(repository, never())
+                .findById(anyLong());
+        verifyNoInteractions(bookingRepository, commentRepository);
+    }
+
+    @Test
+    void shouldGetItemDtoByUserIdFromDashboards() {
         int from = 0;
         int size = 1;
-        when(userRepository.findById(owner.getId()))
-                .thenReturn(Optional.of(owner));
-        PageRequest page = PageRequest.of(from / size, size);
-        when(repository.findByOwnerId(owner.getId(), page))
-                .thenReturn(List.of(item));
-        when(bookingRepository.findByItemOwnerIdOrderByStartDesc(owner.getId(), page))
-                .thenReturn(List.of(booking));
-        when(commentRepository.findByItemIdIn(any()))
-                .thenReturn(List.of(comment));
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(owner.getId()))
+                .thenReturn(owner);
+        ItemDtoWithBookingAndComments itemDto = ItemMapper.toItemDtoWBC(item,
+                List.of(CommentMapper.toCommentDto(comment)), null, null);
+        when(dashboardService.findByOwnerId(owner.getId(), PageRequest.of(from / size, size)))
+                .thenReturn(List.of(itemDto));
 
         List<ItemDtoWithBookingAndComments> result = service.getItemDtoByUserId(owner.getId(), from, size);
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(comment.getId(), result.get(0).getComments().get(0).getId());
-        assertEquals(booking.getId(), result.get(0).getLastBooking().getId());
-        verify(repository, times(1))
-                .findByOwnerId(anyLong(), any());
+        assertEquals(List.of(itemDto), result);
+        verifyNoInteractions(bookingRepository, commentRepository);
     }
 
     @Test
@@ -207,22 +320,24 @@ class ItemServiceTest {
         int size = 1;
         String text = "too";
         PageRequest page = PageRequest.of(from / size, size);
-        when(repository.searchByText(text.toUpperCase(), page))
-                .thenReturn(List.of(item));
+        when(searchEngine.search(text, page))
+                .thenReturn(List.of(ItemMapper.toItemDto(item)));
 
         List<ItemDto> result = service.getItemsDtoByTextRequest(text, from, size);
 
         assertNotNull(result);
         assertEquals(item.getId(), result.get(0).getId());
         assertEquals(1, result.size());
-        verify(repository, times(1))
-                .searchByText(any(), any());
+        verify(searchEngine, times(1))
+                .search(any(), any());
     }
 
     @Test
     void shouldDeleteItemDto() {
-        when(userRepository.findById(owner.getId()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(owner.getId()))
+                .thenReturn(owner);
         when(repository.findById(item.getId()))
                 .thenReturn(Optional.of(item));
 
@@ -230,6 +345,8 @@ class ItemServiceTest {
 
         verify(repository, times(1))
                 .deleteById(anyLong());
+        verify(searchEngine, times(1))
+                .remove(item.getId());
     }
 
     @Test
@@ -237,8 +354,10 @@ class ItemServiceTest {
         Long userId = booker.getId();
         Long itemId = item.getId();
         String errorMessage = "Вещь id = " + itemId + " не принадлежит пользователю id = " + userId;
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(userId))
+                .thenReturn(booker);
         when(repository.findById(item.getId()))
                 .thenReturn(Optional.of(item));
         ObjectNotFoundException exception = assertThrows(ObjectNotFoundException.class,
@@ -269,6 +388,7 @@ class ItemServiceTest {
         assertEquals(comment.getId(), result.getId());
         verify(commentRepository, times(1))
                 .save(any());
+        verify(dashboardService).onCommentCreated(result);
     }
 
     @Test
@@ -315,8 +435,10 @@ class ItemServiceTest {
 
     @Test
     void shouldThrowExceptionWhenUpdateItemWithEmptyName() {
-        when(userRepository.findById(owner.getId()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(owner.getId()))
+                .thenReturn(owner);
         when(repository.findById(item.getId()))
                 .thenReturn(Optional.of(item));
         String errorMessage = "Поле name не должно быть пустым";
@@ -331,8 +453,10 @@ class ItemServiceTest {
 
     @Test
     void shouldThrowExceptionWhenUpdateItemWithEmptyDescription() {
-        when(userRepository.findById(owner.getId()))
-                .thenReturn(Optional.of(owner));
+        when(userCache.exists(owner.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(owner.getId()))
+                .thenReturn(owner);
         when(repository.findById(item.getId()))
                 .thenReturn(Optional.of(item));
         String errorMessage = "Поле description не должно быть пустым";
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
@@ -137,6 +138,8 @@ class ItemRequestControllerTest {
     @SneakyThrows
     @Test
     void shouldGetItemRequestById() {
+        when(service.getRequestETag(anyLong(), anyLong()))
+                .thenReturn("a1");
         when(service.getRequestById(anyLong(), anyLong()))
                 .thenReturn(itemRequestDtoWithItems);
 
@@ -144,10 +147,29 @@ class ItemRequestControllerTest {
                 .header(HEADER, 1L))
                 .andExpectAll(
                         status().isOk(),
+                        header().string(HttpHeaders.ETAG, "\"a1\""),
                         jsonPath("$.id", Matchers.is(itemRequestDtoWithItems.getId()), Long.class),
                         jsonPath("$.description", Matchers.is(itemRequestDtoWithItems.getDescription()))
                 );
         verify(service, times(1))
                 .getRequestById(anyLong(), anyLong());
     }
+
+    @SneakyThrows
+    @Test
+    void shouldAnswerNotModifiedWhenRequestIsUnchanged() {
+        when(service.getRequestETag(anyLong(), anyLong()))
+                .thenReturn("a1");
+
+        mvc.perform(get(URL + "/1")
+                .header(HEADER, 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"a1\""))
+                .andExpectAll(
+                        status().isNotModified(),
+                        header().string(HttpHeaders.ETAG, "\"a1\""),
+                        content().string("")
+                );
+        verify(service, never())
+                .getRequestById(anyLong(), anyLong());
+    }
 }
\ No newline at end of file
@@ -8,7 +8,9 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemRequestVersionView;
 import ru.practicum.shareit.user.User;
 
 import java.time.LocalDateTime;
@@ -79,4 +81,40 @@ class ItemRequestRepositoryTest {
 
         Assertions.assertThat(result).isNotNull().hasSize(1).hasAtLeastOneElementOfType(ItemRequest.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldFindVersionsOfRequestRequestorAndItems() {
+        Item item = persistItem("saw");
+        Item secondItem = persistItem("drill");
+        requestor.setName("Marta Smith");
+        manager.flush();
+
+        List<ItemRequestVersionView> result = repository.findVersionsById(request.getId());
+
+        Assertions.assertThat(result).extracting(ItemRequestVersionView::getItemId)
+                .containsExactly(item.getId(), secondItem.getId());
+        Assertions.assertThat(result).extracting(ItemRequestVersionView::getItemVersion)
+                .containsOnly(0L);
+        Assertions.assertThat(result).extracting(ItemRequestVersionView::getRequestorVersion)
+                .containsOnly(1L);
+    }
+
+    @Test
+    void shouldFindVersionsOfRequestWithoutItems() {
+        List<ItemRequestVersionView> result = repository.findVersionsById(secondRequest.getId());
+
+        Assertions.assertThat(result).hasSize(1);
+        Assertions.assertThat(result.get(0).getVersion()).isZero();
+        Assertions.assertThat(result.get(0).getItemId()).isNull();
+    }
+
+    private Item persistItem(String name) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription("for request");
+        item.setAvailable(true);
+        item.setOwner(secondUser);
+        item.setRequest(request);
+        return manager.persist(item);
+    }
+}
@@ -9,19 +9,23 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.exception.model.ObjectNotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
+import ru.practicum.shareit.request.dto.ItemRequestVersionView;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,6 +42,9 @@ class ItemRequestServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserExistenceCache userCache;
+
     @Mock
     private ItemRepository itemRepository;
 
@@ -97,7 +104,7 @@ class ItemRequestServiceImplTest {
         Long userId = 0L;
         String errorMessage = "Пользователь с id = " + userId + " не найден";
         when(userRepository.findById(userId))
-                .thenThrow(new ObjectNotFoundException(errorMessage));
+                .thenReturn(Optional.empty());
 
         ObjectNotFoundException exception = assertThrows(ObjectNotFoundException.class,
                 () -> service.createRequest(userId, ItemRequestDto.builder().description(itemRequest.getDescription())
@@ -112,8 +119,8 @@ class ItemRequestServiceImplTest {
     @Test
     void shouldFindRequestDtoByRequestorId() {
         Long userId = requestor.getId();
-        when(userRepository.findById(requestor.getId()))
-                .thenReturn(Optional.of(requestor));
+        when(userCache.exists(requestor.getId()))
+                .thenReturn(true);
         when(itemRequestRepository.findByRequestorId(userId))
                 .thenReturn(List.of(itemRequest));
 
@@ -125,12 +132,45 @@ class ItemRequestServiceImplTest {
                 .findByRequestorId(userId);
     }
 
+    @Test
+    void shouldAddToEachRequestOnlyItsOwnItems() {
+        Long userId = requestor.getId();
+        ItemRequest secondRequest = new ItemRequest();
+        secondRequest.setId(2L);
+        secondRequest.setDescription("need drill");
+        secondRequest.setRequestor(requestor);
+        ItemRequest requestWithoutItems = new ItemRequest();
+        requestWithoutItems.setId(3L);
+        requestWithoutItems.setDescription("need saw");
+        requestWithoutItems.setRequestor(requestor);
+        Item drill = new Item();
+        drill.setId(2L);
+        drill.setName("drill");
+        drill.setOwner(owner);
+        drill.setRequest(secondRequest);
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRequestRepository.findByRequestorId(userId))
+                .thenReturn(List.of(itemRequest, secondRequest, requestWithoutItems));
+        when(itemRepository.findByRequestIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(item, drill));
+
+        List<ItemRequestDtoWithItems> itemRequests = service.getRequestDtoByRequestorId(userId);
+
+        assertEquals(3, itemRequests.size());
+        assertEquals(List.of(item.getId()), itemIds(itemRequests.get(0)));
+        assertEquals(List.of(drill.getId()), itemIds(itemRequests.get(1)));
+        assertEquals(Collections.emptyList(), itemIds(itemRequests.get(2)));
+        verify(itemRepository, times(1))
+                .findByRequestIdIn(anyList());
+    }
+
     @Test
     void shouldThrowExceptionWhenFindRequestsByRequestorIdIfUserNotFound() {
         Long userId = 0L;
         String errorMessage = "Пользователь с id = " + userId + " не найден";
-        when(userRepository.findById(userId))
-                .thenThrow(new ObjectNotFoundException(errorMessage));
+        when(userCache.exists(userId))
+                .thenReturn(false);
 
         ObjectNotFoundException exception = assertThrows(ObjectNotFoundException.class,
                 () -> service.getRequestDtoByRequestorId(userId)
@@ -147,8 +187,8 @@ class ItemRequestServiceImplTest {
         int from = 0;
         int size = 1;
         PageRequest page = PageRequest.of(from / size, size, SORT);
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(requestor));
+        when(userCache.exists(userId))
+                .thenReturn(true);
         when(itemRequestRepository.findAllByRequestorIdNot(userId,page))
                 .thenReturn(Collections.emptyList());
 
@@ -167,8 +207,8 @@ class ItemRequestServiceImplTest {
         int from = 0;
         int size = 1;
         PageRequest page = PageRequest.of(from / size, size, SORT);
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(requestor));
+        when(userCache.exists(userId))
+                .thenReturn(true);
         when(itemRequestRepository.findAllByRequestorIdNot(userId,page))
                 .thenReturn(List.of(itemRequest));
 
@@ -184,8 +224,8 @@ class ItemRequestServiceImplTest {
     @Test
     void shouldFindRequestById() {
         Long userId = requestor.getId();
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(requestor));
+        when(userCache.exists(userId))
+                .thenReturn(true);
         Long requestId = itemRequest.getId();
         when(itemRequestRepository.findById(requestId))
                 .thenReturn(Optional.of(itemRequest));
@@ -206,8 +246,8 @@ class ItemRequestServiceImplTest {
         Long userId = requestor.getId();
         Long requestId = 0L;
         String errorMessage = "Запрос по id = " + requestId + " не найден";
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(requestor));
+        when(userCache.exists(userId))
+                .thenReturn(true);
         when(itemRequestRepository.findById(requestId))
                 .thenThrow(new ObjectNotFoundException("Запрос по id = " + requestId + " не найден"));
 
@@ -217,4 +257,68 @@ class ItemRequestServiceImplTest {
 
         assertEquals(errorMessage, exception.getMessage());
     }
+
+    @Test
+    void shouldChangeRequestETagWhenItemOfRequestChanges() {
+        Long userId = requestor.getId();
+        Long requestId = itemRequest.getId();
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRequestRepository.findVersionsById(requestId))
+                .thenReturn(List.of(version(null, null)))
+                .thenReturn(List.of(version(item.getId(), 0L)))
+                .thenReturn(List.of(version(item.getId(), 1L)));
+
+        String withoutItems = service.getRequestETag(userId, requestId);
+        String withItem = service.getRequestETag(userId, requestId);
+        String withUpdatedItem = service.getRequestETag(userId, requestId);
+
+        assertNotEquals(withoutItems, withItem);
+        assertNotEquals(withItem, withUpdatedItem);
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenGetRequestETagIfRequestNotFound() {
+        Long userId = requestor.getId();
+        when(userCache.exists(userId))
+                .thenReturn(true);
+        when(itemRequestRepository.findVersionsById(0L))
+                .thenReturn(Collections.emptyList());
+
+        ObjectNotFoundException exception = assertThrows(ObjectNotFoundException.class,
+                () -> service.getRequestETag(userId, 0L));
+
+        assertEquals("Запрос по id = 0 не найден", exception.getMessage());
+    }
+
+    private static ItemRequestVersionView version(Long itemId, Long itemVersion) {
+        return new ItemRequestVersionView() {
+            @Override
+            public long getVersion() {
+                return 0;
+            }
+
+            @Override
+            public long getRequestorVersion() {
+                return 0;
+            }
+
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Long getItemVersion() {
+                return itemVersion;
+            }
+        };
+    }
+
+    private static List<Long> itemIds(ItemRequestDtoWithItems request) {
+        return request.getItems().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
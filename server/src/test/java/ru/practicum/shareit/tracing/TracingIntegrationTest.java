@@ -0,0 +1,137 @@
+package ru.practicum.shareit.tracing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Трасса одного GET /bookings/{id}: продолжение трассы шлюза и вложенность отрезков контроллера,
+ * сервиса, репозитория и SQL.
+ */
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "shareit.tracing.enabled=true",
+        "shareit.tracing.sink=memory"
+})
+class TracingIntegrationTest {
+
+    private static final String HEADER = "X-Sharer-User-Id";
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    private static final String GATEWAY_SPAN_ID = "00f067aa0ba902b7";
+
+    @Autowired
+    private EntityManager manager;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private InMemorySpanSink sink;
+
+    private User booker;
+
+    private Booking booking;
+
+    @BeforeEach
+    void beforeEach() {
+        User owner = persistUser("Tom", "tom@trace.ru");
+        booker = persistUser("Rick", "rick@trace.ru");
+        Item item = new Item();
+        item.setName("tool");
+        item.setDescription("good");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        manager.persist(item);
+        booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
+        booking.setStatus(BookingStatus.WAITING);
+        manager.persist(booking);
+        manager.flush();
+        manager.clear();
+        sink.clear();
+    }
+
+    @Test
+    void shouldContinueGatewayTraceThroughControllerServiceRepositoryAndJdbc() throws Exception {
+        mvc.perform(get("/bookings/{id}", booking.getId())
+                        .header(HEADER, booker.getId())
+                        .header(Tracer.TRACEPARENT, "00-" + TRACE_ID + "-" + GATEWAY_SPAN_ID + "-01"))
+                .andExpect(status().isOk());
+
+        List<Span> spans = sink.getTrace(TRACE_ID);
+        Map<String, Span> byId = spans.stream().collect(Collectors.toMap(Span::getSpanId, Function.identity()));
+        Span server = find(spans, "GET /bookings/{bookingId}");
+        Span controller = find(spans, "BookingController.findByBookingId");
+        Span service = find(spans, "BookingServiceImpl.findByBookingId");
+        assertEquals(Span.Kind.SERVER, server.getKind());
+        assertEquals(GATEWAY_SPAN_ID, server.getParentId());
+        assertEquals("200", server.getTags().get("http.status"));
+        assertEquals(server.getSpanId(), controller.getParentId());
+        assertEquals(controller.getSpanId(), service.getParentId());
+        Span repository = spans.stream()
+                .filter(span -> "repository".equals(span.getTags().get("layer")))
+                .filter(span -> span.getName().startsWith("BookingRepository."))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(service.getSpanId(), repository.getParentId());
+        Span jdbc = spans.stream()
+                .filter(span -> "jdbc".equals(span.getTags().get("layer")))
+                .filter(span -> span.getTags().getOrDefault("sql", "").contains("bookings"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(repository.getSpanId(), jdbc.getParentId());
+        assertTrue(spans.stream().allMatch(span -> span == server || byId.containsKey(span.getParentId())));
+        assertTrue(server.getDurationMicros() >= service.getDurationMicros());
+    }
+
+    @Test
+    void shouldStartNewTraceWithoutTraceparent() throws Exception {
+        mvc.perform(get("/users/{id}", booker.getId())).andExpect(status().isOk());
+
+        Span server = find(sink.getSpans(), "GET /users/{id}");
+        assertNull(server.getParentId());
+        assertEquals(32, server.getTraceId().length());
+        assertFalse(sink.getTrace(server.getTraceId()).isEmpty());
+    }
+
+    private static Span find(List<Span> spans, String name) {
+        return spans.stream()
+                .filter(span -> span.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(name + " not in " + spans.stream()
+                        .map(Span::getName).collect(Collectors.toList())));
+    }
+
+    private User persistUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        manager.persist(user);
+        return user;
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -80,12 +81,15 @@ class UserControllerTest {
     @SneakyThrows
     @Test
     void getUserById() {
+        when(service.getUserETag(anyLong()))
+                .thenReturn("0");
         when(service.getUserById(anyLong()))
                 .thenReturn(userDto);
 
         mvc.perform(get(URL + "/1"))
                 .andExpectAll(
                         status().isOk(),
+                        header().string(HttpHeaders.ETAG, "\"0\""),
                         jsonPath("$.id", Matchers.is(userDto.getId()), Long.class),
                         jsonPath("$.name", Matchers.is(userDto.getName())),
                         jsonPath("$.email", Matchers.is(userDto.getEmail()))
@@ -94,6 +98,22 @@ class UserControllerTest {
                 .getUserById(anyLong());
     }
 
+    @SneakyThrows
+    @Test
+    void shouldAnswerNotModifiedWhenUserIsUnchanged() {
+        when(service.getUserETag(anyLong()))
+                .thenReturn("0");
+
+        mvc.perform(get(URL + "/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpectAll(
+                        status().isNotModified(),
+                        header().string(HttpHeaders.ETAG, "\"0\"")
+                );
+        verify(service, never())
+                .getUserById(anyLong());
+    }
+
     @SneakyThrows
     @Test
     void shouldCreateUser() {
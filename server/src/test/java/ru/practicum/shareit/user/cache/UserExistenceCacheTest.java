@@ -0,0 +1,80 @@
+package ru.practicum.shareit.user.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserExistenceCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserExistenceCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserExistenceCache(userRepository, meterRegistry, Duration.ofMinutes(10), 100);
+    }
+
+    @Test
+    void shouldCheckRepositoryOnlyOnceForExistingUser() {
+        when(userRepository.existsById(1L))
+                .thenReturn(true);
+
+        assertTrue(cache.exists(1L));
+        assertTrue(cache.exists(1L));
+
+        verify(userRepository, times(1))
+                .existsById(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void shouldNotCacheMissingUser() {
+        when(userRepository.existsById(2L))
+                .thenReturn(false, true);
+
+        assertFalse(cache.exists(2L));
+        assertTrue(cache.exists(2L));
+
+        verify(userRepository, times(2))
+                .existsById(2L);
+    }
+
+    @Test
+    void shouldCheckRepositoryAgainAfterEvict() {
+        when(userRepository.existsById(3L))
+                .thenReturn(true, false);
+
+        assertTrue(cache.exists(3L));
+        cache.evict(3L);
+
+        assertFalse(cache.exists(3L));
+    }
+
+    @Test
+    void shouldNotCheckRepositoryForAddedUser() {
+        cache.add(4L);
+
+        assertTrue(cache.exists(4L));
+        assertFalse(cache.exists(null));
+        verify(userRepository, never())
+                .existsById(anyLong());
+    }
+}
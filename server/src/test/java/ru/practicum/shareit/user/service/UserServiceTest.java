@@ -6,16 +6,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.availability.BookingAvailabilityIndex;
 import ru.practicum.shareit.exception.model.ObjectNotFoundException;
 import ru.practicum.shareit.exception.model.ValidationException;
+import ru.practicum.shareit.item.dashboard.ItemDashboardService;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.user.cache.UserExistenceCache;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,6 +31,18 @@ class UserServiceTest {
     @Mock
     private UserRepository repository;
 
+    @Mock
+    private ItemSearchEngine searchEngine;
+
+    @Mock
+    private UserExistenceCache userCache;
+
+    @Mock
+    private ItemDashboardService dashboardService;
+
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+
     @InjectMocks
     private UserServiceImpl service;
 
@@ -77,6 +94,24 @@ class UserServiceTest {
         assertEquals(userId, result.getId());
     }
 
+    @Test
+    void shouldGetUserETagFromVersion() {
+        when(repository.findVersionById(user.getId()))
+                .thenReturn(Optional.of(2L));
+
+        assertEquals("2", service.getUserETag(user.getId()));
+        verify(repository, never())
+                .findById(anyLong());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenGetUserETagIfUserNotFound() {
+        when(repository.findVersionById(0L))
+                .thenReturn(Optional.empty());
+
+        assertThrows(ObjectNotFoundException.class, () -> service.getUserETag(0L));
+    }
+
     @Test
     void shouldThrowExceptionWhenFindByIdIfUserNotFound() {
         Long userId = 0L;
@@ -122,6 +157,8 @@ class UserServiceTest {
         assertEquals(user.getId(), result.getId());
         verify(repository, times(1))
                 .save(any());
+        verify(userCache, times(1))
+                .add(user.getId());
     }
 
     @Test
@@ -142,6 +179,10 @@ class UserServiceTest {
         assertNotNull(result);
         assertEquals(userId, result.getId());
         assertEquals(newName, result.getName());
+        verify(userCache, times(1))
+                .evict(userId);
+        verify(dashboardService, times(1))
+                .onAuthorRenamed(userId);
     }
 
     @Test
@@ -181,11 +222,21 @@ class UserServiceTest {
     @Test
     void shouldDeleteUserById() {
         Long userId = 1L;
+        when(dashboardService.onUserDeleting(userId))
+                .thenReturn(Set.of(7L));
 
         service.deleteUserById(userId);
 
         verify(repository, times(1))
                 .deleteById(userId);
+        verify(searchEngine, times(1))
+                .removeByOwnerId(userId);
+        verify(userCache, times(1))
+                .evict(userId);
+        verify(dashboardService, times(1))
+                .onUserDeleted(Set.of(7L));
+        verify(availabilityIndex, times(1))
+                .onUserDeleting(userId);
     }
 
     @Test